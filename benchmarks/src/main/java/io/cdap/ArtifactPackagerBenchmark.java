@@ -0,0 +1,103 @@
+/*
+ * Copyright © 2022 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.apache.commons.io.FileUtils;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.MojoFailureException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Throughput of {@code package-artifacts-for-hub} staging a package with a jar of the given size, a plugin JSON,
+ * a spec.json and icons, with each staging strategy.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ArtifactPackagerBenchmark {
+
+  /**
+   * Size of the jar in kilobytes.
+   */
+  @Param({"1024", "32768"})
+  public int jarSizeKb;
+
+  @Param({"copy", "hardlink"})
+  public String stagingStrategy;
+
+  @Param({"false", "true"})
+  public boolean skipUnchanged;
+
+  private Path directory;
+  private Path buildDirectory;
+
+  @Setup
+  public void setUp() throws IOException {
+    directory = Files.createTempDirectory("artifact-packager-benchmark");
+    Fixtures.pluginProject(directory, 4, 8 * 1024);
+    buildDirectory = Files.createDirectories(directory.resolve("target"));
+    Files.write(buildDirectory.resolve("benchmark-plugins-1.0.0.jar"), Fixtures.icon(jarSizeKb * 1024));
+    Files.write(buildDirectory.resolve("benchmark-plugins-1.0.0.json"),
+                Fixtures.widget(40).getBytes(StandardCharsets.UTF_8));
+    Files.write(buildDirectory.resolve("spec.json"), "{}".getBytes(StandardCharsets.UTF_8));
+  }
+
+  @TearDown
+  public void tearDown() throws IOException {
+    FileUtils.deleteDirectory(directory.toFile());
+  }
+
+  @Benchmark
+  public File createArtifactsForHub() throws MojoExecutionException, MojoFailureException {
+    Path outputDirectory = directory.resolve("packages");
+    Map<String, Object> parameters = new HashMap<>();
+    parameters.put("relativeOutputDir", outputDirectory.toString());
+    parameters.put("buildDirectory", buildDirectory.toString());
+    parameters.put("baseDirectory", directory.toString());
+    parameters.put("artifactId", "benchmark-plugins");
+    parameters.put("version", "1.0.0");
+    parameters.put("iconsDirectory", "icons");
+    parameters.put("stagingStrategy", stagingStrategy);
+    parameters.put("skipUnchanged", skipUnchanged);
+    parameters.put("stagingThreads", 1);
+    parameters.put("compressionLevel", 6);
+    Mojos.configure(new ArtifactPackager(), parameters).execute();
+    return outputDirectory.toFile();
+  }
+}
@@ -0,0 +1,191 @@
+/*
+ * Copyright © 2022 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap;
+
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+/**
+ * Generates inputs shaped like the ones found in plugin projects, in the sizes the benchmarks are run with.
+ */
+final class Fixtures {
+
+  private Fixtures() {
+  }
+
+  /**
+   * Returns a pretty-printed widget JSON with the given number of properties spread over configuration groups,
+   * as written by plugin developers.
+   */
+  static String widget(int properties) {
+    ObjectNode widget = JsonSupport.newObject();
+    widget.putObject("metadata").put("spec-version", "1.5");
+    widget.put("display-name", "Benchmark Source");
+    ArrayNode groups = widget.putArray("configuration-groups");
+    ArrayNode groupProperties = null;
+    for (int i = 0; i < properties; i++) {
+      if (i % 8 == 0) {
+        ObjectNode group = groups.addObject();
+        group.put("label", "Group " + i / 8);
+        groupProperties = group.putArray("properties");
+      }
+      ObjectNode property = groupProperties.addObject();
+      property.put("widget-type", i % 3 == 0 ? "select" : "textbox");
+      property.put("label", "Property " + i);
+      property.put("name", "property" + i);
+      ObjectNode attributes = property.putObject("widget-attributes");
+      attributes.put("placeholder", "Value of property " + i + ", used by the benchmark source");
+      if (i % 3 == 0) {
+        ArrayNode values = attributes.putArray("values");
+        values.add("first").add("second").add("third");
+        attributes.put("default", "first");
+      }
+    }
+    ArrayNode outputs = widget.putArray("outputs");
+    ObjectNode schema = outputs.addObject();
+    schema.put("name", "schema");
+    schema.put("widget-type", "schema");
+    schema.putObject("widget-attributes").putArray("schema-types").add("string").add("long").add("double");
+    widget.putArray("filters");
+    return toString(widget);
+  }
+
+  /**
+   * Returns a pretty-printed pipeline, as exported from the CDAP UI, with the given number of stages connected
+   * in a chain.
+   */
+  static String exportedPipeline(int stages) {
+    ObjectNode pipeline = JsonSupport.newObject();
+    pipeline.put("name", "benchmark_pipeline");
+    pipeline.put("description", "Data Pipeline Application");
+    ObjectNode artifact = pipeline.putObject("artifact");
+    artifact.put("name", "cdap-data-pipeline");
+    artifact.put("version", "6.4.0");
+    artifact.put("scope", "SYSTEM");
+
+    ObjectNode config = pipeline.putObject("config");
+    ObjectNode resources = config.putObject("resources");
+    resources.put("memoryMB", 2048);
+    resources.put("virtualCores", 1);
+    ArrayNode connections = config.putArray("connections");
+    ArrayNode stageNodes = config.putArray("stages");
+    for (int i = 0; i < stages; i++) {
+      if (i > 0) {
+        ObjectNode connection = connections.addObject();
+        connection.put("from", "Stage" + (i - 1));
+        connection.put("to", "Stage" + i);
+      }
+      ObjectNode stage = stageNodes.addObject();
+      stage.put("name", "Stage" + i);
+      stage.put("id", "Stage" + i);
+      ObjectNode plugin = stage.putObject("plugin");
+      plugin.put("name", i == 0 ? "File" : "Wrangler");
+      plugin.put("type", i == 0 ? "batchsource" : "transform");
+      plugin.put("label", "Stage " + i);
+      ObjectNode pluginArtifact = plugin.putObject("artifact");
+      pluginArtifact.put("name", "core-plugins");
+      pluginArtifact.put("version", "2.6.0");
+      pluginArtifact.put("scope", "SYSTEM");
+      ObjectNode properties = plugin.putObject("properties");
+      properties.put("referenceName", "stage" + i);
+      properties.put("directives", "parse-as-csv :body ',' false\ndrop body\nrename body_1 id\nrename body_2 name");
+      properties.put("schema", schema(i));
+      stage.put("outputSchema", schema(i));
+    }
+    config.put("schedule", "0 * * * *");
+    config.put("engine", "spark");
+    config.put("numOfRecordsPreview", 100);
+    config.put("maxConcurrentRuns", 1);
+    return toString(pipeline);
+  }
+
+  /**
+   * Returns an exported pipeline of about the given size, with as many stages as it takes.
+   */
+  static String exportedPipelineOfSize(long bytes) {
+    int stageSize = exportedPipeline(11).length() - exportedPipeline(10).length();
+    int stages = (int) Math.max(1, (bytes - exportedPipeline(1).length()) / stageSize + 1);
+    return exportedPipeline(stages);
+  }
+
+  /**
+   * Returns the given number of pseudo-random bytes, the same on every run, starting with the PNG signature so
+   * that they pass for an icon.
+   */
+  static byte[] icon(int size) {
+    byte[] content = new byte[size];
+    new Random(size).nextBytes(content);
+    byte[] signature = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1a, '\n'};
+    System.arraycopy(signature, 0, content, 0, Math.min(size, signature.length));
+    return content;
+  }
+
+  /**
+   * Returns a markdown plugin documentation of about the given size.
+   */
+  static String doc(String name, int size) {
+    StringBuilder doc = new StringBuilder("# ").append(name).append("\n\nDescription\n-----------\n");
+    for (int i = 0; doc.length() < size; i++) {
+      doc.append("\n**Property ").append(i).append(":** Value of property ").append(i)
+        .append(", used by the benchmark source to read records from the external system.\n");
+    }
+    return doc.toString();
+  }
+
+  /**
+   * Writes a plugin project with the given number of plugins, each with a widget, a documentation and an icon
+   * of the given size.
+   *
+   * @return the base directory of the project
+   */
+  static Path pluginProject(Path directory, int plugins, int iconSize) throws IOException {
+    Path widgets = Files.createDirectories(directory.resolve("widgets"));
+    Path docs = Files.createDirectories(directory.resolve("docs"));
+    Path icons = Files.createDirectories(directory.resolve("icons"));
+    for (int i = 0; i < plugins; i++) {
+      String name = "Plugin" + i + "-batchsource";
+      Files.write(widgets.resolve(name + ".json"), widget(40).getBytes(StandardCharsets.UTF_8));
+      Files.write(docs.resolve(name + ".md"), doc(name, 4096).getBytes(StandardCharsets.UTF_8));
+      Files.write(icons.resolve(name + ".png"), icon(iconSize));
+    }
+    return directory;
+  }
+
+  private static String schema(int stage) {
+    StringBuilder schema = new StringBuilder("{\"type\":\"record\",\"name\":\"record").append(stage)
+      .append("\",\"fields\":[");
+    for (int i = 0; i < 10; i++) {
+      schema.append(i == 0 ? "" : ",")
+        .append("{\"name\":\"field").append(i).append("\",\"type\":[\"string\",\"null\"]}");
+    }
+    return schema.append("]}").toString();
+  }
+
+  private static String toString(ObjectNode node) {
+    try {
+      return JsonSupport.toString(node, false);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+}
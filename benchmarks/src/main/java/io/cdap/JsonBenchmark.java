@@ -0,0 +1,93 @@
+/*
+ * Copyright © 2022 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import org.json.JSONObject;
+import org.json.JSONTokener;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Parse and serialize throughput of the plugin's Jackson based JSON support, against the {@code org.json} parser
+ * the goals were originally built on, for widget files and exported pipelines.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JsonBenchmark {
+
+  @Param({"widget", "pipeline"})
+  public String fixture;
+
+  private byte[] content;
+  private JsonNode jacksonTree;
+  private JSONObject orgJsonObject;
+
+  @Setup
+  public void setUp() throws IOException {
+    String json = "widget".equals(fixture) ? Fixtures.widget(40) : Fixtures.exportedPipeline(50);
+    content = json.getBytes(StandardCharsets.UTF_8);
+    jacksonTree = JsonSupport.MAPPER.readTree(content);
+    orgJsonObject = new JSONObject(json);
+  }
+
+  @Benchmark
+  public JsonNode parseJackson() throws IOException {
+    return JsonSupport.MAPPER.readTree(content);
+  }
+
+  @Benchmark
+  public JSONObject parseOrgJson() {
+    return new JSONObject(new JSONTokener(new String(content, StandardCharsets.UTF_8)));
+  }
+
+  @Benchmark
+  public String writePrettyJackson() throws IOException {
+    return JsonSupport.toString(jacksonTree, false);
+  }
+
+  @Benchmark
+  public String writePrettyOrgJson() {
+    return orgJsonObject.toString(2);
+  }
+
+  @Benchmark
+  public String writeCompactJackson() throws IOException {
+    return JsonSupport.toString(jacksonTree, true);
+  }
+
+  @Benchmark
+  public String writeCompactOrgJson() {
+    return orgJsonObject.toString();
+  }
+}
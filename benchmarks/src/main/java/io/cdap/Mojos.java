@@ -0,0 +1,123 @@
+/*
+ * Copyright © 2022 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap;
+
+import java.lang.reflect.Field;
+import java.util.Map;
+import org.apache.maven.plugin.AbstractMojo;
+import org.apache.maven.plugin.logging.Log;
+
+/**
+ * Configures goals outside of Maven, the way Maven injects their parameters, so that benchmarks run their
+ * {@code execute} method as a build would.
+ */
+final class Mojos {
+
+  private Mojos() {
+  }
+
+  /**
+   * Sets the given parameters of a goal and silences its log.
+   */
+  static <T extends AbstractMojo> T configure(T mojo, Map<String, Object> parameters) {
+    for (Map.Entry<String, Object> parameter : parameters.entrySet()) {
+      try {
+        Field field = mojo.getClass().getDeclaredField(parameter.getKey());
+        field.setAccessible(true);
+        field.set(mojo, parameter.getValue());
+      } catch (ReflectiveOperationException e) {
+        throw new IllegalArgumentException("Unable to set parameter " + parameter.getKey(), e);
+      }
+    }
+    mojo.setLog(new QuietLog());
+    return mojo;
+  }
+
+  /**
+   * Log discarding everything, so that benchmarks do not measure the console.
+   */
+  private static final class QuietLog implements Log {
+
+    @Override
+    public boolean isDebugEnabled() {
+      return false;
+    }
+
+    @Override
+    public void debug(CharSequence content) {
+    }
+
+    @Override
+    public void debug(CharSequence content, Throwable error) {
+    }
+
+    @Override
+    public void debug(Throwable error) {
+    }
+
+    @Override
+    public boolean isInfoEnabled() {
+      return false;
+    }
+
+    @Override
+    public void info(CharSequence content) {
+    }
+
+    @Override
+    public void info(CharSequence content, Throwable error) {
+    }
+
+    @Override
+    public void info(Throwable error) {
+    }
+
+    @Override
+    public boolean isWarnEnabled() {
+      return false;
+    }
+
+    @Override
+    public void warn(CharSequence content) {
+    }
+
+    @Override
+    public void warn(CharSequence content, Throwable error) {
+    }
+
+    @Override
+    public void warn(Throwable error) {
+    }
+
+    @Override
+    public boolean isErrorEnabled() {
+      return false;
+    }
+
+    @Override
+    public void error(CharSequence content) {
+    }
+
+    @Override
+    public void error(CharSequence content, Throwable error) {
+    }
+
+    @Override
+    public void error(Throwable error) {
+    }
+  }
+}
@@ -0,0 +1,82 @@
+/*
+ * Copyright © 2022 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import org.apache.commons.io.FileUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Throughput of the extraction of the configuration of exported pipelines, from a few kilobytes to 50MB.
+ *
+ * The extracted configuration is left in place between invocations, so after the first one the output is compared
+ * to the previous one instead of being replaced, as in a rebuild of an unchanged pipeline.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 4)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PipelineJsonBenchmark {
+
+  /**
+   * Size of the exported pipeline in kilobytes.
+   */
+  @Param({"16", "1024", "51200"})
+  public int sizeKb;
+
+  @Param({"true", "false"})
+  public boolean compact;
+
+  private Path directory;
+  private Path input;
+  private Path output;
+
+  @Setup
+  public void setUp() throws IOException {
+    directory = Files.createTempDirectory("pipeline-json-benchmark");
+    input = directory.resolve("pipeline.json");
+    output = directory.resolve("pipeline-config.json");
+    Files.write(input, Fixtures.exportedPipelineOfSize(sizeKb * 1024L).getBytes(StandardCharsets.UTF_8));
+  }
+
+  @TearDown
+  public void tearDown() throws IOException {
+    FileUtils.deleteDirectory(directory.toFile());
+  }
+
+  @Benchmark
+  public boolean extractConfig() throws IOException {
+    return PipelineConfigExtractor.extractConfig(input, output, compact);
+  }
+}
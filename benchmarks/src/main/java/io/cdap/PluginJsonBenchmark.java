@@ -0,0 +1,98 @@
+/*
+ * Copyright © 2022 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.apache.commons.io.FileUtils;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.project.MavenProject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Throughput of {@code create-plugin-json} on a plugin project, from reading the widgets, docs and icons to writing
+ * the plugin JSON, without the incremental check.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PluginJsonBenchmark {
+
+  @Param({"10", "50"})
+  public int plugins;
+
+  @Param({"1", "4"})
+  public int parallelism;
+
+  @Param({"none", "warn"})
+  public String widgetValidation;
+
+  private Path directory;
+  private MavenProject project;
+
+  @Setup
+  public void setUp() throws IOException {
+    directory = Fixtures.pluginProject(Files.createTempDirectory("plugin-json-benchmark"), plugins, 8 * 1024);
+    Files.createDirectories(directory.resolve("target"));
+    project = new MavenProject();
+    project.setGroupId("io.cdap");
+    project.setArtifactId("benchmark-plugins");
+    project.setVersion("1.0.0");
+    project.setName("Benchmark Plugins");
+    project.setFile(directory.resolve("pom.xml").toFile());
+    project.getBuild().setDirectory(directory.resolve("target").toString());
+  }
+
+  @TearDown
+  public void tearDown() throws IOException {
+    FileUtils.deleteDirectory(directory.toFile());
+  }
+
+  @Benchmark
+  public File createPluginJson() throws MojoExecutionException {
+    Map<String, Object> parameters = new HashMap<>();
+    parameters.put("project", project);
+    parameters.put("cdapArtifacts", new String[] {"system:cdap-data-pipeline[6.0.0,9.0.0-SNAPSHOT)"});
+    parameters.put("widgetsDirectory", "widgets");
+    parameters.put("docsDirectory", "docs");
+    parameters.put("iconsDirectory", "icons");
+    parameters.put("parallelism", parallelism);
+    parameters.put("widgetValidation", widgetValidation);
+    parameters.put("maxIconSize", 32L * 1024);
+    Mojos.configure(new PluginJson(), parameters).execute();
+    return new File(project.getBuild().getDirectory(), "benchmark-plugins-1.0.0.json");
+  }
+}
@@ -0,0 +1,79 @@
+/*
+ * Copyright © 2022 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+import org.apache.commons.io.FileUtils;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Throughput of {@code create-plugin-spec-json}, for a plugin and for a pipeline.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SpecJsonBenchmark {
+
+  @Param({"false", "true"})
+  public boolean isPipeline;
+
+  private Path directory;
+
+  @Setup
+  public void setUp() throws IOException {
+    directory = Files.createTempDirectory("spec-json-benchmark");
+  }
+
+  @TearDown
+  public void tearDown() throws IOException {
+    FileUtils.deleteDirectory(directory.toFile());
+  }
+
+  @Benchmark
+  public File createSpecJson() throws MojoExecutionException {
+    SpecJsonCreator mojo = new SpecJsonCreator(
+      SpecJsonCreator.ONE_STEP_DEPLOY_PLUGIN, "user",
+      new String[] {"system:cdap-data-pipeline[6.0.0,9.0.0-SNAPSHOT)",
+                    "system:cdap-data-streams[6.0.0,9.0.0-SNAPSHOT)"},
+      "benchmark-plugins", "1.0.0", "Benchmark Plugins", "Plugins of the benchmark", "CDAP", "Cask Data, Inc.",
+      new String[] {"source", "sink"}, directory.toString(), isPipeline,
+      new String[][] {{"config", "benchmark-plugins-1.0.0.json"}}
+    );
+    Mojos.configure(mojo, Collections.emptyMap()).execute();
+    return directory.resolve("spec.json").toFile();
+  }
+}
@@ -18,15 +18,24 @@ package io.cdap;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
-import org.apache.commons.io.FileUtils;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import org.apache.commons.codec.binary.Hex;
 import org.apache.maven.plugin.AbstractMojo;
 import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.plugin.MojoFailureException;
 import org.apache.maven.plugins.annotations.Mojo;
 import org.apache.maven.plugins.annotations.Parameter;
 
-@Mojo(name = "package-artifacts-for-hub")
+@Mojo(name = "package-artifacts-for-hub", threadSafe = true)
 public class ArtifactPackager extends AbstractMojo {
 
   @Parameter(defaultValue = "${project.build.directory}/packages/", required = true)
@@ -50,8 +59,90 @@ public class ArtifactPackager extends AbstractMojo {
   @Parameter(defaultValue = "icons")
   private String iconsDirectory;
 
+  /**
+   * How files are staged into the output directory: {@code copy}, {@code hardlink}, {@code reflink-or-copy}
+   * or {@code symlink}.
+   */
+  @Parameter(property = "stagingStrategy", defaultValue = "copy")
+  private String stagingStrategy;
+
+  /**
+   * Leaves files that are already staged untouched, based on their size and modification time.
+   */
+  @Parameter(property = "skipUnchanged", defaultValue = "false")
+  private boolean skipUnchanged;
+
+  /**
+   * With {@link #skipUnchanged}, compares the content of files that only differ by their modification time, so
+   * rebuilt but identical files are not staged again.
+   */
+  @Parameter(property = "compareContent", defaultValue = "false")
+  private boolean compareContent;
+
+  /**
+   * Number of files staged at the same time. A value lower than one uses one thread per available processor.
+   */
+  @Parameter(property = "stagingThreads", defaultValue = "1")
+  private int stagingThreads;
+
+  /**
+   * Writes the package as a single {@code zip} or {@code tar.gz} archive in {@link #relativeOutputDir} instead of
+   * a directory.
+   */
+  @Parameter(property = "archiveFormat")
+  private String archiveFormat;
+
+  /**
+   * Deflate level of the archive, from 0 for no compression to 9 for the best compression.
+   */
+  @Parameter(property = "compressionLevel", defaultValue = "6")
+  private int compressionLevel;
+
+  /**
+   * Writes the SHA-256 of each staged file to {@code SHA256SUMS} and {@code checksums.json}, next to spec.json.
+   */
+  @Parameter(property = "writeChecksums", defaultValue = "false")
+  private boolean writeChecksums;
+
+  /**
+   * Sets the time of every archive entry to the build timestamp, so that the archive only changes with its
+   * files. The timestamp is taken from {@link #outputTimestamp}, the {@code SOURCE_DATE_EPOCH} environment variable
+   * or the time of the last git commit.
+   */
+  @Parameter(property = "reproducible", defaultValue = "false")
+  private boolean reproducible;
+
+  @Parameter(defaultValue = "${project.build.outputTimestamp}")
+  private String outputTimestamp;
+
+  /**
+   * Writes the timings, sizes and file counts of the goal to {@code cdap-maven-plugin/metrics/} in the build
+   * directory.
+   */
+  @Parameter(property = "writeMetrics", defaultValue = "false")
+  private boolean writeMetrics;
+
+  private StagingStrategy strategy;
+  private GoalMetrics metrics;
+
+  /**
+   * Checksums of the files staged by a previous execution, keyed by file name.
+   */
+  private Map<String, String> previousChecksums = new HashMap<>();
+
   @Override
   public void execute() throws MojoExecutionException, MojoFailureException {
+    metrics = new GoalMetrics("package-artifacts-for-hub");
+    HubArchive.Format format = null;
+    try {
+      strategy = StagingStrategy.of(stagingStrategy);
+      if (archiveFormat != null) {
+        format = HubArchive.Format.of(archiveFormat);
+      }
+    } catch (IllegalArgumentException e) {
+      throw new MojoExecutionException(e.getMessage(), e);
+    }
+
     String currentPath = null;
     try {
       currentPath = new File(".").getCanonicalPath();
@@ -64,33 +155,171 @@ public class ArtifactPackager extends AbstractMojo {
     File outputDirectory = Paths.get(relativeOutputDir, artifactId, version).toFile();
     File iconDirectory = new File(baseDirectory, iconsDirectory);
 
-    getLog().info("Creating artifact output dir at: " + outputDirectory.getAbsolutePath());
-    outputDirectory.mkdirs();
+    long start = System.nanoTime();
+    Map<String, File> files = new TreeMap<>();
 
     //jar
-    moveFile(outputDirectory, artifactId + "-" + version + ".jar");
+    moveFile(files, artifactId + "-" + version + ".jar");
 
     //config json
-    moveFile(outputDirectory, artifactId + "-" + version + ".json");
+    moveFile(files, artifactId + "-" + version + ".json");
 
     //spec json
-    moveFile(outputDirectory, "spec.json");
+    moveFile(files, "spec.json");
 
     //icon file
     if (iconDirectory.exists()) {
       File[] iconFiles = iconDirectory.listFiles();
       if (iconFiles != null) {
         for (File icon : iconFiles) {
-          moveFile(outputDirectory, icon, icon.getName());
+          moveFile(files, icon, icon.getName());
         }
       }
     }
+
+    metrics.time(GoalMetrics.Phase.SCAN, start);
+
+    if (format != null) {
+      archive(format, files);
+      writeMetrics();
+      return;
+    }
+
+    getLog().info("Creating artifact output dir at: " + outputDirectory.getAbsolutePath());
+    outputDirectory.mkdirs();
+    if (writeChecksums && skipUnchanged) {
+      try {
+        previousChecksums = Checksums.read(new File(outputDirectory, Checksums.SUMS_FILE).toPath());
+      } catch (IOException e) {
+        getLog().warn("Unable to read previous checksums, unchanged files will be read again. " + e.getMessage());
+      }
+    } else if (!writeChecksums) {
+      // Checksums of a previous build would not describe the files staged now, nor could they be reused later.
+      try {
+        Files.deleteIfExists(new File(outputDirectory, Checksums.SUMS_FILE).toPath());
+        Files.deleteIfExists(new File(outputDirectory, Checksums.INDEX_FILE).toPath());
+      } catch (IOException e) {
+        throw new MojoExecutionException("Unable to delete previous checksums. " + e.getMessage(), e);
+      }
+    }
+
+    Map<String, Callable<StagedFile>> tasks = new TreeMap<>();
+    for (Map.Entry<String, File> file : files.entrySet()) {
+      File fileDestination = new File(outputDirectory, file.getKey());
+      tasks.put(file.getKey(), () -> stage(file.getValue(), fileDestination));
+    }
+
+    Map<String, StagedFile> results;
+    try {
+      results = TaskRunner.runAll(tasks, stagingThreads, "cdap-artifact-staging");
+    } catch (Exception e) {
+      throw new MojoExecutionException(e.getMessage(), e);
+    }
+    report(results);
+
+    if (writeChecksums) {
+      Checksums checksums = new Checksums();
+      for (Map.Entry<String, StagedFile> result : results.entrySet()) {
+        checksums.add(result.getKey(), result.getValue().sha256, result.getValue().size);
+      }
+      try {
+        start = System.nanoTime();
+        checksums.write(outputDirectory.toPath());
+        metrics.time(GoalMetrics.Phase.WRITE, start);
+      } catch (IOException e) {
+        throw new MojoExecutionException("Unable to write checksums. " + e.getMessage(), e);
+      }
+    }
+    writeMetrics();
+  }
+
+  private void writeMetrics() {
+    if (writeMetrics) {
+      try {
+        metrics.write(new File(buildDirectory), artifactId, version);
+      } catch (IOException e) {
+        getLog().warn("Unable to write the metrics of the goal. " + e.getMessage());
+      }
+    }
   }
 
-  private void moveFile(File outputDirectory, String fileName) {
+  /**
+   * Writes the files of the package into an archive, under the same {@code <artifactId>/<version>/} path they
+   * are staged in.
+   */
+  private void archive(HubArchive.Format format, Map<String, File> files) throws MojoExecutionException {
+    File archive = new File(relativeOutputDir, artifactId + "-" + version + "." + format.getExtension());
+    getLog().info("Creating artifact archive at: " + archive.getAbsolutePath());
+    try {
+      Long time = null;
+      if (reproducible) {
+        time = BuildTimestamp.resolve(outputTimestamp, baseDirectory == null ? new File(".") : new File(baseDirectory));
+        if (time == null) {
+          throw new MojoExecutionException(
+            "Reproducible archive requires project.build.outputTimestamp, SOURCE_DATE_EPOCH or a git repository"
+          );
+        }
+      }
+      archive.getParentFile().mkdirs();
+      long start = System.nanoTime();
+      long size = HubArchive.write(archive.toPath(), format, compressionLevel, artifactId + "/" + version + "/",
+                                   files, writeChecksums ? new Checksums() : null, time);
+      metrics.time(GoalMetrics.Phase.WRITE, start);
+      metrics.read(size);
+      metrics.written(archive.length());
+      metrics.processed(files.size());
+      getLog().info(String.format("Archived %d files (%d bytes) into %s (%d bytes)",
+                                  files.size(), size, archive.getName(), archive.length()));
+    } catch (IOException | IllegalArgumentException e) {
+      throw new MojoExecutionException(
+        String.format("Unable to create archive '%s'. %s", archive.getName(), e.getMessage()), e
+      );
+    }
+  }
+
+  /**
+   * Logs the outcome of each staged file and fails if any of them could not be staged.
+   */
+  private void report(Map<String, StagedFile> results) throws MojoExecutionException {
+    int stagedFiles = 0;
+    long stagedBytes = 0;
+    int skippedFiles = 0;
+    long skippedBytes = 0;
+    List<String> failures = new ArrayList<>();
+    for (Map.Entry<String, StagedFile> result : results.entrySet()) {
+      String fileName = result.getKey();
+      StagedFile stagedFile = result.getValue();
+      if (stagedFile.error != null) {
+        getLog().error("Unable to stage " + fileName + ". " + stagedFile.error.getMessage(), stagedFile.error);
+        failures.add(fileName);
+      } else if (stagedFile.used == null) {
+        getLog().debug(fileName + " is up to date");
+        skippedFiles++;
+        skippedBytes += stagedFile.size;
+      } else {
+        getLog().info("Staged " + fileName + " to " + stagedFile.destination + " (" + stagedFile.used + ")");
+        if (stagedFile.used != strategy) {
+          getLog().info("Unable to " + strategy + " " + fileName + ", staged with " + stagedFile.used + " instead");
+        }
+        stagedFiles++;
+        stagedBytes += stagedFile.size;
+      }
+    }
+
+    getLog().info(String.format("Staged %d files (%d bytes), skipped %d unchanged files (%d bytes)",
+                                stagedFiles, stagedBytes, skippedFiles, skippedBytes));
+    if (!failures.isEmpty()) {
+      throw new MojoExecutionException(
+        String.format("Unable to stage %d of %d files: %s", failures.size(), results.size(),
+                      String.join(", ", failures))
+      );
+    }
+  }
+
+  private void moveFile(Map<String, File> files, String fileName) {
     File artifactSource = new File(buildDirectory, fileName);
     if (artifactSource.exists()) {
-      moveFile(outputDirectory, artifactSource, fileName);
+      moveFile(files, artifactSource, fileName);
     } else {
       // Warning as jar may not exist for pipeline based artifacts
       getLog().warn(artifactSource.getName() + " does not exist!");
@@ -98,16 +327,73 @@ public class ArtifactPackager extends AbstractMojo {
 
   }
 
-  private void moveFile(File outputDirectory, File fileSource, String fileName) {
-    File fileDestination = new File(outputDirectory, fileName);
+  private void moveFile(Map<String, File> files, File fileSource, String fileName) {
+    // The pipeline only copy spec.json and pipeline.json to destination path
+    if (!isPipeline || !fileName.endsWith(".jar")) {
+      files.put(fileName, fileSource);
+    }
+  }
+
+  /**
+   * Stages one file, reporting failures in the returned result.
+   */
+  private StagedFile stage(File fileSource, File fileDestination) {
+    long size = fileSource.length();
+    MessageDigest digest = writeChecksums ? Checksums.newDigest() : null;
+    long start = System.nanoTime();
     try {
-      if (!isPipeline || !fileName.endsWith(".jar")) {
-        // The pipeline only copy spec.json and pipeline.json to destination path
-        getLog().info("Copying " + fileName + " to " + fileDestination.getCanonicalPath());
-        FileUtils.copyFile(fileSource, fileDestination);
+      if (skipUnchanged && strategy.isUpToDate(fileSource.toPath(), fileDestination.toPath(), compareContent)) {
+        // Links are up to date whatever the content of the source, only a separate copy that matched the source
+        // still has the content it was hashed with.
+        Path target = fileDestination.toPath();
+        boolean copy = !Files.isSymbolicLink(target) && !Files.isSameFile(fileSource.toPath(), target);
+        String sha256 = copy ? previousChecksums.get(fileDestination.getName()) : null;
+        if (digest != null && sha256 == null) {
+          Checksums.update(digest, fileSource.toPath());
+          sha256 = Hex.encodeHexString(digest.digest());
+          metrics.read(size);
+        }
+        metrics.skipped(1);
+        return new StagedFile(fileDestination, size, null, sha256, null);
+      }
+      StagingStrategy used = strategy.stage(fileSource.toPath(), fileDestination.toPath(), digest);
+      metrics.time(GoalMetrics.Phase.COPY, start);
+      metrics.processed(1);
+      // Links share the content of the source, only copies read and write it.
+      if (used == StagingStrategy.COPY) {
+        metrics.read(size);
+        metrics.written(size);
       }
+      return new StagedFile(fileDestination, size, used, digest == null ? null : Hex.encodeHexString(digest.digest()),
+                            null);
     } catch (IOException e) {
-      getLog().error(e);
+      return new StagedFile(fileDestination, size, null, null, e);
+    }
+  }
+
+  /**
+   * Outcome of staging one file.
+   */
+  private static final class StagedFile {
+
+    private final File destination;
+    private final long size;
+    /**
+     * Strategy the file was staged with, null if it was up to date or could not be staged.
+     */
+    private final StagingStrategy used;
+    /**
+     * Hex encoded SHA-256 of the file, null if checksums are not written.
+     */
+    private final String sha256;
+    private final IOException error;
+
+    StagedFile(File destination, long size, StagingStrategy used, String sha256, IOException error) {
+      this.destination = destination;
+      this.size = size;
+      this.used = used;
+      this.sha256 = sha256;
+      this.error = error;
     }
   }
 }
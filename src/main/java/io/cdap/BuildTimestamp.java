@@ -0,0 +1,111 @@
+/*
+ * Copyright © 2022 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.OffsetDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.apache.commons.io.IOUtils;
+
+/**
+ * Resolves the timestamp of reproducible builds, so that generated files do not depend on when they are built.
+ *
+ * The timestamp is taken, in order, from the {@code project.build.outputTimestamp} property used by the Maven
+ * plugins for reproducible builds, from the {@code SOURCE_DATE_EPOCH} environment variable, or from the time of the
+ * last git commit of the project.
+ */
+final class BuildTimestamp {
+
+  static final String SOURCE_DATE_EPOCH = "SOURCE_DATE_EPOCH";
+
+  private BuildTimestamp() {
+  }
+
+  /**
+   * Returns the build timestamp in milliseconds since the epoch.
+   *
+   * @param outputTimestamp value of {@code project.build.outputTimestamp}, null if not set
+   * @param baseDirectory directory of the project, used to find the last git commit
+   * @return the timestamp, or null if none of the sources is available
+   * @throws IllegalArgumentException if the output timestamp or {@code SOURCE_DATE_EPOCH} cannot be parsed
+   */
+  static Long resolve(String outputTimestamp, File baseDirectory) {
+    return resolve(outputTimestamp, System.getenv(), baseDirectory);
+  }
+
+  static Long resolve(String outputTimestamp, Map<String, String> environment, File baseDirectory) {
+    // As for the Maven plugins, a single character value disables the output timestamp.
+    if (outputTimestamp != null && outputTimestamp.trim().length() > 1) {
+      return parse(outputTimestamp.trim(), "project.build.outputTimestamp");
+    }
+    String sourceDateEpoch = environment.get(SOURCE_DATE_EPOCH);
+    if (sourceDateEpoch != null && !sourceDateEpoch.trim().isEmpty()) {
+      return parse(sourceDateEpoch.trim(), SOURCE_DATE_EPOCH);
+    }
+    return lastCommitTime(baseDirectory);
+  }
+
+  /**
+   * Parses a timestamp given as seconds since the epoch or as an ISO-8601 date and time with an offset.
+   */
+  private static long parse(String value, String source) {
+    if (value.chars().allMatch(Character::isDigit)) {
+      return Long.parseLong(value) * 1000;
+    }
+    try {
+      return OffsetDateTime.parse(value).toInstant().toEpochMilli();
+    } catch (DateTimeParseException e) {
+      throw new IllegalArgumentException(
+        String.format("Invalid %s '%s', expecting seconds since the epoch or an ISO-8601 date such as "
+                        + "2022-01-01T00:00:00Z", source, value), e
+      );
+    }
+  }
+
+  /**
+   * Returns the commit time of the last git commit of a directory, or null if it is not in a git repository or git
+   * is not available.
+   */
+  private static Long lastCommitTime(File baseDirectory) {
+    try {
+      Process process = new ProcessBuilder("git", "log", "-1", "--format=%ct")
+        .directory(baseDirectory)
+        .redirectErrorStream(true)
+        .start();
+      String output;
+      try (InputStream inStream = process.getInputStream()) {
+        output = IOUtils.toString(inStream, StandardCharsets.UTF_8).trim();
+      }
+      if (!process.waitFor(10, TimeUnit.SECONDS) || process.exitValue() != 0
+        || output.isEmpty() || !output.chars().allMatch(Character::isDigit)) {
+        process.destroy();
+        return null;
+      }
+      return Long.parseLong(output) * 1000;
+    } catch (IOException e) {
+      return null;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return null;
+    }
+  }
+}
@@ -0,0 +1,222 @@
+/*
+ * Copyright © 2022 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import org.apache.commons.io.IOUtils;
+
+/**
+ * Calls the artifact endpoints of the REST API of a CDAP instance.
+ *
+ * Responses are always read to the end and connections are not closed, so that the JVM keeps them alive and
+ * reuses them for the next requests to the instance, from any thread. Requests failing with an I/O error or a
+ * response that may succeed later, such as 503, are retried with an exponential backoff.
+ */
+final class CdapClient {
+
+  private static final int CONNECT_TIMEOUT_MILLIS = 10_000;
+  private static final int READ_TIMEOUT_MILLIS = 60_000;
+
+  private final String baseUrl;
+  private final String accessToken;
+  private int retries;
+  private long retryDelayMillis;
+  private GenerationLog log = GenerationLog.NONE;
+
+  /**
+   * @param baseUrl URL of the CDAP router, such as {@code http://localhost:11015}
+   * @param accessToken token sent as a bearer token, null if the instance does not require authentication
+   */
+  CdapClient(String baseUrl, String accessToken) {
+    this.baseUrl = baseUrl.endsWith("/") ? baseUrl.substring(0, baseUrl.length() - 1) : baseUrl;
+    this.accessToken = accessToken;
+  }
+
+  /**
+   * Retries failed requests, waiting {@code retryDelayMillis} before the first retry and twice as long before each
+   * of the next ones. Requests are not retried by default.
+   */
+  CdapClient setRetries(int retries, long retryDelayMillis) {
+    this.retries = retries;
+    this.retryDelayMillis = retryDelayMillis;
+    return this;
+  }
+
+  /**
+   * Sets the log retried failures are reported to.
+   */
+  CdapClient setLog(GenerationLog log) {
+    this.log = log;
+    return this;
+  }
+
+  /**
+   * Deploys an artifact, streaming the jar from disk. A conflict in response to a retry means an earlier attempt
+   * deployed the artifact even though its response was lost, and is reported as a success.
+   *
+   * @param parents artifacts the plugins of the jar extend, such as {@code system:cdap-data-pipeline[6.0.0,7.0.0)}
+   */
+  void deployArtifact(String namespace, String artifactId, String version, List<String> parents,
+                      Path jar) throws IOException {
+    long size = Files.size(jar);
+    call(String.format("deploy %s %s", artifactId, version), true, () -> {
+      HttpURLConnection connection = open("POST", artifactPath(namespace, artifactId));
+      connection.setRequestProperty("Content-Type", "application/octet-stream");
+      connection.setRequestProperty("Artifact-Version", version);
+      if (!parents.isEmpty()) {
+        connection.setRequestProperty("Artifact-Extends", String.join("/", parents));
+      }
+      connection.setDoOutput(true);
+      connection.setFixedLengthStreamingMode(size);
+      try (OutputStream outStream = connection.getOutputStream()) {
+        Files.copy(jar, outStream);
+      }
+      return connection;
+    });
+  }
+
+  /**
+   * Replaces the properties of an artifact, the content of the plugin JSON for a plugin artifact.
+   */
+  void putProperties(String namespace, String artifactId, String version,
+                     Map<String, String> properties) throws IOException {
+    call(String.format("update the properties of %s %s", artifactId, version), false, () -> {
+      HttpURLConnection connection = open("PUT", artifactPath(namespace, artifactId) + "/versions/" + version
+        + "/properties");
+      connection.setRequestProperty("Content-Type", "application/json");
+      connection.setDoOutput(true);
+      connection.setChunkedStreamingMode(0);
+      try (OutputStream outStream = connection.getOutputStream();
+           JsonGenerator generator = JsonSupport.newGenerator(outStream, true)) {
+        generator.writeStartObject();
+        for (Map.Entry<String, String> property : properties.entrySet()) {
+          generator.writeStringField(property.getKey(), property.getValue());
+        }
+        generator.writeEndObject();
+      }
+      return connection;
+    });
+  }
+
+  private static String artifactPath(String namespace, String artifactId) {
+    return "/v3/namespaces/" + namespace + "/artifacts/" + artifactId;
+  }
+
+  private HttpURLConnection open(String method, String path) throws IOException {
+    HttpURLConnection connection = (HttpURLConnection) new URL(baseUrl + path).openConnection();
+    connection.setRequestMethod(method);
+    connection.setConnectTimeout(CONNECT_TIMEOUT_MILLIS);
+    connection.setReadTimeout(READ_TIMEOUT_MILLIS);
+    if (accessToken != null && !accessToken.isEmpty()) {
+      connection.setRequestProperty("Authorization", "Bearer " + accessToken);
+    }
+    return connection;
+  }
+
+  /**
+   * Sends a request, retrying it if it fails with an I/O error or a response worth retrying.
+   *
+   * @param conflictOnRetryIsSuccess whether a 409 response to a retry means a previous attempt succeeded
+   * @throws IOException the failure of the last attempt
+   */
+  private void call(String action, boolean conflictOnRetryIsSuccess, Request request) throws IOException {
+    for (int attempt = 0; ; attempt++) {
+      IOException failure;
+      try {
+        checkResponse(request.send(), action);
+        return;
+      } catch (ResponseException e) {
+        if (e.code == 409 && attempt > 0 && conflictOnRetryIsSuccess) {
+          log.warn(String.format("%s, assuming a previous attempt succeeded", e.getMessage()));
+          return;
+        }
+        if (!isRetryable(e.code)) {
+          throw e;
+        }
+        failure = e;
+      } catch (IOException e) {
+        failure = new IOException(String.format("Unable to %s. %s", action, e.getMessage()), e);
+      }
+      if (attempt >= retries) {
+        throw failure;
+      }
+      long delay = retryDelayMillis << attempt;
+      log.warn(String.format("%s, retrying in %d ms", failure.getMessage(), delay));
+      try {
+        Thread.sleep(delay);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new InterruptedIOException("Interrupted while waiting to " + action);
+      }
+    }
+  }
+
+  private static boolean isRetryable(int code) {
+    return code == 408 || code == 429 || code >= 500;
+  }
+
+  /**
+   * Reads the response to the end and fails with its body if the request was not successful.
+   */
+  private static void checkResponse(HttpURLConnection connection, String action) throws IOException {
+    int code = connection.getResponseCode();
+    if (code / 100 == 2) {
+      try (InputStream inStream = connection.getInputStream()) {
+        IOUtils.skip(inStream, Long.MAX_VALUE);
+      }
+      return;
+    }
+    String body = "";
+    try (InputStream inStream = connection.getErrorStream()) {
+      if (inStream != null) {
+        body = IOUtils.toString(inStream, StandardCharsets.UTF_8).trim();
+      }
+    }
+    throw new ResponseException(code, String.format("Unable to %s, CDAP responded %d %s", action, code, body));
+  }
+
+  /**
+   * Sends a request and returns its connection, to read the response from.
+   */
+  private interface Request {
+    HttpURLConnection send() throws IOException;
+  }
+
+  /**
+   * An unsuccessful response.
+   */
+  private static final class ResponseException extends IOException {
+
+    private final int code;
+
+    ResponseException(int code, String message) {
+      super(message);
+      this.code = code;
+    }
+  }
+}
@@ -0,0 +1,226 @@
+/*
+ * Copyright © 2022 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import org.apache.maven.artifact.Artifact;
+import org.apache.maven.plugin.AbstractMojo;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+import org.apache.maven.project.MavenProject;
+
+/**
+ * Deploys the plugin artifacts of every module of the reactor to a CDAP instance, in one execution at the end of
+ * the build.
+ *
+ * Plugin modules are recognized by the plugin JSON in their build directory. The jar of each module is streamed to
+ * CDAP, extending the parents listed in the plugin JSON, then the properties of the plugin JSON are set on the
+ * artifact. Modules are deployed in parallel over kept-alive connections, and failed requests are retried.
+ */
+@Mojo(name = "deploy-to-cdap", aggregator = true, threadSafe = true)
+public class CdapDeployer extends AbstractMojo {
+
+  @Parameter(defaultValue = "${reactorProjects}", readonly = true, required = true)
+  private List<MavenProject> reactorProjects;
+
+  /**
+   * URL of the CDAP instance, such as {@code http://localhost:11015}.
+   */
+  @Parameter(property = "cdapUrl", required = true)
+  private String cdapUrl;
+
+  @Parameter(property = "cdapNamespace", defaultValue = "default")
+  private String cdapNamespace;
+
+  /**
+   * Access token of the CDAP instance, if it requires authentication.
+   */
+  @Parameter(property = "cdapAccessToken")
+  private String cdapAccessToken;
+
+  /**
+   * Number of modules deployed at the same time. A value lower than one uses one thread per available processor.
+   */
+  @Parameter(property = "deployThreads", defaultValue = "4")
+  private int deployThreads;
+
+  /**
+   * Number of times a request failing with an I/O error or a response such as 503 is retried.
+   */
+  @Parameter(property = "deployRetries", defaultValue = "3")
+  private int retries;
+
+  /**
+   * Time in milliseconds before the first retry of a request, doubled for each of the next ones.
+   */
+  @Parameter(defaultValue = "1000")
+  private long retryDelayMillis;
+
+  @Override
+  public void execute() throws MojoExecutionException {
+    CdapClient client = new CdapClient(cdapUrl, cdapAccessToken)
+      .setRetries(retries, retryDelayMillis)
+      .setLog(new MojoLog(getLog()));
+
+    Map<String, Callable<Deployment>> tasks = new TreeMap<>();
+    for (MavenProject project : reactorProjects) {
+      String key = project.getArtifactId() + "/" + project.getVersion();
+      tasks.put(key, () -> deploy(client, project));
+    }
+
+    getLog().info(repeat("-", 72));
+    getLog().info("CDAP Deployment");
+    getLog().info(repeat("-", 72));
+    getLog().info("Modules              : " + reactorProjects.size());
+    getLog().info("CDAP Instance        : " + cdapUrl);
+    getLog().info("Namespace            : " + cdapNamespace);
+    getLog().info(repeat("-", 72));
+
+    Map<String, Deployment> results;
+    try {
+      results = TaskRunner.runAll(tasks, deployThreads, "cdap-deploy");
+    } catch (Exception e) {
+      throw new MojoExecutionException(e.getMessage(), e);
+    }
+    report(results);
+    getLog().info(repeat("-", 72));
+  }
+
+  /**
+   * Deploys the jar and the properties of a module, reporting failures in the returned result.
+   *
+   * @return the deployment, or null if the module has no plugin JSON
+   */
+  private Deployment deploy(CdapClient client, MavenProject project) {
+    File buildDirectory = new File(project.getBuild().getDirectory());
+    String baseName = project.getArtifactId() + "-" + project.getVersion();
+    File pluginJsonFile = new File(buildDirectory, baseName + ".json");
+    File jar = getJar(project);
+    if (!pluginJsonFile.isFile()) {
+      getLog().debug("No " + pluginJsonFile.getName() + " in " + buildDirectory + ", skipping "
+                       + project.getArtifactId());
+      return null;
+    }
+
+    long start = System.nanoTime();
+    try {
+      JsonNode pluginJson = JsonSupport.read(pluginJsonFile);
+      // Pipeline modules have the configuration of the pipeline under the same name
+      if (!pluginJson.path("properties").isObject()) {
+        getLog().debug(pluginJsonFile + " is not a plugin JSON, skipping " + project.getArtifactId());
+        return null;
+      }
+      if (!jar.isFile()) {
+        throw new IOException(String.format("Jar '%s' does not exist", jar));
+      }
+      List<String> parents = new ArrayList<>();
+      for (JsonNode parent : pluginJson.path("parents")) {
+        parents.add(parent.asText());
+      }
+      Map<String, String> properties = new TreeMap<>();
+      pluginJson.get("properties").fields()
+        .forEachRemaining(property -> properties.put(property.getKey(), property.getValue().asText()));
+
+      client.deployArtifact(cdapNamespace, project.getArtifactId(), project.getVersion(), parents, jar.toPath());
+      client.putProperties(cdapNamespace, project.getArtifactId(), project.getVersion(), properties);
+      return new Deployment(jar.length(), System.nanoTime() - start, null);
+    } catch (IOException e) {
+      return new Deployment(0, System.nanoTime() - start, e);
+    }
+  }
+
+  /**
+   * Returns the jar packaged for a module, the file of its artifact if the reactor packaged it, else the jar named
+   * after the final name of its build.
+   */
+  private static File getJar(MavenProject project) {
+    Artifact artifact = project.getArtifact();
+    if (artifact != null && artifact.getFile() != null && artifact.getFile().isFile()) {
+      return artifact.getFile();
+    }
+    return new File(project.getBuild().getDirectory(), project.getBuild().getFinalName() + ".jar");
+  }
+
+  /**
+   * Logs the outcome of the deployment and fails if any module could not be deployed.
+   */
+  private void report(Map<String, Deployment> results) throws MojoExecutionException {
+    int deployed = 0;
+    long deployedBytes = 0;
+    List<String> failures = new ArrayList<>();
+    for (Map.Entry<String, Deployment> result : results.entrySet()) {
+      Deployment deployment = result.getValue();
+      if (deployment == null) {
+        continue;
+      }
+      if (deployment.error != null) {
+        getLog().error("Unable to deploy " + result.getKey() + ". " + deployment.error.getMessage());
+        failures.add(result.getKey());
+      } else {
+        getLog().info(String.format("Deployed %-30s : %d bytes in %.0f ms", result.getKey(), deployment.size,
+                                    GoalMetrics.millis(deployment.nanos)));
+        deployed++;
+        deployedBytes += deployment.size;
+      }
+    }
+
+    getLog().info(String.format("Artifacts            : %d deployed (%d bytes), %d failed", deployed, deployedBytes,
+                                failures.size()));
+    if (!failures.isEmpty()) {
+      throw new MojoExecutionException(
+        String.format("Unable to deploy %d of %d artifacts: %s", failures.size(), deployed + failures.size(),
+                      String.join(", ", failures))
+      );
+    }
+  }
+
+  /**
+   * Repeats text for specified number of times
+   */
+  private String repeat(String text, int numRepetitions) {
+    StringBuilder builder = new StringBuilder();
+    for (int i = 0; i < numRepetitions; i++) {
+      builder.append(text);
+    }
+
+    return builder.toString();
+  }
+
+  /**
+   * Outcome of deploying one module.
+   */
+  private static final class Deployment {
+
+    private final long size;
+    private final long nanos;
+    private final IOException error;
+
+    Deployment(long size, long nanos, IOException error) {
+      this.size = size;
+      this.nanos = nanos;
+      this.error = error;
+    }
+  }
+}
@@ -0,0 +1,162 @@
+/*
+ * Copyright © 2022 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap;
+
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import org.apache.commons.codec.binary.Hex;
+
+/**
+ * SHA-256 checksums of the files of a Hub package, written next to them as a {@code SHA256SUMS} file, in the
+ * format of {@code sha256sum}, and as a {@code checksums.json} index with the size of each file.
+ */
+final class Checksums {
+
+  static final String SUMS_FILE = "SHA256SUMS";
+  static final String INDEX_FILE = "checksums.json";
+
+  /**
+   * SHA-256 and size of each file, keyed by file name.
+   */
+  private final Map<String, String> sha256 = new TreeMap<>();
+  private final Map<String, Long> sizes = new HashMap<>();
+
+  /**
+   * Returns a new SHA-256 digest.
+   */
+  static MessageDigest newDigest() {
+    try {
+      return MessageDigest.getInstance("SHA-256");
+    } catch (NoSuchAlgorithmException e) {
+      // SHA-256 is required to be supported by every Java platform.
+      throw new IllegalStateException(e);
+    }
+  }
+
+  /**
+   * Reads a file into a digest.
+   */
+  static void update(MessageDigest digest, Path file) throws IOException {
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      ByteBuffer buffer = ByteBuffer.allocateDirect(64 * 1024);
+      while (channel.read(buffer) >= 0) {
+        buffer.flip();
+        digest.update(buffer);
+        buffer.clear();
+      }
+    }
+  }
+
+  /**
+   * Reads the checksums of a previously written {@code SHA256SUMS} file, keyed by file name. Returns an empty map
+   * if there is no such file.
+   */
+  static Map<String, String> read(Path sumsFile) throws IOException {
+    Map<String, String> checksums = new HashMap<>();
+    List<String> lines;
+    try {
+      lines = Files.readAllLines(sumsFile, StandardCharsets.UTF_8);
+    } catch (NoSuchFileException e) {
+      return checksums;
+    }
+    for (String line : lines) {
+      int separator = line.indexOf("  ");
+      if (separator > 0) {
+        checksums.put(line.substring(separator + 2), line.substring(0, separator));
+      }
+    }
+    return checksums;
+  }
+
+  /**
+   * Records the checksum of a file.
+   *
+   * @param name name of the file, relative to the checksum files
+   * @param sha256 hex encoded SHA-256 of the file
+   * @param size size of the file in bytes
+   */
+  synchronized void add(String name, String sha256, long size) {
+    this.sha256.put(name, sha256);
+    this.sizes.put(name, size);
+  }
+
+  /**
+   * Records the checksum of a file from the digest it was read into.
+   */
+  void add(String name, MessageDigest digest, long size) {
+    add(name, Hex.encodeHexString(digest.digest()), size);
+  }
+
+  /**
+   * Returns the content of the {@code SHA256SUMS} file.
+   */
+  synchronized byte[] toSums() {
+    StringBuilder sums = new StringBuilder();
+    for (Map.Entry<String, String> entry : sha256.entrySet()) {
+      sums.append(entry.getValue()).append("  ").append(entry.getKey()).append('\n');
+    }
+    return sums.toString().getBytes(StandardCharsets.UTF_8);
+  }
+
+  /**
+   * Returns the content of the {@code checksums.json} index.
+   */
+  synchronized byte[] toIndex() throws IOException {
+    ObjectNode index = JsonSupport.newObject();
+    index.put("algorithm", "SHA-256");
+    ArrayNode files = index.putArray("files");
+    for (Map.Entry<String, String> entry : sha256.entrySet()) {
+      ObjectNode file = files.addObject();
+      file.put("name", entry.getKey());
+      file.put("size", sizes.get(entry.getKey()));
+      file.put("sha256", entry.getValue());
+    }
+    return JsonSupport.toString(index, false).getBytes(StandardCharsets.UTF_8);
+  }
+
+  /**
+   * Writes the {@code SHA256SUMS} file and the {@code checksums.json} index to a directory.
+   */
+  void write(Path directory) throws IOException {
+    write(directory.resolve(SUMS_FILE), toSums());
+    write(directory.resolve(INDEX_FILE), toIndex());
+  }
+
+  private static void write(Path file, byte[] content) throws IOException {
+    Path tempFile = OutputFiles.tempFile(file);
+    try {
+      Files.write(tempFile, content);
+      OutputFiles.replace(tempFile, file);
+    } finally {
+      Files.deleteIfExists(tempFile);
+    }
+  }
+}
@@ -0,0 +1,429 @@
+/*
+ * Copyright © 2022 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Command line entry point of the generators, for builds that do not run Maven.
+ *
+ * <pre>
+ *   java -jar cdap-maven-plugin-&lt;version&gt;-cli.jar &lt;command&gt; [--option value] [--flag]
+ * </pre>
+ *
+ * The commands are {@code plugin-json}, {@code spec-json} and {@code pipeline-json}, with the options of the
+ * matching goals. The exit code is 0 on success, 1 if the generation failed and 2 if the command line is invalid.
+ */
+public final class Cli {
+
+  static final int OK = 0;
+  static final int FAILED = 1;
+  static final int USAGE = 2;
+
+  private static final String USAGE_TEXT = String.join(
+    System.lineSeparator(),
+    "Usage: java -jar cdap-maven-plugin-cli.jar <command> [options]",
+    "",
+    "Commands:",
+    "  plugin-json    Generates <artifact-id>-<version>.json from widgets, docs and icons",
+    "      --artifact-id ID           (required)",
+    "      --version VERSION          (required)",
+    "      --parents ARTIFACTS        comma separated parent artifacts with their version range (required)",
+    "      --base-dir DIR             project directory, defaults to the current directory",
+    "      --output-dir DIR           defaults to <base-dir>/target",
+    "      --widgets-dir DIR          relative to base-dir, defaults to widgets",
+    "      --docs-dir DIR             relative to base-dir, defaults to docs",
+    "      --icons-dir DIR            relative to base-dir, defaults to icons",
+    "      --parallelism N            defaults to 1",
+    "      --widget-validation MODE   none, warn or fail, defaults to warn",
+    "      --widget-schema FILE       defaults to the bundled schema",
+    "      --max-icon-size BYTES      defaults to 0, no limit",
+    "      --fail-on-large-icon",
+    "      --optimize-icons",
+    "      --incremental",
+    "      --compact",
+    "      --watch                    keeps the plugin JSON up to date until stopped",
+    "      --debounce-ms N            delay without changes before an update, defaults to 50",
+    "      --cdap-url URL             CDAP instance the artifact properties are pushed to on every update",
+    "      --cdap-namespace NS        defaults to default",
+    "      --cdap-access-token TOKEN",
+    "  spec-json      Generates spec.json",
+    "      --artifact-id ID           (required)",
+    "      --version VERSION          (required)",
+    "      --parents RANGES           comma separated parent artifacts",
+    "      --output-dir DIR           defaults to target",
+    "      --label TEXT, --description TEXT, --author TEXT, --org TEXT",
+    "      --categories A,B",
+    "      --action-type TYPE         defaults to " + SpecJsonGenerator.ONE_STEP_DEPLOY_PLUGIN,
+    "      --scope SCOPE              defaults to user",
+    "      --action-arguments N=V,... additional arguments of the action",
+    "      --pipeline                 the artifact is a pipeline",
+    "      --reproducible             uses SOURCE_DATE_EPOCH or the last git commit as creation time",
+    "      --output-timestamp TIME    creation time, in seconds since the epoch or ISO-8601",
+    "      --compact",
+    "  pipeline-json  Extracts the configuration of exported pipelines",
+    "      --input FILE --output FILE                    one pipeline, or",
+    "      --input-dir DIR --output-dir DIR --version V  every pipeline of a directory",
+    "      --includes GLOB            relative to input-dir, defaults to *.json",
+    "      --compact"
+  );
+
+  private static final Set<String> FLAGS = new HashSet<>(Arrays.asList(
+    "fail-on-large-icon", "optimize-icons", "incremental", "compact", "pipeline", "reproducible", "watch"
+  ));
+
+  private Cli() {
+  }
+
+  public static void main(String[] args) {
+    System.exit(run(args, System.out, System.err));
+  }
+
+  /**
+   * Runs a command.
+   *
+   * @return the exit code
+   */
+  static int run(String[] args, PrintStream out, PrintStream err) {
+    if (args.length == 0 || "--help".equals(args[0]) || "-h".equals(args[0])) {
+      (args.length == 0 ? err : out).println(USAGE_TEXT);
+      return args.length == 0 ? USAGE : OK;
+    }
+
+    Options options;
+    try {
+      options = Options.parse(Arrays.asList(args).subList(1, args.length));
+    } catch (IllegalArgumentException e) {
+      err.println(e.getMessage());
+      err.println(USAGE_TEXT);
+      return USAGE;
+    }
+
+    GenerationLog log = new ConsoleLog(out, err);
+    try {
+      switch (args[0]) {
+        case "plugin-json":
+          return pluginJson(options, log);
+        case "spec-json":
+          return specJson(options, log);
+        case "pipeline-json":
+          return pipelineJson(options, log);
+        default:
+          err.println("Unknown command '" + args[0] + "'");
+          err.println(USAGE_TEXT);
+          return USAGE;
+      }
+    } catch (IllegalArgumentException e) {
+      err.println(e.getMessage());
+      return USAGE;
+    } catch (GenerationException | IOException e) {
+      err.println("[ERROR] " + e.getMessage());
+      return FAILED;
+    }
+  }
+
+  private static int pluginJson(Options options, GenerationLog log) throws GenerationException, IOException {
+    File baseDirectory = new File(options.get("base-dir", "."));
+    File outputDirectory = options.has("output-dir")
+      ? new File(options.get("output-dir")) : new File(baseDirectory, "target");
+    PluginJsonGenerator generator = new PluginJsonGenerator(
+      options.require("artifact-id"), options.require("version"), baseDirectory, outputDirectory,
+      options.list("parents", true))
+      .setWidgetsDirectory(options.get("widgets-dir", "widgets"))
+      .setDocsDirectory(options.get("docs-dir", "docs"))
+      .setIconsDirectory(options.get("icons-dir", "icons"))
+      .setIncremental(options.flag("incremental"), Cli.class.getPackage().getImplementationVersion())
+      .setParallelism(options.integer("parallelism", 1))
+      .setOptimizeIcons(options.flag("optimize-icons"))
+      .setMaxIconSize(options.integer("max-icon-size", 0), options.flag("fail-on-large-icon"))
+      .setCompactOutput(options.flag("compact"))
+      .setWidgetValidation(options.get("widget-validation", "warn"),
+                           options.has("widget-schema") ? new File(options.get("widget-schema")) : null)
+      .setLog(log);
+    if (options.flag("watch")) {
+      return watch(generator, options, log);
+    }
+    options.checkUnused();
+
+    if (generator.isUpToDate()) {
+      log.info(generator.getOutputFile().getName() + " is up to date");
+      return OK;
+    }
+    generator.generate();
+    return OK;
+  }
+
+  /**
+   * Generates the plugin JSON, then updates it on every change until the process is stopped.
+   */
+  private static int watch(PluginJsonGenerator generator, Options options,
+                           GenerationLog log) throws GenerationException, IOException {
+    long debounceMillis = options.integer("debounce-ms", 50);
+    String cdapUrl = options.get("cdap-url");
+    String namespace = options.get("cdap-namespace", "default");
+    String accessToken = options.get("cdap-access-token");
+    String artifactId = options.require("artifact-id");
+    String version = options.require("version");
+    options.checkUnused();
+
+    try (PluginJsonWatcher watcher = new PluginJsonWatcher(generator, debounceMillis, log)) {
+      if (cdapUrl != null) {
+        CdapClient client = new CdapClient(cdapUrl, accessToken);
+        watcher.setListener(properties -> {
+          client.putProperties(namespace, artifactId, version, properties);
+          log.info("Updated properties   : " + cdapUrl);
+        });
+      }
+      watcher.start();
+      log.info("Watching for changes, press Ctrl+C to stop");
+      watcher.run();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    return OK;
+  }
+
+  private static int specJson(Options options, GenerationLog log) throws GenerationException {
+    Long created = null;
+    if (options.has("output-timestamp") || options.flag("reproducible")) {
+      created = BuildTimestamp.resolve(options.get("output-timestamp"), new File("."));
+      if (created == null) {
+        throw new GenerationException(
+          "Reproducible spec.json requires --output-timestamp, SOURCE_DATE_EPOCH or a git repository"
+        );
+      }
+    }
+    List<String[]> actionArguments = new ArrayList<>();
+    for (String argument : options.list("action-arguments", false)) {
+      int separator = argument.indexOf('=');
+      if (separator < 1) {
+        throw new IllegalArgumentException("Action argument '" + argument + "' is not of the form name=value");
+      }
+      actionArguments.add(new String[] {argument.substring(0, separator), argument.substring(separator + 1)});
+    }
+    SpecJsonGenerator generator = new SpecJsonGenerator(
+      options.require("artifact-id"), options.require("version"), new File(options.get("output-dir", "target")),
+      options.list("parents", false))
+      .setLabel(options.get("label"))
+      .setDescription(options.get("description"))
+      .setAuthor(options.get("author"))
+      .setOrg(options.get("org"))
+      .setCategories(options.has("categories") ? options.list("categories", false) : null)
+      .setAdditionalActionArguments(actionArguments.isEmpty() ? null : actionArguments)
+      .setActionType(options.get("action-type", SpecJsonGenerator.ONE_STEP_DEPLOY_PLUGIN))
+      .setScope(options.get("scope", "user"))
+      .setPipeline(options.flag("pipeline"))
+      .setCompactOutput(options.flag("compact"))
+      .setCreated(created)
+      .setLog(log);
+    options.checkUnused();
+
+    generator.generate();
+    return OK;
+  }
+
+  private static int pipelineJson(Options options, GenerationLog log) throws GenerationException, IOException {
+    boolean compact = options.flag("compact");
+    Map<Path, Path> outputs = new HashMap<>();
+    List<Path> inputs;
+    if (options.has("input")) {
+      Path input = Paths.get(options.get("input"));
+      inputs = Collections.singletonList(input);
+      outputs.put(input, Paths.get(options.require("output")));
+    } else {
+      Path directory = Paths.get(options.require("input-dir"));
+      Path outputDirectory = Paths.get(options.require("output-dir"));
+      String version = options.require("version");
+      inputs = PipelineConfigExtractor.list(directory, options.get("includes", "*.json"));
+      Map<String, Path> inputsByName = new HashMap<>();
+      for (Path input : inputs) {
+        String outputName = PipelineConfigExtractor.outputName(input, version);
+        Path previous = inputsByName.put(outputName, input);
+        if (previous != null) {
+          throw new GenerationException(
+            String.format("Pipelines '%s' and '%s' would both be written to '%s'", previous, input, outputName)
+          );
+        }
+        outputs.put(input, outputDirectory.resolve(outputName));
+      }
+    }
+    options.checkUnused();
+
+    int failures = 0;
+    for (Path input : inputs) {
+      Path output = outputs.get(input);
+      Files.createDirectories(output.toAbsolutePath().getParent());
+      if (PipelineConfigExtractor.extractConfig(input, output, compact)) {
+        log.info("Successfully created : " + output);
+      } else {
+        log.error("No config object in exported pipeline " + input);
+        failures++;
+      }
+    }
+    return failures == 0 ? OK : FAILED;
+  }
+
+  /**
+   * Options of a command, given as {@code --name value} or, for flags, {@code --name}.
+   */
+  private static final class Options {
+
+    private final Map<String, String> values = new HashMap<>();
+    private final Set<String> used = new HashSet<>();
+
+    static Options parse(List<String> args) {
+      Options options = new Options();
+      for (int i = 0; i < args.size(); i++) {
+        String arg = args.get(i);
+        if (!arg.startsWith("--") || arg.length() == 2) {
+          throw new IllegalArgumentException("Unexpected argument '" + arg + "'");
+        }
+        String name = arg.substring(2);
+        String value;
+        if (FLAGS.contains(name)) {
+          value = "true";
+        } else if (i + 1 < args.size()) {
+          value = args.get(++i);
+        } else {
+          throw new IllegalArgumentException("Missing value of option '" + arg + "'");
+        }
+        if (options.values.put(name, value) != null) {
+          throw new IllegalArgumentException("Option '" + arg + "' is given more than once");
+        }
+      }
+      return options;
+    }
+
+    boolean has(String name) {
+      used.add(name);
+      return values.containsKey(name);
+    }
+
+    String get(String name) {
+      used.add(name);
+      return values.get(name);
+    }
+
+    String get(String name, String defaultValue) {
+      String value = get(name);
+      return value == null ? defaultValue : value;
+    }
+
+    String require(String name) {
+      String value = get(name);
+      if (value == null) {
+        throw new IllegalArgumentException("Missing required option '--" + name + "'");
+      }
+      return value;
+    }
+
+    boolean flag(String name) {
+      return has(name);
+    }
+
+    int integer(String name, int defaultValue) {
+      String value = get(name);
+      if (value == null) {
+        return defaultValue;
+      }
+      try {
+        return Integer.parseInt(value);
+      } catch (NumberFormatException e) {
+        throw new IllegalArgumentException("Option '--" + name + "' expects a number, got '" + value + "'");
+      }
+    }
+
+    List<String> list(String name, boolean required) {
+      String value = required ? require(name) : get(name);
+      List<String> items = new ArrayList<>();
+      if (value == null) {
+        return items;
+      }
+      // Commas inside a version range such as [6.0.0,7.0.0) do not separate items
+      int depth = 0;
+      int start = 0;
+      for (int i = 0; i <= value.length(); i++) {
+        char c = i < value.length() ? value.charAt(i) : ',';
+        if (c == '[' || c == '(') {
+          depth++;
+        } else if (c == ']' || c == ')') {
+          depth--;
+        } else if (c == ',' && depth <= 0) {
+          String item = value.substring(start, i).trim();
+          if (!item.isEmpty()) {
+            items.add(item);
+          }
+          start = i + 1;
+        }
+      }
+      return items;
+    }
+
+    /**
+     * Fails on options the command does not know, which are most likely typos.
+     */
+    void checkUnused() {
+      for (String name : values.keySet()) {
+        if (!used.contains(name)) {
+          throw new IllegalArgumentException("Unknown option '--" + name + "'");
+        }
+      }
+    }
+  }
+
+  /**
+   * Prints messages to the console, warnings and errors to the error stream.
+   */
+  private static final class ConsoleLog implements GenerationLog {
+
+    private final PrintStream out;
+    private final PrintStream err;
+
+    ConsoleLog(PrintStream out, PrintStream err) {
+      this.out = out;
+      this.err = err;
+    }
+
+    @Override
+    public void info(String message) {
+      out.println("[INFO] " + message);
+    }
+
+    @Override
+    public void warn(String message) {
+      err.println("[WARNING] " + message);
+    }
+
+    @Override
+    public void error(String message) {
+      err.println("[ERROR] " + message);
+    }
+  }
+}
@@ -0,0 +1,147 @@
+/*
+ * Copyright © 2022 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap;
+
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import java.io.File;
+import java.io.IOException;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Performance metrics of one execution of a goal: the time spent in each phase, the bytes read and written, the
+ * files processed and skipped, and the size of the largest output held in memory before being written.
+ *
+ * Recording is thread safe, so the tasks a goal runs in parallel record into the same metrics. The time of a phase
+ * is summed over the threads that ran it, so phases run in parallel can add up to more than the wall time.
+ */
+final class GoalMetrics {
+
+  /**
+   * Directory of the metrics of every goal, relative to the build directory.
+   */
+  static final String DIRECTORY = "cdap-maven-plugin/metrics";
+
+  /**
+   * Phases of a goal.
+   */
+  enum Phase {
+    SCAN,
+    READ,
+    PARSE,
+    VALIDATE,
+    ENCODE,
+    SERIALIZE,
+    WRITE,
+    COPY;
+
+    String key() {
+      return name().toLowerCase(Locale.ROOT);
+    }
+  }
+
+  private final String goal;
+  private final long startNanos = System.nanoTime();
+  private final Map<Phase, LongAdder> phaseNanos = new EnumMap<>(Phase.class);
+  private final LongAdder bytesRead = new LongAdder();
+  private final LongAdder bytesWritten = new LongAdder();
+  private final LongAdder filesProcessed = new LongAdder();
+  private final LongAdder filesSkipped = new LongAdder();
+  private final AtomicLong peakRetainedBytes = new AtomicLong();
+
+  GoalMetrics(String goal) {
+    this.goal = goal;
+    // Filled once, so that the map is only read afterwards and can be shared by threads.
+    for (Phase phase : Phase.values()) {
+      phaseNanos.put(phase, new LongAdder());
+    }
+  }
+
+  /**
+   * Adds the time elapsed since the given {@link System#nanoTime()} to a phase.
+   */
+  void time(Phase phase, long startNanos) {
+    phaseNanos.get(phase).add(System.nanoTime() - startNanos);
+  }
+
+  void read(long bytes) {
+    bytesRead.add(bytes);
+  }
+
+  void written(long bytes) {
+    bytesWritten.add(bytes);
+  }
+
+  void processed(int files) {
+    filesProcessed.add(files);
+  }
+
+  void skipped(int files) {
+    filesSkipped.add(files);
+  }
+
+  /**
+   * Records an output held in memory before being written, keeping the largest one.
+   */
+  void retained(long bytes) {
+    peakRetainedBytes.accumulateAndGet(bytes, Math::max);
+  }
+
+  /**
+   * Returns the metrics of the execution so far.
+   */
+  ObjectNode toJson(String artifactId, String version) {
+    ObjectNode json = JsonSupport.newObject();
+    json.put("goal", goal);
+    json.put("artifactId", artifactId);
+    json.put("version", version);
+    json.put("wallTimeMs", millis(System.nanoTime() - startNanos));
+    ObjectNode phases = json.putObject("phasesMs");
+    for (Map.Entry<Phase, LongAdder> phase : phaseNanos.entrySet()) {
+      phases.put(phase.getKey().key(), millis(phase.getValue().sum()));
+    }
+    json.put("bytesRead", bytesRead.sum());
+    json.put("bytesWritten", bytesWritten.sum());
+    json.put("filesProcessed", filesProcessed.sum());
+    json.put("filesSkipped", filesSkipped.sum());
+    json.put("peakRetainedBytes", peakRetainedBytes.get());
+    return json;
+  }
+
+  /**
+   * Writes the metrics to {@code <goal>.json} in the {@link #DIRECTORY} of a build directory, replacing the ones
+   * of a previous execution of the goal.
+   *
+   * @return the metrics file
+   */
+  File write(File buildDirectory, String artifactId, String version) throws IOException {
+    File file = new File(new File(buildDirectory, DIRECTORY), goal + ".json");
+    file.getParentFile().mkdirs();
+    JsonSupport.write(toJson(artifactId, version), file, false);
+    return file;
+  }
+
+  /**
+   * Converts nanoseconds to milliseconds, to the microsecond.
+   */
+  static double millis(long nanos) {
+    return Math.round(nanos / 1000.0) / 1000.0;
+  }
+}
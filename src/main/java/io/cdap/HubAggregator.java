@@ -0,0 +1,343 @@
+/*
+ * Copyright © 2022 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import java.io.File;
+import java.io.IOException;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import org.apache.commons.codec.binary.Hex;
+import org.apache.maven.plugin.AbstractMojo;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+import org.apache.maven.project.MavenProject;
+
+/**
+ * Assembles the Hub packages of every module of the reactor into a single Hub tree, in one execution at the end
+ * of the build.
+ *
+ * Modules are recognized by the spec.json in their build directory. The files of all modules are staged in
+ * parallel. Icons with the same content are staged once and hard linked by the other packages. A
+ * {@code packages.json} index of all packages is written at the top of the tree.
+ */
+@Mojo(name = "aggregate-artifacts-for-hub", aggregator = true, threadSafe = true)
+public class HubAggregator extends AbstractMojo {
+
+  private static final String SPEC_JSON = "spec.json";
+
+  @Parameter(defaultValue = "${reactorProjects}", readonly = true, required = true)
+  private List<MavenProject> reactorProjects;
+
+  /**
+   * Root of the Hub tree, which receives a {@code <artifactId>/<version>/} directory per package.
+   */
+  @Parameter(property = "hubOutputDirectory", defaultValue = "${project.build.directory}/packages")
+  private File outputDirectory;
+
+  /**
+   * Icons directory of each module, relative to its base directory.
+   */
+  @Parameter(defaultValue = "icons")
+  private String iconsDirectory;
+
+  /**
+   * How files are staged into the Hub tree: {@code copy}, {@code hardlink}, {@code reflink-or-copy} or
+   * {@code symlink}.
+   */
+  @Parameter(property = "stagingStrategy", defaultValue = "copy")
+  private String stagingStrategy;
+
+  /**
+   * Leaves files that are already staged untouched, based on their size and modification time.
+   */
+  @Parameter(property = "skipUnchanged", defaultValue = "false")
+  private boolean skipUnchanged;
+
+  /**
+   * Number of modules read and files staged at the same time, one by default like the single package goal. A
+   * value lower than one uses one thread per available processor.
+   */
+  @Parameter(property = "stagingThreads", defaultValue = "1")
+  private int stagingThreads;
+
+  /**
+   * Writes packages.json without any indentation.
+   */
+  @Parameter(property = "compactOutput", defaultValue = "false")
+  private boolean compactOutput;
+
+  private StagingStrategy strategy;
+
+  @Override
+  public void execute() throws MojoExecutionException {
+    try {
+      strategy = StagingStrategy.of(stagingStrategy);
+    } catch (IllegalArgumentException e) {
+      throw new MojoExecutionException(e.getMessage(), e);
+    }
+
+    Map<String, MavenProject> modules = new HashMap<>();
+    Map<String, Callable<HubPackage>> readTasks = new TreeMap<>();
+    for (MavenProject project : reactorProjects) {
+      String key = project.getArtifactId() + "/" + project.getVersion();
+      MavenProject previous = modules.put(key, project);
+      if (previous != null) {
+        throw new MojoExecutionException(
+          String.format("Modules '%s' and '%s' would both be packaged to '%s'", previous.getBasedir(),
+                        project.getBasedir(), key)
+        );
+      }
+      readTasks.put(key, () -> read(project));
+    }
+
+    getLog().info(repeat("-", 72));
+    getLog().info("CDAP Hub Packages");
+    getLog().info(repeat("-", 72));
+    getLog().info("Modules              : " + reactorProjects.size());
+    getLog().info("Output Directory     : " + outputDirectory);
+    getLog().info("Staging Strategy     : " + strategy);
+    getLog().info(repeat("-", 72));
+
+    List<HubPackage> packages = new ArrayList<>();
+    try {
+      for (HubPackage hubPackage : TaskRunner.runAll(readTasks, stagingThreads, "cdap-hub-read").values()) {
+        if (hubPackage != null) {
+          packages.add(hubPackage);
+        }
+      }
+    } catch (Exception e) {
+      throw new MojoExecutionException(e.getMessage(), e);
+    }
+
+    // The first icon with a given content, in package order, is staged; the others link to its staged copy.
+    Map<String, File> iconsByHash = new HashMap<>();
+    Map<String, Callable<StagedFile>> stageTasks = new TreeMap<>();
+    Map<String, Callable<StagedFile>> linkTasks = new TreeMap<>();
+    for (HubPackage hubPackage : packages) {
+      File packageDirectory = new File(outputDirectory, hubPackage.key);
+      packageDirectory.mkdirs();
+      for (Map.Entry<String, File> file : hubPackage.files.entrySet()) {
+        File destination = new File(packageDirectory, file.getKey());
+        String name = hubPackage.key + "/" + file.getKey();
+        String iconHash = hubPackage.iconHashes.get(file.getKey());
+        File canonical = iconHash == null ? null : iconsByHash.putIfAbsent(iconHash, destination);
+        if (canonical == null) {
+          stageTasks.put(name, () -> stage(strategy, file.getValue(), destination));
+        } else {
+          linkTasks.put(name, () -> stage(StagingStrategy.HARDLINK, canonical, destination));
+        }
+      }
+    }
+
+    Map<String, StagedFile> results = new TreeMap<>();
+    try {
+      results.putAll(TaskRunner.runAll(stageTasks, stagingThreads, "cdap-hub-staging"));
+      results.putAll(TaskRunner.runAll(linkTasks, stagingThreads, "cdap-hub-staging"));
+    } catch (Exception e) {
+      throw new MojoExecutionException(e.getMessage(), e);
+    }
+    report(packages.size(), results, linkTasks.size());
+
+    File index = new File(outputDirectory, PackagesIndex.PACKAGES_JSON);
+    try {
+      JsonSupport.write(toIndex(packages), index, compactOutput);
+    } catch (IOException e) {
+      throw new MojoExecutionException(String.format("Unable to write '%s'. %s", index, e.getMessage()), e);
+    }
+    getLog().info("Successfully created : " + index);
+    getLog().info(repeat("-", 72));
+  }
+
+  /**
+   * Reads the spec.json of a module and lists the files of its package.
+   *
+   * @return the package, or null if the module has no spec.json
+   */
+  private HubPackage read(MavenProject project) throws IOException {
+    File buildDirectory = new File(project.getBuild().getDirectory());
+    File specFile = new File(buildDirectory, SPEC_JSON);
+    if (!specFile.isFile()) {
+      getLog().debug("No " + SPEC_JSON + " in " + buildDirectory + ", skipping " + project.getArtifactId());
+      return null;
+    }
+    JsonNode spec;
+    try {
+      spec = JsonSupport.read(specFile);
+    } catch (IOException e) {
+      throw new IOException(String.format("Unable to read '%s'. %s", specFile, e.getMessage()), e);
+    }
+
+    HubPackage hubPackage = new HubPackage(project.getArtifactId(), project.getVersion(), spec);
+    String baseName = project.getArtifactId() + "-" + project.getVersion();
+    hubPackage.files.put(SPEC_JSON, specFile);
+    addIfExists(hubPackage, new File(buildDirectory, baseName + ".json"));
+    // Pipelines are deployed from their configuration only
+    if (!isPipeline(spec)) {
+      addIfExists(hubPackage, new File(buildDirectory, baseName + ".jar"));
+    }
+
+    File[] icons = new File(project.getBasedir(), iconsDirectory).listFiles(File::isFile);
+    if (icons != null) {
+      for (File icon : icons) {
+        MessageDigest digest = Checksums.newDigest();
+        Checksums.update(digest, icon.toPath());
+        hubPackage.files.put(icon.getName(), icon);
+        hubPackage.iconHashes.put(icon.getName(), Hex.encodeHexString(digest.digest()));
+      }
+    }
+    return hubPackage;
+  }
+
+  private static void addIfExists(HubPackage hubPackage, File file) {
+    if (file.isFile()) {
+      hubPackage.files.put(file.getName(), file);
+    }
+  }
+
+  private static boolean isPipeline(JsonNode spec) {
+    for (JsonNode action : spec.path("actions")) {
+      if (SpecJsonCreator.CREATE_PIPELINE_DRAFT.equals(action.path("type").asText())) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Stages one file, reporting failures in the returned result.
+   */
+  private StagedFile stage(StagingStrategy strategy, File fileSource, File fileDestination) {
+    long size = fileSource.length();
+    try {
+      if (skipUnchanged && strategy.isUpToDate(fileSource.toPath(), fileDestination.toPath(), false)) {
+        return new StagedFile(size, null, null);
+      }
+      return new StagedFile(size, strategy.stage(fileSource.toPath(), fileDestination.toPath()), null);
+    } catch (IOException e) {
+      return new StagedFile(size, null, e);
+    }
+  }
+
+  /**
+   * Logs the outcome of the staging and fails if any file could not be staged.
+   */
+  private void report(int packages, Map<String, StagedFile> results, int sharedIcons) throws MojoExecutionException {
+    int stagedFiles = 0;
+    long stagedBytes = 0;
+    int skippedFiles = 0;
+    List<String> failures = new ArrayList<>();
+    for (Map.Entry<String, StagedFile> result : results.entrySet()) {
+      StagedFile stagedFile = result.getValue();
+      if (stagedFile.error != null) {
+        getLog().error("Unable to stage " + result.getKey() + ". " + stagedFile.error.getMessage(), stagedFile.error);
+        failures.add(result.getKey());
+      } else if (stagedFile.used == null) {
+        skippedFiles++;
+      } else {
+        getLog().debug("Staged " + result.getKey() + " (" + stagedFile.used + ")");
+        stagedFiles++;
+        stagedBytes += stagedFile.size;
+      }
+    }
+
+    getLog().info(String.format("Packages             : %d", packages));
+    getLog().info(String.format("Files                : %d staged (%d bytes), %d unchanged, %d shared icons",
+                                stagedFiles, stagedBytes, skippedFiles, sharedIcons));
+    if (!failures.isEmpty()) {
+      throw new MojoExecutionException(
+        String.format("Unable to stage %d of %d files: %s", failures.size(), results.size(),
+                      String.join(", ", failures))
+      );
+    }
+  }
+
+  /**
+   * Returns the packages.json index, with the entry of every package.
+   */
+  private static ArrayNode toIndex(List<HubPackage> packages) {
+    ArrayNode index = JsonSupport.newArray();
+    for (HubPackage hubPackage : packages) {
+      index.add(PackagesIndex.toEntry(hubPackage.artifactId, hubPackage.version, hubPackage.spec));
+    }
+    return index;
+  }
+
+  /**
+   * Repeats text for specified number of times
+   */
+  private String repeat(String text, int numRepetitions) {
+    StringBuilder builder = new StringBuilder();
+    for (int i = 0; i < numRepetitions; i++) {
+      builder.append(text);
+    }
+
+    return builder.toString();
+  }
+
+  /**
+   * The Hub package of one module.
+   */
+  private static final class HubPackage {
+
+    private final String artifactId;
+    private final String version;
+    private final String key;
+    private final JsonNode spec;
+    /**
+     * Files of the package, keyed by their name in the package directory.
+     */
+    private final Map<String, File> files = new TreeMap<>();
+    /**
+     * Hex encoded SHA-256 of each icon, keyed by file name.
+     */
+    private final Map<String, String> iconHashes = new HashMap<>();
+
+    HubPackage(String artifactId, String version, JsonNode spec) {
+      this.artifactId = artifactId;
+      this.version = version;
+      this.key = artifactId + "/" + version;
+      this.spec = spec;
+    }
+  }
+
+  /**
+   * Outcome of staging one file.
+   */
+  private static final class StagedFile {
+
+    private final long size;
+    /**
+     * Strategy the file was staged with, null if it was up to date or could not be staged.
+     */
+    private final StagingStrategy used;
+    private final IOException error;
+
+    StagedFile(long size, StagingStrategy used, IOException error) {
+      this.size = size;
+      this.used = used;
+      this.error = error;
+    }
+  }
+}
@@ -0,0 +1,208 @@
+/*
+ * Copyright © 2022 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TimeZone;
+import java.util.zip.ZipEntry;
+import org.apache.commons.compress.archivers.ArchiveEntry;
+import org.apache.commons.compress.archivers.ArchiveOutputStream;
+import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
+import org.apache.commons.compress.archivers.tar.TarArchiveOutputStream;
+import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
+import org.apache.commons.compress.archivers.zip.ZipArchiveOutputStream;
+import org.apache.commons.compress.compressors.gzip.GzipCompressorOutputStream;
+import org.apache.commons.compress.compressors.gzip.GzipParameters;
+import org.apache.commons.io.FilenameUtils;
+import org.apache.commons.io.IOUtils;
+
+/**
+ * Writes the files of a Hub package straight into a zip or tar.gz archive.
+ *
+ * Each file is read once, while it is written to the archive. Zip entries of files that are already compressed,
+ * such as jars and images, are stored rather than deflated again; their checksum and size are filled in once the
+ * entry is written, as the archive is written to a file. The archive is written under a temporary name and moved
+ * in place once complete.
+ *
+ * Entries do not record the user building the archive, so that, given a fixed entry time, the same files always
+ * produce the same archive.
+ */
+final class HubArchive {
+
+  /**
+   * Extensions of the files stored without compression in zip archives.
+   */
+  private static final Set<String> COMPRESSED_EXTENSIONS =
+    new HashSet<>(Arrays.asList("jar", "zip", "gz", "png", "gif", "jpg", "jpeg"));
+
+  /**
+   * Supported archive formats.
+   */
+  enum Format {
+    ZIP("zip"),
+    TAR_GZ("tar.gz");
+
+    private final String extension;
+
+    Format(String extension) {
+      this.extension = extension;
+    }
+
+    /**
+     * Returns the format with the given extension.
+     *
+     * @throws IllegalArgumentException if no format has this extension
+     */
+    static Format of(String extension) {
+      for (Format format : values()) {
+        if (format.extension.equals(extension.toLowerCase(Locale.ROOT))) {
+          return format;
+        }
+      }
+      throw new IllegalArgumentException(
+        String.format("Unknown archive format '%s', expecting zip or tar.gz", extension)
+      );
+    }
+
+    String getExtension() {
+      return extension;
+    }
+  }
+
+  private HubArchive() {
+  }
+
+  /**
+   * Writes an archive.
+   *
+   * @param archive the archive file, replaced if it exists
+   * @param format format of the archive
+   * @param compressionLevel deflate level, from 0 for no compression to 9 for the best compression
+   * @param directory directory of the files in the archive, ending with a slash
+   * @param files files to archive, keyed by their name in the archive directory, in the order they are archived
+   * @param checksums receives the checksum of each file, read while it is archived, and is added to the archive
+   *                  directory after the files; null to archive the files only
+   * @param time modification time of every entry, in milliseconds since the epoch; null to use the modification
+   *             time of each file and the current time for the checksums
+   * @return the number of bytes archived, before compression
+   */
+  static long write(Path archive, Format format, int compressionLevel, String directory, Map<String, File> files,
+                    Checksums checksums, Long time) throws IOException {
+    if (compressionLevel < 0 || compressionLevel > 9) {
+      throw new IllegalArgumentException(
+        String.format("Compression level must be between 0 and 9, was %d", compressionLevel)
+      );
+    }
+    Path tempFile = OutputFiles.tempFile(archive);
+    try {
+      Files.deleteIfExists(tempFile);
+      long size = 0;
+      try (ArchiveOutputStream outStream = format == Format.ZIP
+        ? newZip(tempFile, compressionLevel)
+        : newTarGz(tempFile, compressionLevel)) {
+        for (Map.Entry<String, File> file : files.entrySet()) {
+          File source = file.getValue();
+          outStream.putArchiveEntry(newEntry(outStream, compressionLevel, directory + file.getKey(), source.length(),
+                                             time == null ? source.lastModified() : time, time != null));
+          if (checksums == null) {
+            size += Files.copy(source.toPath(), outStream);
+          } else {
+            MessageDigest digest = Checksums.newDigest();
+            try (InputStream inStream = new DigestInputStream(Files.newInputStream(source.toPath()), digest)) {
+              long length = IOUtils.copy(inStream, outStream);
+              checksums.add(file.getKey(), digest, length);
+              size += length;
+            }
+          }
+          outStream.closeArchiveEntry();
+        }
+        if (checksums != null) {
+          long checksumsTime = time == null ? System.currentTimeMillis() : time;
+          write(outStream, compressionLevel, directory + Checksums.SUMS_FILE, checksumsTime, time != null,
+                checksums.toSums());
+          write(outStream, compressionLevel, directory + Checksums.INDEX_FILE, checksumsTime, time != null,
+                checksums.toIndex());
+        }
+      }
+      OutputFiles.replace(tempFile, archive);
+      return size;
+    } finally {
+      Files.deleteIfExists(tempFile);
+    }
+  }
+
+  private static ArchiveOutputStream newZip(Path archive, int compressionLevel) throws IOException {
+    ZipArchiveOutputStream zip = new ZipArchiveOutputStream(archive.toFile());
+    zip.setLevel(compressionLevel);
+    return zip;
+  }
+
+  private static ArchiveOutputStream newTarGz(Path archive, int compressionLevel) throws IOException {
+    GzipParameters parameters = new GzipParameters();
+    parameters.setCompressionLevel(compressionLevel);
+    TarArchiveOutputStream tar = new TarArchiveOutputStream(
+      new GzipCompressorOutputStream(new BufferedOutputStream(Files.newOutputStream(archive)), parameters));
+    tar.setLongFileMode(TarArchiveOutputStream.LONGFILE_POSIX);
+    tar.setBigNumberMode(TarArchiveOutputStream.BIGNUMBER_POSIX);
+    return tar;
+  }
+
+  /**
+   * Creates the entry of a regular file. Zip entries of files that are already compressed, or of archives that are
+   * not compressed, are stored.
+   */
+  private static ArchiveEntry newEntry(ArchiveOutputStream outStream, int compressionLevel, String name, long size,
+                                       long time, boolean fixedTime) {
+    if (outStream instanceof ZipArchiveOutputStream) {
+      ZipArchiveEntry entry = new ZipArchiveEntry(name);
+      // Zip entries hold the time in the default time zone. A fixed time is shifted so that the entry holds it in
+      // UTC, and the archive does not depend on the time zone of the machine building it.
+      entry.setTime(fixedTime ? time - TimeZone.getDefault().getOffset(time) : time);
+      String fileName = name.substring(name.lastIndexOf('/') + 1);
+      String extension = FilenameUtils.getExtension(fileName).toLowerCase(Locale.ROOT);
+      boolean compressed = COMPRESSED_EXTENSIONS.contains(extension);
+      entry.setMethod(compressed || compressionLevel == 0 ? ZipEntry.STORED : ZipEntry.DEFLATED);
+      return entry;
+    }
+    TarArchiveEntry entry = new TarArchiveEntry(name);
+    // Entries are otherwise owned by the user running the build.
+    entry.setUserName("");
+    entry.setGroupName("");
+    entry.setSize(size);
+    entry.setModTime(time);
+    return entry;
+  }
+
+  private static void write(ArchiveOutputStream outStream, int compressionLevel, String name, long time,
+                            boolean fixedTime, byte[] content) throws IOException {
+    outStream.putArchiveEntry(newEntry(outStream, compressionLevel, name, content.length, time, fixedTime));
+    outStream.write(content);
+    outStream.closeArchiveEntry();
+  }
+}
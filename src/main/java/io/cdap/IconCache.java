@@ -0,0 +1,148 @@
+/*
+ * Copyright © 2022 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import org.apache.commons.codec.binary.Hex;
+
+/**
+ * Persistent cache of icon data URIs, keyed by the SHA-256 of the icon content, its media type and how it was
+ * optimized.
+ *
+ * The cache directory is meant to be shared by every module and build on a machine, so identical icons copied
+ * into many modules are encoded once. Entries are plain files holding the data URI. Reading an entry refreshes
+ * its modification time, and {@link #evict()}, called once per build, removes the least recently used entries
+ * once the directory grows past its maximum size. A cache that cannot be written behaves as a cache miss.
+ */
+final class IconCache {
+
+  private static final String ENTRY_SUFFIX = ".uri";
+
+  private final Path directory;
+  private final long maxSize;
+
+  /**
+   * @param directory directory holding the cache entries, created if needed
+   * @param maxSize maximum total size of the entries in bytes
+   */
+  IconCache(Path directory, long maxSize) {
+    this.directory = directory;
+    this.maxSize = maxSize;
+  }
+
+  /**
+   * Returns the cache key of an icon. The position of the given buffer is not modified.
+   *
+   * @param content content of the icon file
+   * @param attributes everything else the cached data URI depends on, such as the media type
+   */
+  static String key(ByteBuffer content, String... attributes) {
+    try {
+      MessageDigest digest = MessageDigest.getInstance("SHA-256");
+      digest.update(content.duplicate());
+      for (String attribute : attributes) {
+        digest.update((byte) 0);
+        digest.update(String.valueOf(attribute).getBytes(StandardCharsets.UTF_8));
+      }
+      return Hex.encodeHexString(digest.digest());
+    } catch (NoSuchAlgorithmException e) {
+      // SHA-256 is required to be supported by every Java platform.
+      throw new IllegalStateException(e);
+    }
+  }
+
+  /**
+   * Returns the cached data URI for the given key, or null if it is not cached.
+   */
+  String get(String key) {
+    Path entry = directory.resolve(key + ENTRY_SUFFIX);
+    try {
+      String dataUri = new String(Files.readAllBytes(entry), StandardCharsets.US_ASCII);
+      Files.setLastModifiedTime(entry, FileTime.fromMillis(System.currentTimeMillis()));
+      return dataUri;
+    } catch (IOException e) {
+      // Missing, concurrently evicted or unreadable entries are cache misses.
+      return null;
+    }
+  }
+
+  /**
+   * Stores a data URI under the given key.
+   */
+  void put(String key, String dataUri) {
+    Path entry = directory.resolve(key + ENTRY_SUFFIX);
+    Path tempFile = null;
+    try {
+      Files.createDirectories(directory);
+      tempFile = Files.createTempFile(directory, ".icon", ".tmp");
+      Files.write(tempFile, dataUri.getBytes(StandardCharsets.US_ASCII));
+      OutputFiles.replace(tempFile, entry);
+    } catch (IOException e) {
+      // The cache is an optimization, failing to store an entry must not fail the build.
+      try {
+        if (tempFile != null) {
+          Files.deleteIfExists(tempFile);
+        }
+      } catch (IOException ignored) {
+        // Left for the next eviction to clean up.
+      }
+    }
+  }
+
+  /**
+   * Removes the least recently used entries until the cache fits in its maximum size.
+   */
+  void evict() {
+    List<Map.Entry<Path, BasicFileAttributes>> entries = new ArrayList<>();
+    long size = 0;
+    try {
+      try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "*" + ENTRY_SUFFIX)) {
+        for (Path entry : stream) {
+          BasicFileAttributes attributes = Files.readAttributes(entry, BasicFileAttributes.class);
+          entries.add(new AbstractMap.SimpleImmutableEntry<>(entry, attributes));
+          size += attributes.size();
+        }
+      }
+
+      entries.sort(Comparator.comparing(entry -> entry.getValue().lastModifiedTime()));
+      for (Map.Entry<Path, BasicFileAttributes> entry : entries) {
+        if (size <= maxSize) {
+          break;
+        }
+        if (Files.deleteIfExists(entry.getKey())) {
+          size -= entry.getValue().size();
+        }
+      }
+    } catch (IOException e) {
+      // A missing or unwritable cache is left for the next build to trim.
+    }
+  }
+}
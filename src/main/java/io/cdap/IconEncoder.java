@@ -0,0 +1,138 @@
+/*
+ * Copyright © 2022 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URLConnection;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Locale;
+
+/**
+ * Encodes icons as base64 data URIs.
+ */
+final class IconEncoder {
+
+  /**
+   * Largest icon that can be encoded into a single String.
+   */
+  private static final long MAX_SIZE = (Integer.MAX_VALUE - 64) / 4 * 3;
+
+  private IconEncoder() {
+  }
+
+  /**
+   * Returns the media type of an icon file, based on its extension.
+   */
+  static String mediaType(File file) {
+    String mediaType = URLConnection.guessContentTypeFromName(file.getName());
+    if (mediaType == null && file.getName().toLowerCase(Locale.ROOT).endsWith(".svg")) {
+      // Older JDKs do not know the SVG media type.
+      mediaType = "image/svg+xml";
+    }
+    return mediaType;
+  }
+
+  /**
+   * Returns the number of bytes encoded in a base64 data URI.
+   */
+  static long decodedSize(String dataUri) {
+    int start = dataUri.indexOf(',') + 1;
+    int padding = dataUri.endsWith("==") ? 2 : dataUri.endsWith("=") ? 1 : 0;
+    return (long) (dataUri.length() - start) / 4 * 3 - padding;
+  }
+
+  /**
+   * Returns the Data URI Scheme of a file.
+   */
+  static String toDataUri(File file, String mediaType) throws IOException {
+    return toDataUri(read(file), mediaType);
+  }
+
+  /**
+   * Returns the Data URI Scheme of the remaining bytes of the buffer, encoded straight after the prefix into the
+   * array the string is built from.
+   */
+  static String toDataUri(ByteBuffer content, String mediaType) {
+    byte[] prefix = ("data:" + mediaType + ";base64,").getBytes(StandardCharsets.US_ASCII);
+    int length = content.remaining();
+    byte[] dataUri = Arrays.copyOf(prefix, prefix.length + (length + 2) / 3 * 4);
+    ByteBuffer encoded = ByteBuffer.wrap(dataUri, prefix.length, dataUri.length - prefix.length);
+    // The encoder only writes arrays from their start, but its stream can fill the rest of one.
+    try (OutputStream encoder = Base64.getEncoder().wrap(new ByteBufferOutputStream(encoded))) {
+      if (content.hasArray()) {
+        encoder.write(content.array(), content.arrayOffset() + content.position(), length);
+      } else {
+        byte[] bytes = new byte[length];
+        content.duplicate().get(bytes);
+        encoder.write(bytes);
+      }
+    } catch (IOException e) {
+      // Writing to an array cannot fail.
+      throw new IllegalStateException(e);
+    }
+    content.position(content.limit());
+    return new String(dataUri, StandardCharsets.US_ASCII);
+  }
+
+  /**
+   * Returns the content of a file.
+   */
+  static ByteBuffer read(File file) throws IOException {
+    try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+      long size = channel.size();
+      if (size > MAX_SIZE) {
+        throw new IOException(String.format("Icon file '%s' is too large to be inlined: %d bytes",
+                                            file.getName(), size));
+      }
+      ByteBuffer content = ByteBuffer.allocate((int) size);
+      while (content.hasRemaining() && channel.read(content) >= 0) {
+        // Keep reading until the buffer is full or the end of the file is reached.
+      }
+      content.flip();
+      return content;
+    }
+  }
+
+  /**
+   * Writes to a buffer.
+   */
+  private static final class ByteBufferOutputStream extends OutputStream {
+
+    private final ByteBuffer buffer;
+
+    ByteBufferOutputStream(ByteBuffer buffer) {
+      this.buffer = buffer;
+    }
+
+    @Override
+    public void write(int b) {
+      buffer.put((byte) b);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) {
+      buffer.put(b, off, len);
+    }
+  }
+}
@@ -0,0 +1,264 @@
+/*
+ * Copyright © 2022 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Losslessly shrinks icons before they are inlined in the plugin JSON.
+ *
+ * SVG icons are stripped of comments, metadata and insignificant whitespace. PNG icons are stripped of the
+ * chunks that do not affect how they are displayed and their image data is recompressed with the best deflate
+ * level; the pixels are left untouched. Other formats, and icons that could not be made smaller, are returned as is.
+ */
+final class IconOptimizer {
+
+  private static final byte[] PNG_SIGNATURE = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1a, '\n'};
+
+  /**
+   * PNG chunks kept in the optimized icon, besides the image data. Everything else is metadata such as text,
+   * timestamps or physical dimensions.
+   */
+  private static final Set<String> PNG_KEPT_CHUNKS =
+    new HashSet<>(Arrays.asList("IHDR", "PLTE", "tRNS", "gAMA", "cHRM", "sRGB", "iCCP", "sBIT", "IEND"));
+
+  /**
+   * Animated PNG chunks, whose frames reference each other and are not rewritten.
+   */
+  private static final Set<String> PNG_ANIMATION_CHUNKS = new HashSet<>(Arrays.asList("acTL", "fcTL", "fdAT"));
+
+  private static final Pattern SVG_XML_DECLARATION = Pattern.compile("<\\?xml.*?\\?>", Pattern.DOTALL);
+  private static final Pattern SVG_DOCTYPE = Pattern.compile("<!DOCTYPE[^>\\[]*(\\[.*?])?\\s*>", Pattern.DOTALL);
+  private static final Pattern SVG_COMMENT = Pattern.compile("<!--.*?-->", Pattern.DOTALL);
+  private static final Pattern SVG_METADATA = Pattern.compile("<metadata[\\s>].*?</metadata\\s*>|<metadata[^>]*/>",
+                                                              Pattern.DOTALL);
+  private static final Pattern SVG_ENCODING =
+    Pattern.compile("^\\s*<\\?xml[^>]*\\sencoding\\s*=\\s*[\"']([^\"']*)[\"']");
+  /**
+   * Elements whose content is displayed, where whitespace between tags is significant.
+   */
+  private static final Pattern SVG_TEXT_ELEMENT = Pattern.compile("<(text|title|desc)[\\s>].*?</\\1\\s*>",
+                                                                  Pattern.DOTALL);
+  private static final Pattern SVG_SPACE_BETWEEN_TAGS = Pattern.compile(">\\s+<");
+  private static final Pattern SVG_SPACES = Pattern.compile("\\s{2,}");
+
+  private IconOptimizer() {
+  }
+
+  /**
+   * Returns the optimized content of an icon, or the original content if it cannot be made smaller.
+   * The position of the given buffer is not modified.
+   */
+  static ByteBuffer optimize(ByteBuffer content, String mediaType) {
+    ByteBuffer optimized = null;
+    if ("image/svg+xml".equals(mediaType)) {
+      optimized = minifySvg(content.duplicate());
+    } else if ("image/png".equals(mediaType)) {
+      optimized = recompressPng(content.duplicate());
+    }
+    return optimized != null && optimized.remaining() < content.remaining() ? optimized : content;
+  }
+
+  /**
+   * Removes the XML declaration, doctype, comments, metadata and whitespace between tags of an SVG document. The
+   * content of text elements is kept as is. Documents preserving whitespace are only stripped of comments and
+   * metadata.
+   *
+   * @return the minified document, or null if it is not UTF-8, which the removed XML declaration would not tell
+   */
+  static ByteBuffer minifySvg(ByteBuffer content) {
+    String svg;
+    try {
+      svg = StandardCharsets.UTF_8.newDecoder()
+        .onMalformedInput(CodingErrorAction.REPORT)
+        .onUnmappableCharacter(CodingErrorAction.REPORT)
+        .decode(content)
+        .toString();
+    } catch (CharacterCodingException e) {
+      return null;
+    }
+    Matcher encoding = SVG_ENCODING.matcher(svg);
+    if (encoding.find() && !encoding.group(1).replace("-", "").equalsIgnoreCase("utf8")) {
+      return null;
+    }
+    if (svg.contains("<![CDATA[")) {
+      // Character data may contain markup-like text, leave it alone.
+      return null;
+    }
+
+    svg = SVG_COMMENT.matcher(svg).replaceAll("");
+    svg = SVG_XML_DECLARATION.matcher(svg).replaceAll("");
+    svg = SVG_DOCTYPE.matcher(svg).replaceAll("");
+    svg = SVG_METADATA.matcher(svg).replaceAll("");
+    if (!svg.contains("xml:space")) {
+      svg = replaceOutsideText(svg, SVG_SPACE_BETWEEN_TAGS, "><");
+      svg = replaceOutsideText(svg, SVG_SPACES, " ");
+    }
+    return ByteBuffer.wrap(svg.trim().getBytes(StandardCharsets.UTF_8));
+  }
+
+  /**
+   * Replaces the matches of a pattern that do not overlap the content of a text element.
+   */
+  private static String replaceOutsideText(String svg, Pattern pattern, String replacement) {
+    List<int[]> textElements = new ArrayList<>();
+    Matcher text = SVG_TEXT_ELEMENT.matcher(svg);
+    while (text.find()) {
+      // The content of the element, between its start and end tags
+      textElements.add(new int[] {svg.indexOf('>', text.start()) + 1, svg.lastIndexOf('<', text.end() - 1)});
+    }
+
+    StringBuilder replaced = new StringBuilder(svg.length());
+    Matcher matcher = pattern.matcher(svg);
+    int start = 0;
+    int element = 0;
+    while (matcher.find()) {
+      while (element < textElements.size() && textElements.get(element)[1] <= matcher.start()) {
+        element++;
+      }
+      if (element < textElements.size() && textElements.get(element)[0] < matcher.end()) {
+        continue;
+      }
+      replaced.append(svg, start, matcher.start()).append(replacement);
+      start = matcher.end();
+    }
+    return replaced.append(svg, start, svg.length()).toString();
+  }
+
+  /**
+   * Rewrites a PNG with only its rendering chunks and a single, maximally compressed image data chunk.
+   *
+   * @return the rewritten PNG, or null if the content is not a PNG that can be safely rewritten.
+   */
+  static ByteBuffer recompressPng(ByteBuffer content) {
+    byte[] signature = new byte[PNG_SIGNATURE.length];
+    if (content.remaining() < signature.length) {
+      return null;
+    }
+    content.get(signature);
+    if (!Arrays.equals(signature, PNG_SIGNATURE)) {
+      return null;
+    }
+
+    ByteArrayOutputStream before = new ByteArrayOutputStream();
+    ByteArrayOutputStream after = new ByteArrayOutputStream();
+    ByteArrayOutputStream imageData = new ByteArrayOutputStream();
+    boolean afterImageData = false;
+    boolean ended = false;
+    while (!ended) {
+      if (content.remaining() < 12) {
+        return null;
+      }
+      int length = content.getInt();
+      byte[] type = new byte[4];
+      content.get(type);
+      String name = new String(type, StandardCharsets.US_ASCII);
+      if (length < 0 || length > content.remaining() - 4) {
+        return null;
+      }
+      byte[] data = new byte[length];
+      content.get(data);
+      content.getInt();
+
+      if (PNG_ANIMATION_CHUNKS.contains(name)) {
+        return null;
+      }
+      if ("IDAT".equals(name)) {
+        imageData.write(data, 0, data.length);
+        afterImageData = true;
+      } else if (PNG_KEPT_CHUNKS.contains(name)) {
+        writeChunk(afterImageData ? after : before, type, data);
+        ended = "IEND".equals(name);
+      }
+    }
+
+    byte[] recompressed = recompress(imageData.toByteArray());
+    if (recompressed == null) {
+      return null;
+    }
+    ByteArrayOutputStream png = new ByteArrayOutputStream(before.size() + recompressed.length + after.size() + 20);
+    png.write(PNG_SIGNATURE, 0, PNG_SIGNATURE.length);
+    png.write(before.toByteArray(), 0, before.size());
+    writeChunk(png, "IDAT".getBytes(StandardCharsets.US_ASCII), recompressed);
+    png.write(after.toByteArray(), 0, after.size());
+    return ByteBuffer.wrap(png.toByteArray());
+  }
+
+  private static byte[] recompress(byte[] compressed) {
+    Inflater inflater = new Inflater();
+    Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+    try {
+      inflater.setInput(compressed);
+      ByteArrayOutputStream raw = new ByteArrayOutputStream(compressed.length * 2);
+      byte[] buffer = new byte[8192];
+      while (!inflater.finished()) {
+        int count = inflater.inflate(buffer);
+        if (count == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+          // Truncated image data.
+          return null;
+        }
+        raw.write(buffer, 0, count);
+      }
+
+      deflater.setInput(raw.toByteArray());
+      deflater.finish();
+      ByteArrayOutputStream output = new ByteArrayOutputStream(compressed.length);
+      while (!deflater.finished()) {
+        int count = deflater.deflate(buffer);
+        output.write(buffer, 0, count);
+      }
+      return output.toByteArray();
+    } catch (DataFormatException e) {
+      return null;
+    } finally {
+      inflater.end();
+      deflater.end();
+    }
+  }
+
+  private static void writeChunk(ByteArrayOutputStream outStream, byte[] type, byte[] data) {
+    CRC32 crc = new CRC32();
+    crc.update(type);
+    crc.update(data);
+    writeInt(outStream, data.length);
+    outStream.write(type, 0, type.length);
+    outStream.write(data, 0, data.length);
+    writeInt(outStream, (int) crc.getValue());
+  }
+
+  private static void writeInt(ByteArrayOutputStream outStream, int value) {
+    outStream.write(value >>> 24);
+    outStream.write(value >>> 16);
+    outStream.write(value >>> 8);
+    outStream.write(value);
+  }
+}
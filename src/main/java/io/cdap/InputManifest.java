@@ -0,0 +1,105 @@
+/*
+ * Copyright © 2022 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import org.apache.commons.codec.digest.DigestUtils;
+
+/**
+ * Content-hash manifest of the inputs of a goal. It is stored next to the generated output and compared
+ * on the next build to decide whether the output is still up to date.
+ *
+ * The manifest file uses the {@code sha256sum} layout: one {@code <sha256>  <key>} line per entry, sorted by key.
+ */
+class InputManifest {
+
+  private final Map<String, String> entries = new TreeMap<>();
+
+  /**
+   * Adds a configuration value to the manifest.
+   */
+  void put(String key, String value) {
+    entries.put(key, DigestUtils.sha256Hex(value == null ? "" : value));
+  }
+
+  /**
+   * Adds a list of configuration values to the manifest.
+   */
+  void put(String key, String[] values) {
+    put(key, values == null ? "" : String.join("\n", values));
+  }
+
+  /**
+   * Adds the content hash of every file directly under the given directory. Sub directories are not
+   * inspected, matching how the goals read their input directories.
+   */
+  void putDirectory(String key, File directory) throws IOException {
+    if (directory == null) {
+      return;
+    }
+    File[] files = directory.listFiles();
+    if (files == null) {
+      return;
+    }
+    for (File file : files) {
+      if (file.isFile()) {
+        try (InputStream inStream = Files.newInputStream(file.toPath())) {
+          entries.put(key + "/" + file.getName(), DigestUtils.sha256Hex(inStream));
+        }
+      }
+    }
+  }
+
+  /**
+   * Returns true if the given manifest file exists and records exactly the same entries as this manifest.
+   */
+  boolean matches(File manifestFile) throws IOException {
+    if (!manifestFile.isFile()) {
+      return false;
+    }
+    List<String> lines = Files.readAllLines(manifestFile.toPath(), StandardCharsets.UTF_8);
+    return lines.equals(toLines());
+  }
+
+  /**
+   * Writes this manifest to the given file, creating parent directories as needed.
+   */
+  void write(File manifestFile) throws IOException {
+    File parent = manifestFile.getParentFile();
+    if (parent != null) {
+      parent.mkdirs();
+    }
+    Files.write(manifestFile.toPath(), toLines(), StandardCharsets.UTF_8);
+  }
+
+  private List<String> toLines() {
+    String[] lines = new String[entries.size()];
+    int i = 0;
+    for (Map.Entry<String, String> entry : entries.entrySet()) {
+      lines[i++] = entry.getValue() + "  " + entry.getKey();
+    }
+    return Arrays.asList(lines);
+  }
+}
@@ -0,0 +1,261 @@
+/*
+ * Copyright © 2022 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.StreamReadFeature;
+import com.fasterxml.jackson.core.json.JsonReadFeature;
+import com.fasterxml.jackson.core.util.DefaultIndenter;
+import com.fasterxml.jackson.core.util.DefaultPrettyPrinter;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.StringWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.apache.commons.io.output.CountingOutputStream;
+import org.apache.commons.io.output.NullOutputStream;
+
+/**
+ * JSON processing shared by the mojos, built on Jackson.
+ *
+ * Input files are parsed as leniently as the {@code org.json} parser the mojos used to rely on: comments, single
+ * quotes, unquoted field names and trailing commas are accepted, while duplicate field names are rejected. Objects
+ * keep the order of their fields as read or added, and maps are written sorted by key, so the same input always
+ * produces the same output. Generated files are written as a stream of tokens, either compact or pretty-printed
+ * with a two space indent, independently of the platform line separator.
+ */
+final class JsonSupport {
+
+  static final ObjectMapper MAPPER = JsonMapper.builder()
+    .enable(JsonReadFeature.ALLOW_JAVA_COMMENTS, JsonReadFeature.ALLOW_YAML_COMMENTS,
+            JsonReadFeature.ALLOW_SINGLE_QUOTES, JsonReadFeature.ALLOW_UNQUOTED_FIELD_NAMES,
+            JsonReadFeature.ALLOW_TRAILING_COMMA)
+    .enable(StreamReadFeature.STRICT_DUPLICATE_DETECTION)
+    .enable(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS)
+    .build();
+
+  private static final JsonFactory FACTORY = MAPPER.getFactory();
+
+  private JsonSupport() {
+  }
+
+  /**
+   * Creates a new, empty JSON object.
+   */
+  static ObjectNode newObject() {
+    return MAPPER.createObjectNode();
+  }
+
+  /**
+   * Creates a new, empty JSON array.
+   */
+  static ArrayNode newArray() {
+    return MAPPER.createArrayNode();
+  }
+
+  /**
+   * Parses a JSON file.
+   */
+  static JsonNode read(File file) throws IOException {
+    return MAPPER.readTree(file);
+  }
+
+  /**
+   * Parses a JSON document from a stream, without closing it.
+   */
+  static JsonNode read(InputStream inStream) throws IOException {
+    return MAPPER.readTree(inStream);
+  }
+
+  /**
+   * Creates a streaming parser reading the given stream. Closing the parser closes the stream.
+   */
+  static JsonParser newParser(InputStream inStream) throws IOException {
+    return MAPPER.createParser(inStream);
+  }
+
+  /**
+   * Creates a generator writing UTF-8 to the given stream. Closing the generator closes the stream.
+   *
+   * @param compact true to write minimal JSON, false to pretty-print it
+   */
+  static JsonGenerator newGenerator(OutputStream outStream, boolean compact) throws IOException {
+    JsonGenerator generator = FACTORY.createGenerator(outStream, JsonEncoding.UTF8);
+    if (!compact) {
+      generator.setPrettyPrinter(new IndentingPrettyPrinter());
+    }
+    return generator;
+  }
+
+  /**
+   * Serializes a JSON tree to a String.
+   */
+  static String toString(JsonNode node, boolean compact) throws IOException {
+    StringWriter writer = new StringWriter();
+    try (JsonGenerator generator = FACTORY.createGenerator(writer)) {
+      if (!compact) {
+        generator.setPrettyPrinter(new IndentingPrettyPrinter());
+      }
+      MAPPER.writeTree(generator, node);
+    }
+    return writer.toString();
+  }
+
+  /**
+   * Returns the size in bytes of the serialized JSON tree, without keeping it in memory.
+   */
+  static long size(JsonNode node, boolean compact) throws IOException {
+    CountingOutputStream counter = new CountingOutputStream(NullOutputStream.NULL_OUTPUT_STREAM);
+    try (JsonGenerator generator = newGenerator(counter, compact)) {
+      MAPPER.writeTree(generator, node);
+    }
+    return counter.getByteCount();
+  }
+
+  /**
+   * Returns how many bytes pretty-printing compact JSON, as written by {@link #newGenerator}, would add, without
+   * serializing it again: pretty-printing only adds line breaks, indentation and a space after each colon.
+   *
+   * @param compactJson JSON written without indentation
+   * @param lineBreakSize size of a line break, 1 in a file, 2 once escaped in a JSON string
+   */
+  static long prettySizeIncrease(Reader compactJson, int lineBreakSize) throws IOException {
+    long increase = 0;
+    int depth = 0;
+    boolean inString = false;
+    boolean escaped = false;
+    // Empty objects and arrays are not broken into lines, which is only known from the next character.
+    boolean opened = false;
+    int c;
+    while ((c = compactJson.read()) >= 0) {
+      if (opened) {
+        opened = false;
+        if (c == '}' || c == ']') {
+          depth--;
+          continue;
+        }
+        increase += lineBreakSize + 2 * depth;
+      }
+      if (inString) {
+        if (escaped) {
+          escaped = false;
+        } else if (c == '\\') {
+          escaped = true;
+        } else if (c == '"') {
+          inString = false;
+        }
+        continue;
+      }
+      switch (c) {
+        case '"':
+          inString = true;
+          break;
+        case '{':
+        case '[':
+          depth++;
+          opened = true;
+          break;
+        case '}':
+        case ']':
+          depth--;
+          increase += lineBreakSize + 2 * depth;
+          break;
+        case ',':
+          increase += lineBreakSize + 2 * depth;
+          break;
+        case ':':
+          increase++;
+          break;
+        default:
+          break;
+      }
+    }
+    return increase;
+  }
+
+  /**
+   * Writes a JSON tree to a file. The file is written under a temporary name and moved in place once complete,
+   * unless the file already has the same content.
+   */
+  static void write(JsonNode node, File file, boolean compact) throws IOException {
+    Path target = file.toPath();
+    Path tempFile = OutputFiles.tempFile(target);
+    try {
+      try (OutputStream outStream = Files.newOutputStream(tempFile);
+           JsonGenerator generator = newGenerator(outStream, compact)) {
+        MAPPER.writeTree(generator, node);
+      }
+      OutputFiles.replaceIfChanged(tempFile, target);
+    } finally {
+      Files.deleteIfExists(tempFile);
+    }
+  }
+
+  /**
+   * Pretty printer producing the same layout as {@code org.json}'s {@code toString(2)}: {@code "key": value}
+   * pairs, one array element per line and no padding inside empty objects or arrays.
+   */
+  private static final class IndentingPrettyPrinter extends DefaultPrettyPrinter {
+
+    private static final DefaultIndenter INDENTER = new DefaultIndenter("  ", "\n");
+
+    IndentingPrettyPrinter() {
+      indentObjectsWith(INDENTER);
+      indentArraysWith(INDENTER);
+    }
+
+    @Override
+    public DefaultPrettyPrinter createInstance() {
+      return new IndentingPrettyPrinter();
+    }
+
+    @Override
+    public void writeObjectFieldValueSeparator(JsonGenerator generator) throws IOException {
+      generator.writeRaw(": ");
+    }
+
+    @Override
+    public void writeEndObject(JsonGenerator generator, int nrOfEntries) throws IOException {
+      _nesting--;
+      if (nrOfEntries > 0) {
+        _objectIndenter.writeIndentation(generator, _nesting);
+      }
+      generator.writeRaw('}');
+    }
+
+    @Override
+    public void writeEndArray(JsonGenerator generator, int nrOfValues) throws IOException {
+      _nesting--;
+      if (nrOfValues > 0) {
+        _arrayIndenter.writeIndentation(generator, _nesting);
+      }
+      generator.writeRaw(']');
+    }
+  }
+}
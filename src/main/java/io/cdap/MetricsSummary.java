@@ -0,0 +1,164 @@
+/*
+ * Copyright © 2022 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import org.apache.maven.plugin.AbstractMojo;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+import org.apache.maven.project.MavenProject;
+
+/**
+ * Collects the metrics written by the goals of every module of the reactor into a single summary, with the
+ * executions sorted from the slowest, and the totals of each goal.
+ */
+@Mojo(name = "metrics-summary", aggregator = true, threadSafe = true)
+public class MetricsSummary extends AbstractMojo {
+
+  private static final String[] COUNTERS = {
+    "bytesRead", "bytesWritten", "filesProcessed", "filesSkipped"
+  };
+
+  @Parameter(defaultValue = "${reactorProjects}", readonly = true, required = true)
+  private List<MavenProject> reactorProjects;
+
+  /**
+   * File the summary is written to.
+   */
+  @Parameter(property = "metricsSummaryFile",
+    defaultValue = "${project.build.directory}/cdap-maven-plugin/metrics-summary.json")
+  private File summaryFile;
+
+  /**
+   * Number of the slowest executions logged.
+   */
+  @Parameter(defaultValue = "10")
+  private int slowest;
+
+  @Override
+  public void execute() throws MojoExecutionException {
+    List<JsonNode> executions = new ArrayList<>();
+    for (MavenProject project : reactorProjects) {
+      File directory = new File(project.getBuild().getDirectory(), GoalMetrics.DIRECTORY);
+      File[] files = directory.listFiles((dir, name) -> name.endsWith(".json"));
+      if (files == null) {
+        continue;
+      }
+      Arrays.sort(files);
+      for (File file : files) {
+        try {
+          executions.add(JsonSupport.read(file));
+        } catch (IOException e) {
+          throw new MojoExecutionException(String.format("Unable to read '%s'. %s", file, e.getMessage()), e);
+        }
+      }
+    }
+    executions.sort(Comparator.comparingDouble((JsonNode execution) -> execution.path("wallTimeMs").asDouble())
+                      .reversed());
+
+    ObjectNode summary = JsonSupport.newObject();
+    summary.put("modules", reactorProjects.size());
+    ObjectNode totals = summary.putObject("goals");
+    for (Map.Entry<String, ObjectNode> goal : totals(executions).entrySet()) {
+      totals.set(goal.getKey(), goal.getValue());
+    }
+    ArrayNode executionsJson = summary.putArray("executions");
+    executions.forEach(executionsJson::add);
+
+    try {
+      summaryFile.getParentFile().mkdirs();
+      JsonSupport.write(summary, summaryFile, false);
+    } catch (IOException e) {
+      throw new MojoExecutionException(String.format("Unable to write '%s'. %s", summaryFile, e.getMessage()), e);
+    }
+
+    getLog().info(repeat("-", 72));
+    getLog().info("CDAP Goal Metrics");
+    getLog().info(repeat("-", 72));
+    getLog().info(String.format("Executions           : %d in %d modules", executions.size(), reactorProjects.size()));
+    for (JsonNode execution : executions.subList(0, Math.min(slowest, executions.size()))) {
+      getLog().info(String.format("%-46s %12.1f ms", execution.path("artifactId").asText() + " "
+        + execution.path("goal").asText(), execution.path("wallTimeMs").asDouble()));
+    }
+    getLog().info(repeat("-", 72));
+    getLog().info("Successfully created : " + summaryFile);
+    getLog().info(repeat("-", 72));
+  }
+
+  /**
+   * Returns the number of executions, the wall time, the time of each phase and the counters of each goal, summed
+   * over its executions, and the largest output any of them retained.
+   */
+  static Map<String, ObjectNode> totals(List<JsonNode> executions) {
+    Map<String, ObjectNode> totals = new TreeMap<>();
+    for (JsonNode execution : executions) {
+      ObjectNode total = totals.computeIfAbsent(execution.path("goal").asText(), goal -> {
+        ObjectNode json = JsonSupport.newObject();
+        json.put("executions", 0);
+        json.put("wallTimeMs", 0.0);
+        json.putObject("phasesMs");
+        for (String counter : COUNTERS) {
+          json.put(counter, 0L);
+        }
+        json.put("peakRetainedBytes", 0L);
+        return json;
+      });
+      total.put("executions", total.get("executions").asInt() + 1);
+      total.put("wallTimeMs", round(total.get("wallTimeMs").asDouble() + execution.path("wallTimeMs").asDouble()));
+      ObjectNode phases = (ObjectNode) total.get("phasesMs");
+      Iterator<Map.Entry<String, JsonNode>> executionPhases = execution.path("phasesMs").fields();
+      while (executionPhases.hasNext()) {
+        Map.Entry<String, JsonNode> phase = executionPhases.next();
+        phases.put(phase.getKey(), round(phases.path(phase.getKey()).asDouble() + phase.getValue().asDouble()));
+      }
+      for (String counter : COUNTERS) {
+        total.put(counter, total.get(counter).asLong() + execution.path(counter).asLong());
+      }
+      total.put("peakRetainedBytes",
+                Math.max(total.get("peakRetainedBytes").asLong(), execution.path("peakRetainedBytes").asLong()));
+    }
+    return totals;
+  }
+
+  private static double round(double millis) {
+    return Math.round(millis * 1000) / 1000.0;
+  }
+
+  /**
+   * Repeats text for specified number of times
+   */
+  private String repeat(String text, int numRepetitions) {
+    StringBuilder builder = new StringBuilder();
+    for (int i = 0; i < numRepetitions; i++) {
+      builder.append(text);
+    }
+
+    return builder.toString();
+  }
+}
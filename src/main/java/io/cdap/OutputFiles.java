@@ -0,0 +1,68 @@
+/*
+ * Copyright © 2022 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap;
+
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import org.apache.commons.io.FileUtils;
+
+/**
+ * Helpers for writing output files so that a partially written file is never visible under its final name.
+ */
+final class OutputFiles {
+
+  private OutputFiles() {
+  }
+
+  /**
+   * Returns the temporary file an output is written to before being moved in place.
+   */
+  static Path tempFile(Path target) {
+    return target.resolveSibling("." + target.getFileName() + ".tmp");
+  }
+
+  /**
+   * Moves a fully written temporary file to its final name, unless the target already has the same content, in
+   * which case the target, and its modification time, are left untouched so that tools comparing outputs, such as
+   * build caches, incremental goals or file synchronization, do not see a change.
+   *
+   * @return true if the target was replaced
+   */
+  static boolean replaceIfChanged(Path source, Path target) throws IOException {
+    if (Files.isRegularFile(target) && Files.size(source) == Files.size(target)
+      && FileUtils.contentEquals(source.toFile(), target.toFile())) {
+      Files.delete(source);
+      return false;
+    }
+    replace(source, target);
+    return true;
+  }
+
+  /**
+   * Moves a fully written temporary file to its final name, replacing any previous version.
+   */
+  static void replace(Path source, Path target) throws IOException {
+    try {
+      Files.move(source, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    } catch (AtomicMoveNotSupportedException e) {
+      Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+    }
+  }
+}
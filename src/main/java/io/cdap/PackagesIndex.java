@@ -0,0 +1,275 @@
+/*
+ * Copyright © 2022 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import org.apache.commons.codec.digest.DigestUtils;
+
+/**
+ * The {@code packages.json} index of a Hub tree, which lists the spec of every {@code <name>/<version>/spec.json}
+ * package.
+ *
+ * The index is updated incrementally. A cache kept next to the build output records the size, modification time,
+ * file key, such as the inode, SHA-256 and index entry of every spec. Specs whose size, modification time and file
+ * key did not change are not read at all; the others are hashed, and only parsed again if their content changed.
+ * Specs modified within {@link #RACY_WINDOW_MILLIS} of the cache being written are hashed as well, as they may
+ * have been modified again afterwards without their modification time changing.
+ */
+final class PackagesIndex {
+
+  static final String PACKAGES_JSON = "packages.json";
+  private static final String SPEC_JSON = "spec.json";
+
+  /**
+   * Granularity of the modification time on the coarsest file systems, plus a margin.
+   */
+  private static final long RACY_WINDOW_MILLIS = 3000;
+
+  private PackagesIndex() {
+  }
+
+  /**
+   * Returns the index entry of a package: its name and version, followed by the fields of its spec except the
+   * actions and the spec version.
+   */
+  static ObjectNode toEntry(String name, String version, JsonNode spec) {
+    ObjectNode entry = JsonSupport.newObject();
+    entry.put("name", name);
+    entry.put("version", version);
+    Iterator<Map.Entry<String, JsonNode>> fields = spec.fields();
+    while (fields.hasNext()) {
+      Map.Entry<String, JsonNode> field = fields.next();
+      if (!"actions".equals(field.getKey()) && !"specVersion".equals(field.getKey())) {
+        entry.set(field.getKey(), field.getValue());
+      }
+    }
+    return entry;
+  }
+
+  /**
+   * Brings the {@code packages.json} index of a Hub tree up to date with its specs.
+   *
+   * @param packagesDirectory root of the Hub tree, which receives the index
+   * @param cacheFile cache of the previous update, created if it does not exist
+   * @param parallelism maximum number of specs read at the same time, values lower than one use all processors
+   * @param compact writes the index without indentation
+   * @return what was done to update the index
+   */
+  static Update update(Path packagesDirectory, Path cacheFile, int parallelism, boolean compact) throws Exception {
+    Map<String, CachedSpec> previous = readCache(cacheFile);
+    long racySince = previous.isEmpty() ? Long.MAX_VALUE
+      : Files.getLastModifiedTime(cacheFile).toMillis() - RACY_WINDOW_MILLIS;
+    Map<String, CachedSpec> current = new TreeMap<>();
+    Map<String, Callable<CachedSpec>> tasks = new TreeMap<>();
+    Update update = new Update();
+
+    for (File nameDirectory : listDirectories(packagesDirectory.toFile())) {
+      for (File versionDirectory : listDirectories(nameDirectory)) {
+        Path specFile = versionDirectory.toPath().resolve(SPEC_JSON);
+        if (!Files.isRegularFile(specFile)) {
+          continue;
+        }
+        String name = nameDirectory.getName();
+        String version = versionDirectory.getName();
+        String key = name + "/" + version;
+        BasicFileAttributes attributes = Files.readAttributes(specFile, BasicFileAttributes.class);
+        long size = attributes.size();
+        long lastModified = attributes.lastModifiedTime().toMillis();
+        String fileKey = attributes.fileKey() == null ? null : attributes.fileKey().toString();
+        CachedSpec cached = previous.get(key);
+        if (cached != null && cached.size == size && cached.lastModified == lastModified
+          && Objects.equals(cached.fileKey, fileKey) && lastModified < racySince) {
+          current.put(key, cached);
+        } else {
+          tasks.put(key, () -> read(specFile, name, version, size, lastModified, fileKey, cached));
+        }
+      }
+    }
+
+    for (Map.Entry<String, CachedSpec> result : TaskRunner.runAll(tasks, parallelism, "cdap-packages-index")
+      .entrySet()) {
+      CachedSpec previousSpec = previous.get(result.getKey());
+      if (previousSpec != null && previousSpec.entry == result.getValue().entry) {
+        update.touched++;
+      } else {
+        update.read++;
+      }
+      current.put(result.getKey(), result.getValue());
+    }
+    for (String key : previous.keySet()) {
+      if (!current.containsKey(key)) {
+        update.removed++;
+      }
+    }
+    update.packages = current.size();
+
+    Path indexFile = packagesDirectory.resolve(PACKAGES_JSON);
+    if (update.read == 0 && update.removed == 0 && Files.isRegularFile(indexFile)) {
+      if (update.touched > 0) {
+        writeCache(current, cacheFile);
+      }
+      return update;
+    }
+
+    ArrayNode index = JsonSupport.newArray();
+    for (CachedSpec spec : current.values()) {
+      index.add(spec.entry);
+    }
+    Files.createDirectories(packagesDirectory);
+    JsonSupport.write(index, indexFile.toFile(), compact);
+    writeCache(current, cacheFile);
+    update.written = true;
+    return update;
+  }
+
+  /**
+   * Reads a spec that changed on disk since the cache was written, keeping the cached entry if its content did not.
+   */
+  private static CachedSpec read(Path specFile, String name, String version, long size, long lastModified,
+                                 String fileKey, CachedSpec cached) throws IOException {
+    byte[] content = Files.readAllBytes(specFile);
+    String sha256 = DigestUtils.sha256Hex(content);
+    if (cached != null && cached.sha256.equals(sha256)) {
+      return new CachedSpec(size, lastModified, fileKey, sha256, cached.entry);
+    }
+    JsonNode spec;
+    try {
+      spec = JsonSupport.read(new ByteArrayInputStream(content));
+    } catch (JsonProcessingException e) {
+      throw new IOException(String.format("Unable to read '%s'. %s", specFile, e.getOriginalMessage()), e);
+    }
+    return new CachedSpec(size, lastModified, fileKey, sha256, toEntry(name, version, spec));
+  }
+
+  private static File[] listDirectories(File directory) {
+    File[] directories = directory.listFiles(File::isDirectory);
+    if (directories == null) {
+      return new File[0];
+    }
+    Arrays.sort(directories);
+    return directories;
+  }
+
+  /**
+   * Reads the cache of the previous update. A missing or unreadable cache is treated as empty, so every spec is
+   * read again.
+   */
+  private static Map<String, CachedSpec> readCache(Path cacheFile) throws IOException {
+    Map<String, CachedSpec> cache = new TreeMap<>();
+    if (!Files.isRegularFile(cacheFile)) {
+      return cache;
+    }
+    JsonNode specs;
+    try {
+      specs = JsonSupport.read(cacheFile.toFile());
+    } catch (JsonProcessingException e) {
+      return cache;
+    }
+    Iterator<Map.Entry<String, JsonNode>> fields = specs.fields();
+    while (fields.hasNext()) {
+      Map.Entry<String, JsonNode> field = fields.next();
+      JsonNode spec = field.getValue();
+      if (spec.path("entry").isObject() && spec.path("sha256").isTextual()) {
+        cache.put(field.getKey(), new CachedSpec(spec.path("size").asLong(), spec.path("lastModified").asLong(),
+                                                 spec.path("fileKey").textValue(), spec.get("sha256").asText(),
+                                                 (ObjectNode) spec.get("entry")));
+      }
+    }
+    return cache;
+  }
+
+  private static void writeCache(Map<String, CachedSpec> specs, Path cacheFile) throws IOException {
+    ObjectNode cache = JsonSupport.newObject();
+    for (Map.Entry<String, CachedSpec> spec : specs.entrySet()) {
+      ObjectNode cached = cache.putObject(spec.getKey());
+      cached.put("size", spec.getValue().size);
+      cached.put("lastModified", spec.getValue().lastModified);
+      cached.put("fileKey", spec.getValue().fileKey);
+      cached.put("sha256", spec.getValue().sha256);
+      cached.set("entry", spec.getValue().entry);
+    }
+    Files.createDirectories(cacheFile.getParent());
+    JsonSupport.write(cache, cacheFile.toFile(), true);
+    // The cache is left untouched when its content did not change, but its modification time is when the specs were
+    // last checked, which ends the racy window of the specs hashed again.
+    Files.setLastModifiedTime(cacheFile, FileTime.fromMillis(System.currentTimeMillis()));
+  }
+
+  /**
+   * What an update of the index did.
+   */
+  static final class Update {
+
+    /**
+     * Number of packages in the index.
+     */
+    int packages;
+    /**
+     * Number of specs parsed because they are new or their content changed.
+     */
+    int read;
+    /**
+     * Number of specs hashed because their size, modification time or file key changed, or because they were
+     * modified around the time the cache was written, but whose content did not.
+     */
+    int touched;
+    /**
+     * Number of packages removed from the index.
+     */
+    int removed;
+    /**
+     * Whether the index was written, which is not the case if no package was added, changed or removed.
+     */
+    boolean written;
+  }
+
+  /**
+   * A spec as recorded in the cache.
+   */
+  private static final class CachedSpec {
+
+    private final long size;
+    private final long lastModified;
+    private final String fileKey;
+    private final String sha256;
+    private final ObjectNode entry;
+
+    CachedSpec(long size, long lastModified, String fileKey, String sha256, ObjectNode entry) {
+      this.size = size;
+      this.lastModified = lastModified;
+      this.fileKey = fileKey;
+      this.sha256 = sha256;
+      this.entry = entry;
+    }
+  }
+}
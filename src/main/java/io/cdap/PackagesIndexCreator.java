@@ -0,0 +1,98 @@
+/*
+ * Copyright © 2022 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap;
+
+import java.io.File;
+import org.apache.maven.plugin.AbstractMojo;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+
+/**
+ * This mojo creates, and keeps up to date, the {@code packages.json} index of a Hub tree.
+ */
+@Mojo(name = "create-packages-index", threadSafe = true)
+public class PackagesIndexCreator extends AbstractMojo {
+
+  /**
+   * Root of the Hub tree, holding a {@code <name>/<version>/spec.json} per package.
+   */
+  @Parameter(property = "packagesDirectory", defaultValue = "${project.build.directory}/packages")
+  private File packagesDirectory;
+
+  /**
+   * Cache of the size, modification time, hash and index entry of every spec, used to only read the specs that
+   * changed since the last build.
+   */
+  @Parameter(defaultValue = "${project.build.directory}/cdap-maven-plugin/packages-index.json")
+  private File cacheFile;
+
+  /**
+   * Number of changed specs read at the same time. A value lower than one uses one thread per available processor.
+   */
+  @Parameter(defaultValue = "1")
+  private int parallelism;
+
+  /**
+   * Writes packages.json without any indentation.
+   */
+  @Parameter(property = "compactOutput", defaultValue = "false")
+  private boolean compactOutput;
+
+  @Override
+  public void execute() throws MojoExecutionException {
+    if (!packagesDirectory.isDirectory()) {
+      throw new MojoExecutionException(
+        String.format("Packages directory '%s' does not exist or is not a directory", packagesDirectory)
+      );
+    }
+
+    PackagesIndex.Update update;
+    try {
+      update = PackagesIndex.update(packagesDirectory.toPath(), cacheFile.toPath(), parallelism, compactOutput);
+    } catch (Exception e) {
+      throw new MojoExecutionException(e.getMessage(), e);
+    }
+
+    getLog().info(repeat("-", 72));
+    getLog().info("CDAP Hub Packages Index");
+    getLog().info(repeat("-", 72));
+    getLog().info("Packages Directory   : " + packagesDirectory);
+    getLog().info(String.format("Packages             : %d", update.packages));
+    getLog().info(String.format("Specs                : %d read, %d unchanged content, %d removed",
+                                update.read, update.touched, update.removed));
+    getLog().info(repeat("-", 72));
+    if (update.written) {
+      getLog().info("Successfully created : " + PackagesIndex.PACKAGES_JSON);
+    } else {
+      getLog().info(PackagesIndex.PACKAGES_JSON + " is up to date");
+    }
+    getLog().info(repeat("-", 72));
+  }
+
+  /**
+   * Repeats text for specified number of times
+   */
+  private String repeat(String text, int numRepetitions) {
+    StringBuilder builder = new StringBuilder();
+    for (int i = 0; i < numRepetitions; i++) {
+      builder.append(text);
+    }
+
+    return builder.toString();
+  }
+}
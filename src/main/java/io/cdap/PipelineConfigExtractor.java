@@ -0,0 +1,97 @@
+/*
+ * Copyright © 2022 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.apache.commons.io.FilenameUtils;
+
+/**
+ * Extracts the configuration of pipelines exported from the CDAP UI, which is what the Hub deploys.
+ *
+ * The extractor does not depend on Maven.
+ */
+public final class PipelineConfigExtractor {
+
+  private PipelineConfigExtractor() {
+  }
+
+  /**
+   * Returns the exported pipelines of a directory matching a glob pattern relative to it, sorted.
+   */
+  public static List<Path> list(Path directory, String includes) throws IOException {
+    PathMatcher matcher = directory.getFileSystem().getPathMatcher("glob:" + includes);
+    try (Stream<Path> files = Files.walk(directory)) {
+      return files
+        .filter(file -> Files.isRegularFile(file) && matcher.matches(directory.relativize(file)))
+        .sorted()
+        .collect(Collectors.toList());
+    }
+  }
+
+  /**
+   * Returns the name of the configuration extracted from an exported pipeline: the name of the exported pipeline,
+   * without its extension, followed by the version.
+   */
+  public static String outputName(Path input, String version) {
+    return FilenameUtils.removeExtension(input.getFileName().toString()) + "-" + version + ".json";
+  }
+
+  /**
+   * Copies the {@code config} object of an exported pipeline to the output file.
+   *
+   * The exported pipeline is read as a stream of tokens: the other top level fields are skipped without being
+   * built in memory and the config is written out token by token as it is read, so memory use does not depend
+   * on the size of the pipeline. Reading stops at the end of the config. The output file is written under a
+   * temporary name and only replaces an existing output once complete, and if its content changed.
+   *
+   * @return false if the exported pipeline has no {@code config} object, in which case nothing is written
+   */
+  public static boolean extractConfig(Path input, Path output, boolean compact) throws IOException {
+    try (JsonParser parser = JsonSupport.newParser(Files.newInputStream(input))) {
+      if (parser.nextToken() != JsonToken.START_OBJECT) {
+        return false;
+      }
+      while (parser.nextToken() == JsonToken.FIELD_NAME) {
+        String field = parser.getCurrentName();
+        JsonToken value = parser.nextToken();
+        if ("config".equals(field) && value == JsonToken.START_OBJECT) {
+          Path tempFile = OutputFiles.tempFile(output);
+          try {
+            try (JsonGenerator generator = JsonSupport.newGenerator(Files.newOutputStream(tempFile), compact)) {
+              generator.copyCurrentStructure(parser);
+            }
+            OutputFiles.replaceIfChanged(tempFile, output);
+          } finally {
+            Files.deleteIfExists(tempFile);
+          }
+          return true;
+        }
+        parser.skipChildren();
+      }
+      return false;
+    }
+  }
+}
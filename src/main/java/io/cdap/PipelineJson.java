@@ -19,22 +19,50 @@ package io.cdap;
 import java.io.File;
 import java.io.IOException;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import org.apache.commons.io.FilenameUtils;
 import org.apache.maven.plugin.AbstractMojo;
 import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugins.annotations.Component;
 import org.apache.maven.plugins.annotations.Mojo;
 import org.apache.maven.plugins.annotations.Parameter;
-import org.codehaus.plexus.util.FileUtils;
-import org.json.JSONObject;
-import org.json.JSONTokener;
+import org.apache.maven.project.MavenProject;
+import org.apache.maven.project.MavenProjectHelper;
 
-@Mojo(name = "create-pipeline-json")
+@Mojo(name = "create-pipeline-json", threadSafe = true)
 public class PipelineJson extends AbstractMojo {
 
   //Location of exported pipeline.json
-  @Parameter(required = true)
+  @Parameter
   private String pipelineJsonFile;
 
+  /**
+   * Directory of exported pipelines, all extracted by a single execution instead of {@link #pipelineJsonFile},
+   * which must not be configured as well.
+   * Each pipeline is written as {@code <file name>-<version>.json}.
+   */
+  @Parameter
+  private String pipelineJsonDirectory;
+
+  /**
+   * Glob pattern, relative to {@link #pipelineJsonDirectory}, selecting the exported pipelines to extract.
+   */
+  @Parameter(defaultValue = "*.json")
+  private String pipelineJsonIncludes;
+
+  /**
+   * Number of pipelines extracted at the same time from {@link #pipelineJsonDirectory}. A value lower than one
+   * uses one thread per available processor.
+   */
+  @Parameter(defaultValue = "1")
+  private int parallelism;
+
   @Parameter(property = "buildDirectory", defaultValue = "${project.build.directory}")
   private String buildDirectory;
 
@@ -44,32 +72,233 @@ public class PipelineJson extends AbstractMojo {
   @Parameter(property = "version", defaultValue = "${project.version}")
   private String version;
 
+  /**
+   * Writes the pipeline configuration without any indentation.
+   */
+  @Parameter(property = "compactOutput", defaultValue = "true")
+  private boolean compactOutput;
+
+  /**
+   * Attaches the pipeline configuration extracted from {@link #pipelineJsonFile} to the project as a {@code json}
+   * artifact, so it is installed and deployed with the project, and restored by the Maven build cache when the goal
+   * is skipped. The configurations extracted from {@link #pipelineJsonDirectory} are each attached with the name of
+   * their exported pipeline, without its extension, as classifier.
+   */
+  @Parameter(defaultValue = "false")
+  private boolean attach;
+
+  /**
+   * Writes the timings, sizes and file counts of the goal to {@code cdap-maven-plugin/metrics/} in the build
+   * directory.
+   */
+  @Parameter(property = "writeMetrics", defaultValue = "false")
+  private boolean writeMetrics;
+
+  @Parameter(defaultValue = "${project}", readonly = true)
+  private MavenProject project;
+
+  @Component
+  private MavenProjectHelper projectHelper;
+
+  private GoalMetrics metrics;
+
   public void execute() throws MojoExecutionException {
+    metrics = new GoalMetrics("create-pipeline-json");
 
     // Pipeline Modules may not have the build dir created by the time this goal runs
     File outputDir = new File(buildDirectory);
     outputDir.mkdirs();
 
+    if (pipelineJsonDirectory != null && pipelineJsonFile != null) {
+      throw new MojoExecutionException(
+        "pipelineJsonFile and pipelineJsonDirectory cannot both be configured, use one execution for each"
+      );
+    }
+    if (pipelineJsonDirectory != null) {
+      extractAll(outputDir);
+      writeMetrics(outputDir);
+      return;
+    }
+    if (pipelineJsonFile == null) {
+      throw new MojoExecutionException("Either pipelineJsonFile or pipelineJsonDirectory must be configured");
+    }
+
     try {
       getLog().info("PATH : " + Paths.get(pipelineJsonFile));
-      JSONTokener jsonTokener = new JSONTokener(Files.newInputStream(Paths.get(pipelineJsonFile)));
-      JSONObject output = new JSONObject(jsonTokener);
-
-      if (!output.has("config")) {
+      File outputFile = new File(outputDir, artifactId + "-" + version + ".json");
+      long start = System.nanoTime();
+      if (!PipelineConfigExtractor.extractConfig(Paths.get(pipelineJsonFile), outputFile.toPath(), compactOutput)) {
         throw new MojoExecutionException("Incorrect PipelineJsonFile: expecting 'config' property");
       }
-      File outputFile = new File(outputDir, artifactId + "-" + version + ".json");
+      metrics.time(GoalMetrics.Phase.COPY, start);
+      metrics.read(Files.size(Paths.get(pipelineJsonFile)));
+      metrics.written(outputFile.length());
+      metrics.processed(1);
+      getLog().info("Successfully created: " + pipelineJsonFile);
+      if (attach) {
+        projectHelper.attachArtifact(project, "json", outputFile);
+      }
+      if (compactOutput) {
+        getLog().info(String.format("Compact output: %d bytes, exported pipeline was %d bytes", outputFile.length(),
+                                    Files.size(Paths.get(pipelineJsonFile))));
+      }
 
-      if (outputFile.exists()) {
-        outputFile.delete();
+    } catch (IOException e) {
+      throw new MojoExecutionException(e.getMessage(), e);
+    }
+    writeMetrics(outputDir);
+  }
+
+  private void writeMetrics(File buildDirectory) {
+    if (writeMetrics) {
+      try {
+        metrics.write(buildDirectory, artifactId, version);
+      } catch (IOException e) {
+        getLog().warn("Unable to write the metrics of the goal. " + e.getMessage());
       }
+    }
+  }
 
-      outputFile.createNewFile();
-      FileUtils.fileWrite(outputFile.getAbsolutePath(), output.get("config").toString());
-      getLog().info("Successfully created: " + pipelineJsonFile);
+  /**
+   * Extracts the configuration of every exported pipeline of {@link #pipelineJsonDirectory} matching
+   * {@link #pipelineJsonIncludes}, using up to {@link #parallelism} threads, and reports the outcome of each.
+   *
+   * @throws MojoExecutionException if the pipelines cannot be listed or any of them could not be extracted.
+   */
+  private void extractAll(File outputDir) throws MojoExecutionException {
+    Path directory = Paths.get(pipelineJsonDirectory);
+    if (!Files.isDirectory(directory)) {
+      throw new MojoExecutionException(
+        String.format("Pipeline directory '%s' does not exist or is not a directory", pipelineJsonDirectory)
+      );
+    }
 
+    long start = System.nanoTime();
+    List<Path> inputs;
+    try {
+      inputs = PipelineConfigExtractor.list(directory, pipelineJsonIncludes);
     } catch (IOException e) {
+      throw new MojoExecutionException(
+        String.format("Unable to list pipelines in '%s'. %s", pipelineJsonDirectory, e.getMessage()), e
+      );
+    }
+    metrics.time(GoalMetrics.Phase.SCAN, start);
+
+    Map<String, Path> outputs = new HashMap<>();
+    Map<String, Callable<Extraction>> tasks = new TreeMap<>();
+    for (Path input : inputs) {
+      String outputName = PipelineConfigExtractor.outputName(input, version);
+      Path previous = outputs.put(outputName, input);
+      if (previous != null) {
+        throw new MojoExecutionException(
+          String.format("Pipelines '%s' and '%s' would both be written to '%s'", previous, input, outputName)
+        );
+      }
+      Path output = new File(outputDir, outputName).toPath();
+      tasks.put(outputName, () -> extract(input, output));
+    }
+
+    getLog().info(repeat("-", 72));
+    getLog().info("CDAP Pipeline JSON");
+    getLog().info(repeat("-", 72));
+    getLog().info("Pipeline Directory   : " + pipelineJsonDirectory);
+    getLog().info("Includes             : " + pipelineJsonIncludes);
+    getLog().info("Build Directory      : " + buildDirectory);
+    getLog().info(repeat("-", 72));
+    if (tasks.isEmpty()) {
+      getLog().warn("No exported pipeline found");
+      return;
+    }
+
+    Map<String, Extraction> results;
+    try {
+      results = TaskRunner.runAll(tasks, parallelism, "cdap-pipeline-json");
+    } catch (Exception e) {
       throw new MojoExecutionException(e.getMessage(), e);
     }
+
+    int failed = 0;
+    long inputBytes = 0;
+    long outputBytes = 0;
+    for (Map.Entry<String, Extraction> result : results.entrySet()) {
+      Extraction extraction = result.getValue();
+      String inputName = directory.relativize(extraction.input).toString();
+      if (extraction.error != null) {
+        failed++;
+        getLog().error(String.format("%s : %s", inputName, extraction.error));
+        continue;
+      }
+      inputBytes += extraction.inputSize;
+      outputBytes += extraction.outputSize;
+      getLog().info(String.format("%s -> %s : %d -> %d bytes", inputName, result.getKey(),
+                                  extraction.inputSize, extraction.outputSize));
+    }
+    getLog().info(repeat("-", 72));
+    getLog().info(String.format("Pipelines            : %d extracted, %d failed", results.size() - failed, failed));
+    getLog().info(String.format("Size                 : %d -> %d bytes", inputBytes, outputBytes));
+    getLog().info(repeat("-", 72));
+
+    if (failed > 0) {
+      throw new MojoExecutionException(
+        String.format("Unable to extract %d of %d pipelines from '%s'", failed, results.size(), pipelineJsonDirectory)
+      );
+    }
+    if (attach) {
+      for (Map.Entry<String, Extraction> result : results.entrySet()) {
+        String classifier = FilenameUtils.removeExtension(result.getValue().input.getFileName().toString());
+        projectHelper.attachArtifact(project, "json", classifier, new File(outputDir, result.getKey()));
+      }
+    }
+  }
+
+  /**
+   * Extracts the configuration of one exported pipeline, reporting failures in the returned result.
+   */
+  private Extraction extract(Path input, Path output) {
+    try {
+      long start = System.nanoTime();
+      if (!PipelineConfigExtractor.extractConfig(input, output, compactOutput)) {
+        metrics.skipped(1);
+        return new Extraction(input, 0, 0, "Incorrect PipelineJsonFile: expecting 'config' property");
+      }
+      metrics.time(GoalMetrics.Phase.COPY, start);
+      Extraction extraction = new Extraction(input, Files.size(input), Files.size(output), null);
+      metrics.read(extraction.inputSize);
+      metrics.written(extraction.outputSize);
+      metrics.processed(1);
+      return extraction;
+    } catch (IOException e) {
+      return new Extraction(input, 0, 0, e.getMessage());
+    }
+  }
+
+  /**
+   * Repeats text for specified number of times
+   */
+  private String repeat(String text, int numRepetitions) {
+    StringBuilder builder = new StringBuilder();
+    for (int i = 0; i < numRepetitions; i++) {
+      builder.append(text);
+    }
+
+    return builder.toString();
+  }
+
+  /**
+   * Outcome of the extraction of one exported pipeline.
+   */
+  private static final class Extraction {
+
+    private final Path input;
+    private final long inputSize;
+    private final long outputSize;
+    private final String error;
+
+    Extraction(Path input, long inputSize, long outputSize, String error) {
+      this.input = input;
+      this.inputSize = inputSize;
+      this.outputSize = outputSize;
+      this.error = error;
+    }
   }
 }
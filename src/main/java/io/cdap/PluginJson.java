@@ -16,35 +16,30 @@
 
 package io.cdap;
 
-import org.apache.commons.codec.binary.Base64OutputStream;
-import org.apache.commons.io.IOUtils;
 import org.apache.maven.plugin.AbstractMojo;
 import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugins.annotations.Component;
 import org.apache.maven.plugins.annotations.Mojo;
 import org.apache.maven.plugins.annotations.Parameter;
 import org.apache.maven.project.MavenProject;
-import org.codehaus.plexus.util.FileUtils;
-import org.json.JSONArray;
-import org.json.JSONException;
-import org.json.JSONObject;
-import org.json.JSONTokener;
+import org.apache.maven.project.MavenProjectHelper;
 
-import java.io.ByteArrayOutputStream;
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileNotFoundException;
 import java.io.IOException;
-import java.net.URLConnection;
-import java.util.HashMap;
-import java.util.Map;
-import java.util.TreeMap;
+import java.nio.file.Paths;
+import java.util.Arrays;
 
 /**
- * This mojo is used for creating the CDAP Plugin JSON file.
+ * This mojo is used for creating the CDAP Plugin JSON file, with the {@link PluginJsonGenerator}.
  */
-@Mojo(name = "create-plugin-json")
+@Mojo(name = "create-plugin-json", threadSafe = true)
 public class PluginJson extends AbstractMojo {
 
+  /**
+   * Manifest of the inputs used for the last generated plugin JSON, relative to the build directory.
+   */
+  static final String MANIFEST_FILE = PluginJsonGenerator.MANIFEST_FILE;
+
   @Parameter(alias = "cdap-artifacts", required = true)
   private String[] cdapArtifacts;
 
@@ -57,294 +52,177 @@ public class PluginJson extends AbstractMojo {
   @Parameter(defaultValue = "icons")
   private String iconsDirectory;
 
-  @Parameter(defaultValue = "${project}", readonly = true, required = true)
-  private MavenProject project;
-
   /**
-   * The base project directory.
+   * Skips regeneration when the widgets, docs and icons and the plugin configuration did not change since
+   * the previous build.
    */
-  private File baseDirectory;
+  @Parameter(defaultValue = "false")
+  private boolean incremental;
 
   /**
-   * Directory where plugin widget(s) are stored.
+   * Number of threads reading, parsing and encoding widgets, docs and icons. A value lower than one uses one
+   * thread per available processor.
    */
-  private File widgetDirectory;
+  @Parameter(defaultValue = "1")
+  private int parallelism;
 
   /**
-   * Directory where plugin icon(s) are stored
+   * Reuses icon data URIs encoded by previous builds from {@link #iconCacheDirectory}.
    */
-  private File iconDirectory;
+  @Parameter(defaultValue = "false")
+  private boolean cacheIcons;
 
   /**
-   * Directory where plugin documentation(s) is stored.
+   * Directory of the icon cache, shared by every module and build using it.
    */
-  private File docDirectory;
+  @Parameter(defaultValue = "${settings.localRepository}/.cache/cdap-maven-plugin/icons")
+  private String iconCacheDirectory;
 
   /**
-   * Target directory where all the build artifacts are stored.
+   * Size in megabytes above which the least recently used icons are removed from the cache.
    */
-  private File buildDirectory;
+  @Parameter(defaultValue = "64")
+  private long iconCacheMaxSizeMb;
 
   /**
-   * Project artifact Id.
+   * Minifies SVG icons and losslessly recompresses PNG icons before inlining them.
    */
-  private String artifactId;
+  @Parameter(defaultValue = "false")
+  private boolean optimizeIcons;
 
   /**
-   * Project group Id.
+   * Maximum size in bytes of an inlined icon, after optimization. 0 means no limit.
    */
-  private String groupId;
+  @Parameter(defaultValue = "0")
+  private long maxIconSize;
 
   /**
-   * Version of the project.
+   * Fails the build, instead of warning, when an icon is larger than {@link #maxIconSize}.
    */
-  private String version;
-
-  public void execute() throws MojoExecutionException {
-    // Read in all the configurations.
-    initialize();
-
-    // Print header.
-    printHeader();
-
-    // We iterate through widgets and documentation directories creating the output configurations.
-    JSONObject output = new JSONObject();
-    JSONObject properties = new JSONObject();
-    for (Map.Entry<String, String> entry : getDocumentation().entrySet()) {
-      properties.put(entry.getKey(), entry.getValue());
-    }
-    for (Map.Entry<String, String> entry : getWidgets().entrySet()) {
-      properties.put(entry.getKey(), entry.getValue());
-    }
-    output.put("properties", properties);
-    JSONArray artifacts = new JSONArray();
-    for (String artifact : cdapArtifacts) {
-      artifacts.put(artifact);
-    }
-    output.put("parents", artifacts);
-
-    try {
-      File outputFile = new File(buildDirectory, artifactId + "-" + version + ".json");
-      if (outputFile.exists()) {
-        outputFile.delete();
-      }
-      outputFile.createNewFile();
-      FileUtils.fileWrite(outputFile.getAbsolutePath(), output.toString(2));
-      getLog().info("Successfully created  : " + project.getArtifactId() + "-" +
-                      project.getVersion() + ".json");
-    } catch (IOException e) {
-      throw new MojoExecutionException(e.getMessage());
-    }
-
-    printFooter();
-  }
-
+  @Parameter(defaultValue = "false")
+  private boolean failOnLargeIcon;
 
   /**
-   * Inspects all the Widget files to generate properties to be included in plugin JSON.
-   *
-   * @return Map of property and correspoinding widget JSON.
-   * @throws MojoExecutionException thrown in case of any execution error.
+   * Writes the plugin JSON, and the widget JSON embedded in it, without any indentation.
    */
-  private Map<String, String> getWidgets() throws MojoExecutionException {
-    Map<String, String> properties = new TreeMap<>();
-    if (widgetDirectory == null) {
-      return properties;
-    }
-    File[] files = widgetDirectory.listFiles();
-    if (files == null) {
-      return properties;
-    }
-
-    Map<String, File> iconFiles = new HashMap<>();
-    if (iconDirectory != null && iconDirectory.exists()) {
-      iconFiles = getFileNameMap(iconDirectory.listFiles());
-    }
-
-    // Iterate through all widget files.
-    for (File file : files) {
-
-      // If it's not a file, skip the file.
-      if (!file.isFile()) {
-        getLog().warn(
-          String.format("Widget path '%s' is not a file. Skipping", file.getPath())
-        );
-        continue;
-      }
-
-      String ext = FileUtils.extension(file.getName());
-      if (!ext.equalsIgnoreCase("json")) {
-        getLog().warn(
-          String.format("Skipping non JSON file '%s'", file.getName())
-        );
-        continue;
-      }
-
-      String name = file.getName();
-      try {
-        JSONTokener tokener = new JSONTokener(FileUtils.fileRead(file.getAbsoluteFile(), "UTF-8"));
-        JSONObject object = new JSONObject(tokener);
-
-        String fileName = FileUtils.removeExtension(name);
-        addIcon(object, iconFiles, fileName);
-        properties.put(String.format("%s.%s", "widgets", fileName), object.toString(2));
-      } catch (FileNotFoundException e) {
-        throw new MojoExecutionException(
-          String.format("Unable to access Widget file '%s' or not found. %s", file.getName(), e.getMessage())
-        );
-      } catch (JSONException e) {
-        throw new MojoExecutionException(
-          String.format("Widget file '%s' has incorrect JSON. %s", file.getName(), e.getMessage())
-        );
-      } catch (IOException e) {
-        throw new MojoExecutionException(
-          String.format("Issue reading Widget file '%s'. %s", file.getName(), e.getMessage())
-        );
-      }
-    }
-    return properties;
-  }
+  @Parameter(property = "compactOutput", defaultValue = "false")
+  private boolean compactOutput;
 
   /**
-   * Inspects all the Icon files to add properties to related widget.
+   * What to do with widgets that do not match the widget schema: {@code none} skips the validation, {@code warn}
+   * logs the errors and {@code fail} fails the build.
    */
-  private void addIcon(JSONObject widgetsJson, Map<String, File> iconFiles, String fileName) throws IOException {
-    if (iconFiles.containsKey(fileName)) {
-      JSONObject iconObject = new JSONObject();
-      iconObject.put("type", "inline");
-      Map<String, String> arguments = new TreeMap<>();
-      File file = iconFiles.get(fileName);
-      String mediaType = URLConnection.guessContentTypeFromName(file.getName());
-      arguments.put("data", getDataURISchemaAsString(file, mediaType));
-      iconObject.put("arguments", arguments);
-      widgetsJson.put("icon", iconObject);
-    }
-  }
+  @Parameter(defaultValue = "warn")
+  private String widgetValidation;
 
   /**
-   * Returns the Data URI Scheme of File
+   * JSON schema widgets are validated against, instead of the schema bundled with the plugin.
    */
-  private String getDataURISchemaAsString(File file, String mediaType) throws IOException {
-    try (FileInputStream inStream = new FileInputStream(file);
-         ByteArrayOutputStream outStream = new ByteArrayOutputStream();
-         Base64OutputStream outStreamBase64 = new Base64OutputStream(outStream)) {
-      IOUtils.copy(inStream, outStreamBase64);
-      outStreamBase64.flush();
-      return "data:" + mediaType + ";base64," + outStream.toString();
-    }
-  }
+  @Parameter
+  private File widgetSchema;
 
   /**
-   * Remove extensions from files in directory and return a map of names to files.
+   * Writes the timings, sizes and file counts of the goal to {@code cdap-maven-plugin/metrics/} in the build
+   * directory.
    */
-  private Map<String, File> getFileNameMap(File[] listFiles) {
-    Map<String, File> names = new HashMap<>();
-
-    if (listFiles != null) {
-      for (File file : listFiles) {
-        String fileName = FileUtils.removeExtension(file.getName());
-        if (names.containsKey(fileName)) {
-          getLog().warn(String.format("'%s' is being ignored. '%s' will be used.", file.getName(),
-                                      names.get(fileName).getName()));
-        } else {
-          names.put(fileName, file);
-        }
-      }
-    }
-
-    return names;
-  }
+  @Parameter(property = "writeMetrics", defaultValue = "false")
+  private boolean writeMetrics;
 
   /**
-   * Inspects all the Documentation files to generate properties to be included in plugin JSON.
-   *
-   * @return Map of property and correspoinding Markdown documentation.
-   * @throws MojoExecutionException thrown in case of any execution error.
+   * Attaches the plugin JSON to the project as a {@code json} artifact, so it is installed and deployed with the
+   * jar, and restored by the Maven build cache when the goal is skipped.
    */
-  private Map<String, String> getDocumentation() throws MojoExecutionException {
-    Map<String, String> properties = new TreeMap<>();
-    if (docDirectory == null) {
-      return properties;
-    }
-    File[] files = docDirectory.listFiles();
-    if (files == null) {
-      return properties;
-    }
+  @Parameter(defaultValue = "false")
+  private boolean attach;
 
-    // Iterate through all markdown files.
-    for (File file : files) {
-      if (!file.isFile()) {
-        getLog().warn(
-          String.format("Documentation path '%s' is not a file. Skipping", file.getPath())
-        );
-        continue;
-      }
+  @Parameter(defaultValue = "${project}", readonly = true, required = true)
+  private MavenProject project;
 
-      String ext = FileUtils.extension(file.getName());
-      if (!ext.equalsIgnoreCase("md")) {
-        getLog().warn(
-          String.format("Skipping non JSON file '%s'", file.getName())
-        );
-        continue;
-      }
+  @Component
+  private MavenProjectHelper projectHelper;
 
-      String name = file.getName();
-      try {
-        properties.put(String.format("%s.%s", "doc", FileUtils.removeExtension(name)),
-                                     FileUtils.fileRead(file.getAbsoluteFile(), "UTF-8"));
-      } catch (FileNotFoundException e) {
-        throw new MojoExecutionException(
-          String.format("Unable to access Documentation file '%s' or not found. %s",
-                        file.getName(), e.getMessage())
-        );
-      } catch (IOException e) {
-        throw new MojoExecutionException(
-          String.format("Issue reading Documentation file '%s'. %s", file.getName(), e.getMessage())
-        );
+  @Parameter(defaultValue = "${plugin.version}", readonly = true)
+  private String pluginVersion;
+
+  public void execute() throws MojoExecutionException {
+    GoalMetrics metrics = new GoalMetrics("create-plugin-json");
+    File buildDirectory = new File(project.getBuild().getDirectory());
+    PluginJsonGenerator generator = newGenerator(metrics);
+
+    File outputFile;
+    try {
+      if (generator.isUpToDate()) {
+        getLog().info("Plugin JSON is up to date : " + generator.getOutputFile().getName());
+        attach(generator.getOutputFile());
+        writeMetrics(metrics, buildDirectory);
+        return;
       }
+
+      // Print header.
+      printHeader();
+      outputFile = generator.generate();
+    } catch (GenerationException e) {
+      throw new MojoExecutionException(e.getMessage(), e);
     }
-    return properties;
-  }
 
-  /**
-   * Initializes this Mojo, extracts all necessary paths and configurations.
-   */
-  private void initialize() {
-    groupId = project.getGroupId();
-    artifactId = project.getArtifactId();
-    version = project.getVersion();
-    baseDirectory = project.getBasedir();
-    buildDirectory = new File(project.getBuild().getDirectory());
-    widgetDirectory = getAndValidate(baseDirectory, widgetsDirectory);
-    iconDirectory = getAndValidate(baseDirectory, iconsDirectory);
-    docDirectory = getAndValidate(baseDirectory, docsDirectory);
+    attach(outputFile);
+    writeMetrics(metrics, buildDirectory);
+    printFooter();
   }
 
   /**
-   * Validate directory based on project
+   * Returns a generator configured with the parameters of the goal.
    */
-  private File getAndValidate(File baseDirectory, String directoryPath) {
-    File directory;
-    if (directoryPath.startsWith("/")) {
-      directory = new File(directoryPath);
-    } else {
-      directory = new File(baseDirectory, directoryPath);
+  PluginJsonGenerator newGenerator(GoalMetrics metrics) throws MojoExecutionException {
+    File buildDirectory = new File(project.getBuild().getDirectory());
+    PluginJsonGenerator generator;
+    try {
+      generator = new PluginJsonGenerator(project.getArtifactId(), project.getVersion(), project.getBasedir(),
+                                          buildDirectory, Arrays.asList(cdapArtifacts))
+        .setWidgetsDirectory(widgetsDirectory)
+        .setDocsDirectory(docsDirectory)
+        .setIconsDirectory(iconsDirectory)
+        .setIncremental(incremental, pluginVersion)
+        .setParallelism(parallelism)
+        .setOptimizeIcons(optimizeIcons)
+        .setMaxIconSize(maxIconSize, failOnLargeIcon)
+        .setCompactOutput(compactOutput)
+        .setWidgetValidation(widgetValidation, widgetSchema)
+        .setLog(new MojoLog(getLog()))
+        .setMetrics(metrics);
+    } catch (IllegalArgumentException e) {
+      throw new MojoExecutionException(e.getMessage(), e);
     }
+    if (cacheIcons) {
+      generator.setIconCache(Paths.get(iconCacheDirectory), iconCacheMaxSizeMb * 1024 * 1024);
+    }
+    return generator;
+  }
 
-    if (!directory.exists()) {
-      return null;
+  MavenProject getProject() {
+    return project;
+  }
+
+  private void attach(File outputFile) {
+    if (attach) {
+      projectHelper.attachArtifact(project, "json", outputFile);
     }
+  }
 
-    if (!directory.isDirectory()) {
-      return null;
+  private void writeMetrics(GoalMetrics metrics, File buildDirectory) {
+    if (writeMetrics) {
+      try {
+        metrics.write(buildDirectory, project.getArtifactId(), project.getVersion());
+      } catch (IOException e) {
+        getLog().warn("Unable to write the metrics of the goal. " + e.getMessage());
+      }
     }
-    return directory;
   }
 
   /**
    * Prints the header for this mojo with all the information it needs to execute correctly.
    */
-  private void printHeader() {
+  void printHeader() {
     getLog().info(repeat("-", 72));
     getLog().info("CDAP Plugin JSON");
     getLog().info(repeat("-", 72));
@@ -357,6 +235,9 @@ public class PluginJson extends AbstractMojo {
     getLog().info("Widgets Directory    : " + widgetsDirectory);
     getLog().info("Icons Directory      : " + iconsDirectory);
     getLog().info("Docs Directory       : " + docsDirectory);
+    if (cacheIcons) {
+      getLog().info("Icon Cache Directory : " + iconCacheDirectory);
+    }
     getLog().info("CDAP Artifacts");
     for (String artifact : cdapArtifacts) {
       getLog().info(" " + artifact);
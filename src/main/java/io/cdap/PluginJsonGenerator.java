@@ -0,0 +1,839 @@
+/*
+ * Copyright © 2022 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+import org.apache.commons.io.FilenameUtils;
+
+/**
+ * Generates the CDAP plugin JSON of a plugin project: the widgets, with their icons inlined, and the documentation
+ * of every plugin, and the parent artifacts the plugins extend.
+ *
+ * The generator does not depend on Maven. It is configured with its setters, all optional but for the
+ * constructor arguments, then run with {@link #generate()}. An instance generates a single plugin JSON.
+ */
+public final class PluginJsonGenerator {
+
+  /**
+   * Manifest of the inputs used for the last generated plugin JSON, relative to the output directory.
+   */
+  public static final String MANIFEST_FILE = "cdap-maven-plugin/create-plugin-json.inputs";
+
+  private final String artifactId;
+  private final String version;
+  private final File baseDirectory;
+  private final File outputDirectory;
+  private final List<String> parents;
+
+  private String widgetsDirectory = "widgets";
+  private String docsDirectory = "docs";
+  private String iconsDirectory = "icons";
+  private boolean incremental;
+  private String generatorVersion;
+  private int parallelism = 1;
+  private IconCache iconCache;
+  private boolean optimizeIcons;
+  private long maxIconSize;
+  private boolean failOnLargeIcon;
+  private boolean compactOutput;
+  private WidgetValidator.Mode widgetValidationMode = WidgetValidator.Mode.WARN;
+  private File widgetSchema;
+  private GenerationLog log = GenerationLog.NONE;
+  private GoalMetrics metrics = new GoalMetrics("create-plugin-json");
+
+  private boolean initialized;
+  private File widgetDirectory;
+  private File iconDirectory;
+  private File docDirectory;
+  private WidgetValidator widgetValidator;
+  private InputManifest manifest;
+
+  /**
+   * Validation errors of the widgets that do not match the schema, keyed by file name.
+   */
+  private final Map<String, List<String>> invalidWidgets = new ConcurrentSkipListMap<>();
+
+  /**
+   * Bytes the compact widgets would take in addition if they were pretty-printed, counted as they are written.
+   */
+  private final AtomicLong widgetIndentation = new AtomicLong();
+
+  /**
+   * @param artifactId artifact of the plugins, the plugin JSON is named after it and its version
+   * @param version version of the artifact
+   * @param baseDirectory directory the widgets, docs and icons directories are relative to
+   * @param outputDirectory directory the plugin JSON is written to
+   * @param parents parent artifacts of the plugins, such as {@code system:cdap-data-pipeline[6.0.0,7.0.0)}
+   */
+  public PluginJsonGenerator(String artifactId, String version, File baseDirectory, File outputDirectory,
+                             List<String> parents) {
+    this.artifactId = artifactId;
+    this.version = version;
+    this.baseDirectory = baseDirectory;
+    this.outputDirectory = outputDirectory;
+    this.parents = new ArrayList<>(parents);
+  }
+
+  /**
+   * Sets the widgets directory, relative to the base directory unless absolute. Defaults to {@code widgets}.
+   */
+  public PluginJsonGenerator setWidgetsDirectory(String widgetsDirectory) {
+    this.widgetsDirectory = widgetsDirectory;
+    return this;
+  }
+
+  /**
+   * Sets the docs directory, relative to the base directory unless absolute. Defaults to {@code docs}.
+   */
+  public PluginJsonGenerator setDocsDirectory(String docsDirectory) {
+    this.docsDirectory = docsDirectory;
+    return this;
+  }
+
+  /**
+   * Sets the icons directory, relative to the base directory unless absolute. Defaults to {@code icons}.
+   */
+  public PluginJsonGenerator setIconsDirectory(String iconsDirectory) {
+    this.iconsDirectory = iconsDirectory;
+    return this;
+  }
+
+  /**
+   * Skips the generation when the inputs and the configuration did not change since the previous generation,
+   * according to the manifest kept in {@link #MANIFEST_FILE}.
+   *
+   * @param generatorVersion version of the generator, a new version regenerates the plugin JSON
+   */
+  public PluginJsonGenerator setIncremental(boolean incremental, String generatorVersion) {
+    this.incremental = incremental;
+    this.generatorVersion = generatorVersion;
+    return this;
+  }
+
+  /**
+   * Sets the number of threads reading, parsing and encoding widgets, docs and icons. A value lower than one uses
+   * one thread per available processor. Defaults to one.
+   */
+  public PluginJsonGenerator setParallelism(int parallelism) {
+    this.parallelism = parallelism;
+    return this;
+  }
+
+  /**
+   * Reuses icon data URIs encoded by previous generations from a cache directory, removing the least recently used
+   * icons above the given size.
+   */
+  public PluginJsonGenerator setIconCache(Path directory, long maxSizeBytes) {
+    this.iconCache = new IconCache(directory, maxSizeBytes);
+    return this;
+  }
+
+  /**
+   * Minifies SVG icons and losslessly recompresses PNG icons before inlining them.
+   */
+  public PluginJsonGenerator setOptimizeIcons(boolean optimizeIcons) {
+    this.optimizeIcons = optimizeIcons;
+    return this;
+  }
+
+  /**
+   * Sets the maximum size in bytes of an inlined icon, after optimization, 0 for no limit, and whether larger icons
+   * fail the generation or are only reported.
+   */
+  public PluginJsonGenerator setMaxIconSize(long maxIconSize, boolean failOnLargeIcon) {
+    this.maxIconSize = maxIconSize;
+    this.failOnLargeIcon = failOnLargeIcon;
+    return this;
+  }
+
+  /**
+   * Writes the plugin JSON, and the widget JSON embedded in it, without any indentation.
+   */
+  public PluginJsonGenerator setCompactOutput(boolean compactOutput) {
+    this.compactOutput = compactOutput;
+    return this;
+  }
+
+  /**
+   * Sets what to do with widgets that do not match the widget schema, {@code none}, {@code warn} or {@code fail},
+   * and the schema, null for the bundled one.
+   *
+   * @throws IllegalArgumentException if the validation is not one of the above
+   */
+  public PluginJsonGenerator setWidgetValidation(String widgetValidation, File widgetSchema) {
+    this.widgetValidationMode = WidgetValidator.Mode.of(widgetValidation);
+    this.widgetSchema = widgetSchema;
+    return this;
+  }
+
+  public PluginJsonGenerator setLog(GenerationLog log) {
+    this.log = log;
+    return this;
+  }
+
+  PluginJsonGenerator setMetrics(GoalMetrics metrics) {
+    this.metrics = metrics;
+    return this;
+  }
+
+  /**
+   * Returns the plugin JSON file.
+   */
+  public File getOutputFile() {
+    return new File(outputDirectory, artifactId + "-" + version + ".json");
+  }
+
+  /**
+   * Returns true if the generation is incremental and the plugin JSON is up to date.
+   *
+   * @throws GenerationException if the inputs cannot be read
+   */
+  public boolean isUpToDate() throws GenerationException {
+    if (!incremental) {
+      return false;
+    }
+    initialize();
+    File outputFile = getOutputFile();
+    try {
+      long start = System.nanoTime();
+      manifest = getInputManifest();
+      boolean upToDate = outputFile.isFile() && manifest.matches(new File(outputDirectory, MANIFEST_FILE));
+      metrics.time(GoalMetrics.Phase.SCAN, start);
+      return upToDate;
+    } catch (IOException e) {
+      throw new GenerationException(
+        String.format("Unable to check if '%s' is up to date. %s", outputFile.getName(), e.getMessage()), e
+      );
+    }
+  }
+
+  /**
+   * Generates the plugin JSON, writing the widgets and docs as soon as they are read, and only replacing an
+   * existing plugin JSON if its content changed.
+   *
+   * @return the plugin JSON file
+   * @throws GenerationException if an input cannot be read or is invalid, or the plugin JSON cannot be written
+   */
+  public File generate() throws GenerationException {
+    initialize();
+    File outputFile = getOutputFile();
+    File manifestFile = new File(outputDirectory, MANIFEST_FILE);
+    try {
+      if (incremental && manifest == null) {
+        manifest = getInputManifest();
+      }
+      // The manifest is only valid for the output it was written with.
+      Files.deleteIfExists(manifestFile.toPath());
+    } catch (IOException e) {
+      throw new GenerationException(
+        String.format("Unable to check if '%s' is up to date. %s", outputFile.getName(), e.getMessage()), e
+      );
+    }
+
+    try {
+      widgetIndentation.set(0);
+      writeOutput(this::writeProperties);
+      if (iconCache != null) {
+        iconCache.evict();
+      }
+      if (manifest != null) {
+        manifest.write(manifestFile);
+      }
+      log.info("Successfully created  : " + outputFile.getName());
+      if (compactOutput) {
+        long saved;
+        try (Reader reader = Files.newBufferedReader(outputFile.toPath(), StandardCharsets.UTF_8)) {
+          saved = JsonSupport.prettySizeIncrease(reader, 1) + widgetIndentation.get();
+        }
+        log.info(String.format("Compact output       : %d bytes, %d bytes pretty-printed, %d bytes saved",
+                               outputFile.length(), outputFile.length() + saved, saved));
+      }
+    } catch (IOException e) {
+      throw new GenerationException(e.getMessage(), e);
+    }
+    return outputFile;
+  }
+
+  /**
+   * Reads all the widgets, with their icons, and docs, using up to {@link #parallelism} threads.
+   *
+   * @return the properties of the plugin JSON, sorted by name
+   */
+  SortedMap<String, String> readProperties() throws GenerationException {
+    initialize();
+    Map<String, Callable<String>> tasks = new TreeMap<>();
+    addDocumentation(tasks);
+    addWidgets(tasks);
+    try {
+      SortedMap<String, String> properties = new TreeMap<>(TaskRunner.runAll(tasks, parallelism, "cdap-plugin-json"));
+      if (iconCache != null) {
+        iconCache.evict();
+      }
+      return properties;
+    } catch (GenerationException e) {
+      throw e;
+    } catch (Exception e) {
+      throw new GenerationException(e.getMessage(), e);
+    }
+  }
+
+  /**
+   * Returns the name of the property generated from an input file: the widget of a widget or icon file, the doc
+   * of a doc file, null for any other file.
+   */
+  String getPropertyName(Path file) throws GenerationException {
+    initialize();
+    Path directory = file.toAbsolutePath().normalize().getParent();
+    String name = FilenameUtils.removeExtension(file.getFileName().toString());
+    String ext = FilenameUtils.getExtension(file.getFileName().toString());
+    if (isSameDirectory(directory, widgetDirectory) && ext.equalsIgnoreCase("json")) {
+      return "widgets." + name;
+    }
+    if (isSameDirectory(directory, iconDirectory)) {
+      return "widgets." + name;
+    }
+    if (isSameDirectory(directory, docDirectory) && ext.equalsIgnoreCase("md")) {
+      return "doc." + name;
+    }
+    return null;
+  }
+
+  /**
+   * Returns the widgets, docs and icons directories that exist.
+   */
+  List<File> getInputDirectories() throws GenerationException {
+    initialize();
+    List<File> directories = new ArrayList<>();
+    for (File directory : new File[] {widgetDirectory, docDirectory, iconDirectory}) {
+      if (directory != null) {
+        directories.add(directory);
+      }
+    }
+    return directories;
+  }
+
+  /**
+   * Reads the current value of one property, as {@link #readProperties()} would.
+   *
+   * @return the value, or null if the file it is generated from does not exist
+   */
+  String readProperty(String propertyName) throws GenerationException {
+    initialize();
+    if (propertyName.startsWith("widgets.")) {
+      String name = propertyName.substring("widgets.".length());
+      invalidWidgets.keySet().removeIf(fileName -> FilenameUtils.removeExtension(fileName).equals(name));
+      File file = findFile(widgetDirectory, name, "json");
+      if (file == null) {
+        return null;
+      }
+      Map<String, File> iconFiles = new HashMap<>();
+      if (iconDirectory != null && iconDirectory.exists()) {
+        iconFiles = getFileNameMap(iconDirectory.listFiles());
+      }
+      return getWidget(file, iconFiles, name);
+    }
+    if (propertyName.startsWith("doc.")) {
+      File file = findFile(docDirectory, propertyName.substring("doc.".length()), "md");
+      return file == null ? null : getDocumentation(file);
+    }
+    return null;
+  }
+
+  /**
+   * Writes the plugin JSON with the given properties, only replacing an existing plugin JSON if its content
+   * changed.
+   */
+  File write(SortedMap<String, String> properties) throws GenerationException {
+    initialize();
+    try {
+      // The manifest is only valid for the output it was written with.
+      Files.deleteIfExists(new File(outputDirectory, MANIFEST_FILE).toPath());
+      writeOutput(generator -> {
+        for (Map.Entry<String, String> property : properties.entrySet()) {
+          generator.writeStringField(property.getKey(), property.getValue());
+        }
+      });
+    } catch (IOException e) {
+      throw new GenerationException(e.getMessage(), e);
+    }
+    return getOutputFile();
+  }
+
+  /**
+   * Writes the plugin JSON under a temporary name, then replaces the output with it if its content changed.
+   */
+  private void writeOutput(PropertiesWriter propertiesWriter) throws GenerationException, IOException {
+    outputDirectory.mkdirs();
+    Path outputPath = getOutputFile().toPath();
+    Path tempPath = OutputFiles.tempFile(outputPath);
+    try {
+      try (OutputStream outStream = Files.newOutputStream(tempPath);
+           JsonGenerator generator = JsonSupport.newGenerator(outStream, compactOutput)) {
+        generator.writeStartObject();
+        generator.writeObjectFieldStart("properties");
+        propertiesWriter.write(generator);
+        generator.writeEndObject();
+        reportInvalidWidgets();
+        generator.writeArrayFieldStart("parents");
+        for (String parent : parents) {
+          generator.writeString(parent);
+        }
+        generator.writeEndArray();
+        generator.writeEndObject();
+      }
+      long start = System.nanoTime();
+      OutputFiles.replaceIfChanged(tempPath, outputPath);
+      metrics.time(GoalMetrics.Phase.WRITE, start);
+      metrics.written(Files.size(outputPath));
+    } finally {
+      try {
+        Files.deleteIfExists(tempPath);
+      } catch (IOException e) {
+        log.warn("Unable to delete " + tempPath + ". " + e.getMessage());
+      }
+    }
+  }
+
+  /**
+   * Writes the properties of the plugin JSON.
+   */
+  private interface PropertiesWriter {
+    void write(JsonGenerator generator) throws GenerationException, IOException;
+  }
+
+  /**
+   * Resolves the input directories and loads the widget schema, once.
+   */
+  private void initialize() throws GenerationException {
+    if (initialized) {
+      return;
+    }
+    widgetDirectory = getAndValidate(baseDirectory, widgetsDirectory);
+    iconDirectory = getAndValidate(baseDirectory, iconsDirectory);
+    docDirectory = getAndValidate(baseDirectory, docsDirectory);
+    if (widgetValidationMode != WidgetValidator.Mode.NONE) {
+      try {
+        widgetValidator = WidgetValidator.of(widgetSchema);
+      } catch (IOException e) {
+        throw new GenerationException(
+          String.format("Unable to read widget schema '%s'. %s", widgetSchema, e.getMessage()), e
+        );
+      }
+    }
+    initialized = true;
+  }
+
+  /**
+   * Builds the manifest of everything the generated plugin JSON depends on.
+   */
+  private InputManifest getInputManifest() throws IOException {
+    InputManifest manifest = new InputManifest();
+    manifest.put("pluginVersion", generatorVersion);
+    manifest.put("cdapArtifacts", parents.toArray(new String[0]));
+    manifest.put("optimizeIcons", String.valueOf(optimizeIcons));
+    manifest.put("compactOutput", String.valueOf(compactOutput));
+    manifest.put("maxIconSize", String.valueOf(maxIconSize));
+    manifest.put("failOnLargeIcon", String.valueOf(failOnLargeIcon));
+    manifest.put("widgetValidation", widgetValidationMode.name().toLowerCase(Locale.ROOT));
+    if (widgetSchema != null) {
+      manifest.put("widgetSchema", new String(Files.readAllBytes(widgetSchema.toPath()), StandardCharsets.UTF_8));
+    }
+    manifest.putDirectory("widgets", widgetDirectory);
+    manifest.putDirectory("docs", docDirectory);
+    manifest.putDirectory("icons", iconDirectory);
+    return manifest;
+  }
+
+  /**
+   * Reads all the Documentation and Widget files, using up to {@link #parallelism} threads, and writes them as
+   * properties sorted by name.
+   *
+   * @throws GenerationException thrown in case of any execution error.
+   * @throws IOException thrown if the properties cannot be written.
+   */
+  private void writeProperties(JsonGenerator generator) throws GenerationException, IOException {
+    long start = System.nanoTime();
+    Map<String, Callable<String>> tasks = new TreeMap<>();
+    addDocumentation(tasks);
+    addWidgets(tasks);
+    metrics.time(GoalMetrics.Phase.SCAN, start);
+    try {
+      TaskRunner.forEachOrdered(tasks, parallelism, "cdap-plugin-json", (name, value) -> {
+        long writeStart = System.nanoTime();
+        generator.writeStringField(name, value);
+        metrics.time(GoalMetrics.Phase.WRITE, writeStart);
+      });
+    } catch (GenerationException | IOException e) {
+      throw e;
+    } catch (Exception e) {
+      throw new GenerationException(e.getMessage(), e);
+    }
+  }
+
+  /**
+   * Inspects all the Widget files to add the tasks generating properties to be included in plugin JSON.
+   *
+   * @param tasks Map of property and the task generating the corresponding widget JSON.
+   */
+  private void addWidgets(Map<String, Callable<String>> tasks) {
+    if (widgetDirectory == null) {
+      return;
+    }
+    File[] files = widgetDirectory.listFiles();
+    if (files == null) {
+      return;
+    }
+
+    Map<String, File> iconFiles = new HashMap<>();
+    if (iconDirectory != null && iconDirectory.exists()) {
+      iconFiles = getFileNameMap(iconDirectory.listFiles());
+    }
+
+    // Iterate through all widget files.
+    for (File file : files) {
+
+      // If it's not a file, skip the file.
+      if (!file.isFile()) {
+        log.warn(
+          String.format("Widget path '%s' is not a file. Skipping", file.getPath())
+        );
+        metrics.skipped(1);
+        continue;
+      }
+
+      String ext = FilenameUtils.getExtension(file.getName());
+      if (!ext.equalsIgnoreCase("json")) {
+        log.warn(
+          String.format("Skipping non JSON file '%s'", file.getName())
+        );
+        metrics.skipped(1);
+        continue;
+      }
+
+      String fileName = FilenameUtils.removeExtension(file.getName());
+      Map<String, File> icons = iconFiles;
+      tasks.put(String.format("%s.%s", "widgets", fileName), () -> getWidget(file, icons, fileName));
+    }
+  }
+
+  /**
+   * Reads a Widget file and adds its icon.
+   *
+   * @return the widget JSON.
+   * @throws GenerationException thrown in case of any execution error.
+   */
+  private String getWidget(File file, Map<String, File> iconFiles, String fileName) throws GenerationException {
+    try {
+      long start = System.nanoTime();
+      JsonNode widget = JsonSupport.read(file.getAbsoluteFile());
+      metrics.time(GoalMetrics.Phase.PARSE, start);
+      metrics.read(file.length());
+      if (!widget.isObject()) {
+        throw new GenerationException(
+          String.format("Widget file '%s' has incorrect JSON. Expecting a JSON object", file.getName())
+        );
+      }
+
+      invalidWidgets.remove(file.getName());
+      if (widgetValidator != null) {
+        start = System.nanoTime();
+        List<String> errors = widgetValidator.validate(widget);
+        metrics.time(GoalMetrics.Phase.VALIDATE, start);
+        if (!errors.isEmpty()) {
+          invalidWidgets.put(file.getName(), errors);
+        }
+      }
+      addIcon((ObjectNode) widget, iconFiles, fileName);
+      start = System.nanoTime();
+      String json = JsonSupport.toString(widget, compactOutput);
+      metrics.time(GoalMetrics.Phase.SERIALIZE, start);
+      if (compactOutput) {
+        // Line breaks of a widget are escaped in the plugin JSON, so they take two bytes.
+        widgetIndentation.addAndGet(JsonSupport.prettySizeIncrease(new StringReader(json), 2));
+      }
+      metrics.processed(1);
+      // Widget JSON is ASCII but for the text it holds, so its length is close to its size.
+      metrics.retained(json.length());
+      return json;
+    } catch (FileNotFoundException e) {
+      throw new GenerationException(
+        String.format("Unable to access Widget file '%s' or not found. %s", file.getName(), e.getMessage())
+      );
+    } catch (JsonProcessingException e) {
+      throw new GenerationException(
+        String.format("Widget file '%s' has incorrect JSON. %s", file.getName(), e.getOriginalMessage())
+      );
+    } catch (IOException e) {
+      throw new GenerationException(
+        String.format("Issue reading Widget file '%s'. %s", file.getName(), e.getMessage())
+      );
+    }
+  }
+
+  /**
+   * Logs the widgets that do not match the widget schema and fails if configured to.
+   */
+  private void reportInvalidWidgets() throws GenerationException {
+    for (Map.Entry<String, List<String>> widget : invalidWidgets.entrySet()) {
+      for (String error : widget.getValue()) {
+        String message = String.format("Widget file '%s' is invalid: %s", widget.getKey(), error);
+        if (widgetValidationMode == WidgetValidator.Mode.FAIL) {
+          log.error(message);
+        } else {
+          log.warn(message);
+        }
+      }
+    }
+    if (widgetValidationMode == WidgetValidator.Mode.FAIL && !invalidWidgets.isEmpty()) {
+      throw new GenerationException(
+        String.format("%d widget files do not match the widget schema: %s", invalidWidgets.size(),
+                      String.join(", ", invalidWidgets.keySet()))
+      );
+    }
+  }
+
+  /**
+   * Inspects all the Icon files to add properties to related widget.
+   */
+  private void addIcon(ObjectNode widgetsJson, Map<String, File> iconFiles,
+                       String fileName) throws IOException, GenerationException {
+    if (iconFiles.containsKey(fileName)) {
+      ObjectNode iconObject = widgetsJson.putObject("icon");
+      iconObject.put("type", "inline");
+      iconObject.putObject("arguments").put("data", getIconDataUri(iconFiles.get(fileName)));
+    }
+  }
+
+  /**
+   * Returns the Data URI Scheme of an icon, optimized and checked against {@link #maxIconSize} if configured.
+   */
+  private String getIconDataUri(File file) throws IOException, GenerationException {
+    String mediaType = IconEncoder.mediaType(file);
+    long start = System.nanoTime();
+    ByteBuffer content = IconEncoder.read(file);
+    metrics.time(GoalMetrics.Phase.READ, start);
+    long originalSize = content.remaining();
+    metrics.read(originalSize);
+    metrics.processed(1);
+
+    start = System.nanoTime();
+    try {
+      return getIconDataUri(file, mediaType, content, originalSize);
+    } finally {
+      metrics.time(GoalMetrics.Phase.ENCODE, start);
+    }
+  }
+
+  /**
+   * Returns the Data URI Scheme of the content of an icon, from the icon cache if it has it.
+   */
+  private String getIconDataUri(File file, String mediaType, ByteBuffer content,
+                                long originalSize) throws IOException, GenerationException {
+    String cacheKey = null;
+    if (iconCache != null) {
+      cacheKey = IconCache.key(content, mediaType, optimizeIcons ? "optimized" : "original");
+      String dataUri = iconCache.get(cacheKey);
+      if (dataUri != null) {
+        checkIconSize(file, originalSize, IconEncoder.decodedSize(dataUri));
+        return dataUri;
+      }
+    }
+
+    if (optimizeIcons) {
+      content = IconOptimizer.optimize(content, mediaType);
+    }
+    checkIconSize(file, originalSize, content.remaining());
+    String dataUri = IconEncoder.toDataUri(content, mediaType);
+    if (iconCache != null) {
+      iconCache.put(cacheKey, dataUri);
+    }
+    return dataUri;
+  }
+
+  /**
+   * Reports the inlined size of an icon and fails or warns if it is larger than {@link #maxIconSize}.
+   */
+  private void checkIconSize(File file, long originalSize, long inlinedSize) throws GenerationException {
+    if (optimizeIcons) {
+      log.info(String.format("Icon %-30s : %d -> %d bytes", file.getName(), originalSize, inlinedSize));
+    }
+    if (maxIconSize > 0 && inlinedSize > maxIconSize) {
+      String message = String.format("Icon file '%s' is %d bytes, larger than the maximum of %d bytes",
+                                     file.getName(), inlinedSize, maxIconSize);
+      if (failOnLargeIcon) {
+        throw new GenerationException(message);
+      }
+      log.warn(message);
+    }
+  }
+
+  /**
+   * Remove extensions from files in directory and return a map of names to files.
+   */
+  private Map<String, File> getFileNameMap(File[] listFiles) {
+    Map<String, File> names = new HashMap<>();
+
+    if (listFiles != null) {
+      // Sorted, so the same icon is used on every build when several share a name.
+      Arrays.sort(listFiles);
+      for (File file : listFiles) {
+        String fileName = FilenameUtils.removeExtension(file.getName());
+        if (names.containsKey(fileName)) {
+          log.warn(String.format("'%s' is being ignored. '%s' will be used.", file.getName(),
+                                 names.get(fileName).getName()));
+        } else {
+          names.put(fileName, file);
+        }
+      }
+    }
+
+    return names;
+  }
+
+  /**
+   * Inspects all the Documentation files to add the tasks generating properties to be included in plugin JSON.
+   *
+   * @param tasks Map of property and the task reading the corresponding Markdown documentation.
+   */
+  private void addDocumentation(Map<String, Callable<String>> tasks) {
+    if (docDirectory == null) {
+      return;
+    }
+    File[] files = docDirectory.listFiles();
+    if (files == null) {
+      return;
+    }
+
+    // Iterate through all markdown files.
+    for (File file : files) {
+      if (!file.isFile()) {
+        log.warn(
+          String.format("Documentation path '%s' is not a file. Skipping", file.getPath())
+        );
+        metrics.skipped(1);
+        continue;
+      }
+
+      String ext = FilenameUtils.getExtension(file.getName());
+      if (!ext.equalsIgnoreCase("md")) {
+        log.warn(
+          String.format("Skipping non JSON file '%s'", file.getName())
+        );
+        metrics.skipped(1);
+        continue;
+      }
+
+      String name = file.getName();
+      tasks.put(String.format("%s.%s", "doc", FilenameUtils.removeExtension(name)), () -> getDocumentation(file));
+    }
+  }
+
+  /**
+   * Reads a Documentation file.
+   *
+   * @return the Markdown documentation.
+   * @throws GenerationException thrown in case of any execution error.
+   */
+  private String getDocumentation(File file) throws GenerationException {
+    try {
+      long start = System.nanoTime();
+      String documentation = new String(Files.readAllBytes(file.getAbsoluteFile().toPath()), StandardCharsets.UTF_8);
+      metrics.time(GoalMetrics.Phase.READ, start);
+      metrics.read(file.length());
+      metrics.processed(1);
+      metrics.retained(file.length());
+      return documentation;
+    } catch (FileNotFoundException | NoSuchFileException e) {
+      throw new GenerationException(
+        String.format("Unable to access Documentation file '%s' or not found. %s",
+                      file.getName(), e.getMessage())
+      );
+    } catch (IOException e) {
+      throw new GenerationException(
+        String.format("Issue reading Documentation file '%s'. %s", file.getName(), e.getMessage())
+      );
+    }
+  }
+
+  /**
+   * Returns the file of a directory with the given name and extension, ignoring the case of the extension, or null
+   * if there is none.
+   */
+  private static File findFile(File directory, String name, String extension) {
+    if (directory == null) {
+      return null;
+    }
+    File[] files = directory.listFiles(file -> file.isFile()
+      && FilenameUtils.removeExtension(file.getName()).equals(name)
+      && FilenameUtils.getExtension(file.getName()).equalsIgnoreCase(extension));
+    if (files == null || files.length == 0) {
+      return null;
+    }
+    Arrays.sort(files);
+    return files[0];
+  }
+
+  private static boolean isSameDirectory(Path directory, File inputDirectory) {
+    return inputDirectory != null && directory.equals(inputDirectory.toPath().toAbsolutePath().normalize());
+  }
+
+  /**
+   * Validate directory based on project
+   */
+  private static File getAndValidate(File baseDirectory, String directoryPath) {
+    File directory;
+    if (directoryPath.startsWith("/")) {
+      directory = new File(directoryPath);
+    } else {
+      directory = new File(baseDirectory, directoryPath);
+    }
+
+    if (!directory.exists()) {
+      return null;
+    }
+
+    if (!directory.isDirectory()) {
+      return null;
+    }
+    return directory;
+  }
+}
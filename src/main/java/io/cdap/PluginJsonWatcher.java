@@ -0,0 +1,201 @@
+/*
+ * Copyright © 2022 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps the plugin JSON of a project up to date while its widgets, docs and icons are edited.
+ *
+ * The properties of the plugin JSON are kept in memory. When files change, only the properties generated from them
+ * are read again, then the plugin JSON is rewritten from memory. Changes are gathered until none happens for the
+ * debounce delay, so that an editor saving several files, or a file in several writes, causes a single update.
+ */
+final class PluginJsonWatcher implements Closeable {
+
+  /**
+   * Receives the properties of the plugin JSON every time it is rewritten.
+   */
+  interface Listener {
+    void updated(SortedMap<String, String> properties) throws IOException;
+  }
+
+  private final PluginJsonGenerator generator;
+  private final long debounceMillis;
+  private final GenerationLog log;
+  private final WatchService watchService;
+  private Listener listener;
+  private SortedMap<String, String> properties;
+
+  PluginJsonWatcher(PluginJsonGenerator generator, long debounceMillis, GenerationLog log) throws IOException {
+    this.generator = generator;
+    this.debounceMillis = debounceMillis;
+    this.log = log;
+    this.watchService = FileSystems.getDefault().newWatchService();
+  }
+
+  PluginJsonWatcher setListener(Listener listener) {
+    this.listener = listener;
+    return this;
+  }
+
+  /**
+   * Starts watching the input directories and generates the plugin JSON from all of them.
+   */
+  void start() throws GenerationException, IOException {
+    for (File directory : generator.getInputDirectories()) {
+      directory.toPath().register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                                  StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+      log.info("Watching             : " + directory);
+    }
+    properties = generator.readProperties();
+    generator.write(properties);
+    log.info("Successfully created  : " + generator.getOutputFile().getName());
+    notifyListener();
+  }
+
+  /**
+   * Updates the plugin JSON on every change, until the watcher is closed or the thread interrupted.
+   */
+  void run() throws InterruptedException {
+    try {
+      while (true) {
+        update(awaitChanges());
+      }
+    } catch (ClosedWatchServiceException e) {
+      // Closed, stop watching
+    }
+  }
+
+  /**
+   * Waits for files to change, then for the changes to stop for the debounce delay.
+   *
+   * @return the changed files, or null if changes were lost and every file must be read again
+   */
+  Set<Path> awaitChanges() throws InterruptedException {
+    Set<Path> changed = new TreeSet<>();
+    boolean lost = collect(watchService.take(), changed);
+    WatchKey key;
+    while ((key = watchService.poll(debounceMillis, TimeUnit.MILLISECONDS)) != null) {
+      lost |= collect(key, changed);
+    }
+    return lost ? null : changed;
+  }
+
+  /**
+   * Adds the files of the events of a key to the changed files.
+   *
+   * @return true if events were lost
+   */
+  private static boolean collect(WatchKey key, Set<Path> changed) {
+    boolean lost = false;
+    Path directory = (Path) key.watchable();
+    for (WatchEvent<?> event : key.pollEvents()) {
+      if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+        lost = true;
+      } else {
+        changed.add(directory.resolve((Path) event.context()));
+      }
+    }
+    key.reset();
+    return lost;
+  }
+
+  /**
+   * Reads the properties generated from the changed files again and rewrites the plugin JSON. An invalid input is
+   * reported and leaves the plugin JSON as it was, until it is fixed.
+   *
+   * @param changedFiles the changed files, or null to read every file again
+   * @return true if the plugin JSON was rewritten
+   */
+  boolean update(Set<Path> changedFiles) {
+    long start = System.nanoTime();
+    Set<String> names = new TreeSet<>();
+    try {
+      SortedMap<String, String> updated;
+      if (changedFiles == null) {
+        updated = generator.readProperties();
+        names.add("all");
+      } else {
+        for (Path file : changedFiles) {
+          String name = generator.getPropertyName(file);
+          if (name != null) {
+            names.add(name);
+          }
+        }
+        if (names.isEmpty()) {
+          return false;
+        }
+        updated = new TreeMap<>(properties);
+        for (String name : names) {
+          String value = generator.readProperty(name);
+          if (value == null) {
+            updated.remove(name);
+          } else {
+            updated.put(name, value);
+          }
+        }
+      }
+      generator.write(updated);
+      properties = updated;
+    } catch (GenerationException e) {
+      log.error(e.getMessage());
+      return false;
+    }
+    log.info(String.format("Updated %s in %.1f ms : %s", generator.getOutputFile().getName(),
+                           GoalMetrics.millis(System.nanoTime() - start), String.join(", ", names)));
+    notifyListener();
+    return true;
+  }
+
+  /**
+   * Returns the properties of the plugin JSON as last written.
+   */
+  SortedMap<String, String> getProperties() {
+    return properties;
+  }
+
+  private void notifyListener() {
+    if (listener == null) {
+      return;
+    }
+    try {
+      listener.updated(properties);
+    } catch (IOException e) {
+      log.warn(e.getMessage());
+    }
+  }
+
+  @Override
+  public void close() throws IOException {
+    watchService.close();
+  }
+}
@@ -16,36 +16,25 @@
 
 package io.cdap;
 
-import com.google.common.base.Strings;
 import java.io.File;
 import java.io.IOException;
-import java.time.Instant;
+import java.util.Arrays;
 import org.apache.maven.plugin.AbstractMojo;
 import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugins.annotations.Component;
 import org.apache.maven.plugins.annotations.Mojo;
 import org.apache.maven.plugins.annotations.Parameter;
-import org.codehaus.plexus.util.FileUtils;
-import org.json.JSONArray;
-import org.json.JSONObject;
+import org.apache.maven.project.MavenProject;
+import org.apache.maven.project.MavenProjectHelper;
 
 /**
- * This mojo is used for creating the CDAP Plugin JSON file.
+ * This mojo is used for creating the spec.json of a Hub package, with the {@link SpecJsonGenerator}.
  */
-@Mojo(name = "create-plugin-spec-json")
+@Mojo(name = "create-plugin-spec-json", threadSafe = true)
 public class SpecJsonCreator extends AbstractMojo {
 
-  public static final String ONE_STEP_DEPLOY_PLUGIN = "one_step_deploy_plugin";
-  public static final String CREATE_PIPELINE_DRAFT = "create_pipeline_draft";
-  private static final String SPEC_VERSION = "specVersion";
-  private static final String LABEL = "label";
-  private static final String DESCRIPTION = "description";
-  private static final String AUTHOR = "author";
-  private static final String ORG = "org";
-  private static final String CREATED = "created";
-  private static final String CATEGORIES = "categories";
-  private static final String CDAP_VERSION = "cdapVersion";
-  private static final String ACTIONS = "actions";
-  private static final String SPEC_JSON = "spec.json";
+  public static final String ONE_STEP_DEPLOY_PLUGIN = SpecJsonGenerator.ONE_STEP_DEPLOY_PLUGIN;
+  public static final String CREATE_PIPELINE_DRAFT = SpecJsonGenerator.CREATE_PIPELINE_DRAFT;
   public static final String LIVERAMP = "Liveramp";
 
   @Parameter(property = "isPipeline", defaultValue = "false")
@@ -90,12 +79,45 @@ public class SpecJsonCreator extends AbstractMojo {
   @Parameter(property = "artifactId", defaultValue = "${project.artifactId}")
   private String artifactId;
 
-  private long created;
-  private String cdapVersion;
   /**
-   * Name of the configuration json file
+   * Writes spec.json without any indentation.
    */
-  private String configFilename;
+  @Parameter(property = "compactOutput", defaultValue = "false")
+  private boolean compactOutput;
+
+  /**
+   * Sets {@code created} to the build timestamp instead of the current time, so that spec.json only changes with
+   * its inputs. The timestamp is taken from {@link #outputTimestamp}, the {@code SOURCE_DATE_EPOCH} environment
+   * variable or the time of the last git commit.
+   */
+  @Parameter(property = "reproducible", defaultValue = "false")
+  private boolean reproducible;
+
+  @Parameter(defaultValue = "${project.build.outputTimestamp}")
+  private String outputTimestamp;
+
+  @Parameter(defaultValue = "${project.basedir}", readonly = true)
+  private File baseDirectory;
+
+  /**
+   * Attaches spec.json to the project as a {@code json} artifact with the {@code spec} classifier, so it is
+   * installed and deployed with the jar, and restored by the Maven build cache when the goal is skipped.
+   */
+  @Parameter(defaultValue = "false")
+  private boolean attach;
+
+  /**
+   * Writes the timings, sizes and file counts of the goal to {@code cdap-maven-plugin/metrics/} in the build
+   * directory.
+   */
+  @Parameter(property = "writeMetrics", defaultValue = "false")
+  private boolean writeMetrics;
+
+  @Parameter(defaultValue = "${project}", readonly = true)
+  private MavenProject project;
+
+  @Component
+  private MavenProjectHelper projectHelper;
 
   public SpecJsonCreator() {
     super();
@@ -135,197 +157,61 @@ public class SpecJsonCreator extends AbstractMojo {
   }
 
   public void execute() throws MojoExecutionException {
-    // Read in all the configurations.
-    initialize();
-
-    // Print header.
-    printHeader();
-
-    // We iterate through widgets and documentation directories creating the output configurations.
-    JSONObject output = new JSONObject();
-
-    output.put(SPEC_VERSION, version);
-    output.put(LABEL, label);
-    output.put(DESCRIPTION, description);
-    if (!Strings.isNullOrEmpty(author)) {
-      output.put(AUTHOR, author);
-    }
-    if (!Strings.isNullOrEmpty(org)) {
-      output.put(ORG, org);
-    }
-    output.put(CREATED, created);
-    output.put(CATEGORIES, categories);
-    output.put(CDAP_VERSION, cdapVersion);
-
-    JSONArray actions = new JSONArray();
-
-    JSONArray additionalArguments = new JSONArray();
-    if (additionalActionArguments != null) {
-      for (String[] pair : additionalActionArguments) {
-        String key = pair[0];
-        String value = pair[1];
-        JSONObject argument = createActionArgument(key, value);
-        additionalArguments.put(argument);
-      }
-    }
-
-    JSONObject actionJson = createAction(
-      actionType,
-      label,
-      version,
-      scope,
-      configFilename,
-      isPipeline,
-      additionalArguments);
-
-    actions.put(actionJson);
-    output.put(ACTIONS, actions);
-
+    GoalMetrics metrics = new GoalMetrics("create-plugin-spec-json");
+    SpecJsonGenerator generator = new SpecJsonGenerator(artifactId, version, new File(buildDirectory),
+                                                        Arrays.asList(cdapArtifacts))
+      .setLabel(label)
+      .setDescription(description)
+      .setAuthor(author)
+      .setOrg(org)
+      .setCategories(categories == null ? null : Arrays.asList(categories))
+      .setAdditionalActionArguments(additionalActionArguments == null ? null : Arrays.asList(additionalActionArguments))
+      .setActionType(actionType)
+      .setScope(scope)
+      .setPipeline(isPipeline)
+      .setCompactOutput(compactOutput)
+      .setCreated(reproducible ? getBuildTimestamp() : null)
+      .setLog(new MojoLog(getLog()))
+      .setMetrics(metrics);
+
+    File outputFile;
     try {
-      File outputFile = new File(buildDirectory, SPEC_JSON);
-      if (outputFile.exists()) {
-        outputFile.delete();
-      }
-      outputFile.createNewFile();
-      FileUtils.fileWrite(outputFile.getAbsolutePath(), output.toString(2));
-      getLog().info("Successfully created: " + SPEC_JSON);
-    } catch (IOException e) {
+      outputFile = generator.generate();
+    } catch (GenerationException e) {
       throw new MojoExecutionException(e.getMessage(), e);
     }
-
-    printFooter();
-  }
-
-  private JSONObject createAction(
-      String type,
-      String label,
-      String version,
-      String scope,
-      String config,
-      boolean isPipeline,
-      JSONArray additionalArguments) {
-    JSONObject actionJson = new JSONObject();
-    actionJson.put("type", type);
-    actionJson.put("label", label);
-
-    JSONArray actionArguments = new JSONArray();
-
-    JSONObject nameArg = createActionArgument("name", artifactId);
-    JSONObject versionArg = createActionArgument("version", version);
-    JSONObject scopeArg = createActionArgument("scope", scope);
-    JSONObject configArg = createActionArgument("config", config);
-
-    actionArguments.put(nameArg);
-    actionArguments.put(versionArg);
-    actionArguments.put(scopeArg);
-    actionArguments.put(configArg);
-
-    for (Object addArg : additionalArguments) {
-      actionArguments.put(addArg);
+    if (attach) {
+      projectHelper.attachArtifact(project, "json", "spec", outputFile);
     }
 
-    if (isPipeline) {
-      actionArguments.put(createPipelineArtifactArgument());
-    }
-    actionJson.put("arguments", actionArguments);
-    return actionJson;
-  }
-
-  private JSONObject createActionArgument(String name, String value) {
-    JSONObject actionArgument = new JSONObject();
-    actionArgument.put("name", name);
-    actionArgument.put("value", value);
-    return actionArgument;
-  }
-
-  private JSONObject createPipelineArtifactArgument() {
-    JSONObject actionArgument = new JSONObject();
-    JSONObject valueObject = new JSONObject();
-    valueObject.put("scope", "SYSTEM");
-    valueObject.put("name", "cdap-data-pipeline");
-    valueObject.put("version", "[6.1.1, 7.0.0-SNAPSHOT)");
-    actionArgument.put("name", "artifact");
-    actionArgument.put("value", valueObject);
-
-    return actionArgument;
-  }
-
-  private String filterVersions(String cdapArtifact) {
-    String empty = "";
-    if (cdapArtifact == null || cdapArtifact.isEmpty()) {
-      return empty;
-    }
-    int leftBracket = cdapArtifact.indexOf("[");
-    if (leftBracket < 0) {
-      leftBracket = cdapArtifact.indexOf("(");
-    }
-    if (leftBracket < 0) {
-      return empty;
-    }
-
-    int rightBracket = cdapArtifact.indexOf("]");
-    if (rightBracket < 0) {
-      rightBracket = cdapArtifact.indexOf(")");
-    }
-    if (rightBracket < 0) {
-      return empty;
-    }
-
-    return cdapArtifact.substring(leftBracket, rightBracket + 1);
-  }
-
-  /**
-   * Initializes this Mojo, extracts all necessary paths and configurations.
-   */
-  private void initialize() {
-    created = Instant.now().toEpochMilli();
-    cdapVersion = filterVersions(cdapArtifacts[0]);
-    configFilename = artifactId + "-" + version + ".json";
-    if (isPipeline && ONE_STEP_DEPLOY_PLUGIN.equals(actionType)) {
-      //Default value of pipeline is create_pipeline_draft, developer also can define it in pom.xml
-      actionType = CREATE_PIPELINE_DRAFT;
+    if (writeMetrics) {
+      try {
+        metrics.write(new File(buildDirectory), artifactId, version);
+      } catch (IOException e) {
+        getLog().warn("Unable to write the metrics of the goal. " + e.getMessage());
+      }
     }
-
-    File buildDirectoryDir = new File(buildDirectory);
-    buildDirectoryDir.mkdirs();
+    printFooter();
   }
 
   /**
-   * Prints the header for this mojo with all the information it needs to execute correctly.
+   * Returns the timestamp of a reproducible build.
+   *
+   * @throws MojoExecutionException if there is no build timestamp or it cannot be parsed.
    */
-  private void printHeader() {
-    getLog().info(repeat("-", 72));
-    getLog().info("CDAP Plugin JSON - Spec Json creator");
-    getLog().info(repeat("-", 72));
-    getLog().info("specVersion          : " + version);
-    getLog().info("label                : " + label);
-    getLog().info("description          : " + description);
-    if (!Strings.isNullOrEmpty(author)) {
-      getLog().info("author               : " + author);
-    }
-    if (!Strings.isNullOrEmpty(org)) {
-      getLog().info("org                  : " + org);
-    }
-    getLog().info("created              : " + created);
-    getLog().info("cdapVersion          : " + cdapVersion);
-    getLog().info("action type          : " + actionType);
-    getLog().info("action arg name      : " + artifactId);
-    getLog().info("action arg version   : " + version);
-    getLog().info("action arg scope     : " + scope);
-    getLog().info("action arg config    : " + configFilename);
-    if (categories != null) {
-      getLog().info("categories");
-      for (String category : categories) {
-        getLog().info(" " + category);
-      }
+  private long getBuildTimestamp() throws MojoExecutionException {
+    Long timestamp;
+    try {
+      timestamp = BuildTimestamp.resolve(outputTimestamp, baseDirectory == null ? new File(".") : baseDirectory);
+    } catch (IllegalArgumentException e) {
+      throw new MojoExecutionException(e.getMessage(), e);
     }
-    if (additionalActionArguments != null) {
-      getLog().info("additionalActionArguments");
-      for (String pair[] : additionalActionArguments) {
-        getLog().info(" " + pair[0] + " : " + pair[1]);
-      }
+    if (timestamp == null) {
+      throw new MojoExecutionException(
+        "Reproducible spec.json requires project.build.outputTimestamp, SOURCE_DATE_EPOCH or a git repository"
+      );
     }
-    getLog().info(repeat("-", 72));
+    return timestamp;
   }
 
   /**
@@ -0,0 +1,358 @@
+/*
+ * Copyright © 2022 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap;
+
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import java.io.File;
+import java.io.IOException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Generates the {@code spec.json} of a Hub package: the description of the package and the action deploying its
+ * plugin artifact or creating its pipeline.
+ *
+ * The generator does not depend on Maven. It is configured with its setters, all optional but for the
+ * constructor arguments, then run with {@link #generate()}.
+ */
+public final class SpecJsonGenerator {
+
+  public static final String ONE_STEP_DEPLOY_PLUGIN = "one_step_deploy_plugin";
+  public static final String CREATE_PIPELINE_DRAFT = "create_pipeline_draft";
+  public static final String SPEC_JSON = "spec.json";
+  private static final String SPEC_VERSION = "specVersion";
+  private static final String LABEL = "label";
+  private static final String DESCRIPTION = "description";
+  private static final String AUTHOR = "author";
+  private static final String ORG = "org";
+  private static final String CREATED = "created";
+  private static final String CATEGORIES = "categories";
+  private static final String CDAP_VERSION = "cdapVersion";
+  private static final String ACTIONS = "actions";
+
+  private final String artifactId;
+  private final String version;
+  private final File outputDirectory;
+  private final List<String> parents;
+
+  private String label;
+  private String description;
+  private String author;
+  private String org;
+  private List<String> categories;
+  private List<String[]> additionalActionArguments;
+  private String actionType = ONE_STEP_DEPLOY_PLUGIN;
+  private String scope = "user";
+  private boolean isPipeline;
+  private boolean compactOutput;
+  private Long created;
+  private GenerationLog log = GenerationLog.NONE;
+  private GoalMetrics metrics = new GoalMetrics("create-plugin-spec-json");
+
+  /**
+   * @param artifactId artifact deployed by the action
+   * @param version version of the spec and of the artifact
+   * @param outputDirectory directory spec.json is written to
+   * @param parents parent artifacts of the plugins, the version range of the first is the CDAP version of the spec
+   */
+  public SpecJsonGenerator(String artifactId, String version, File outputDirectory, List<String> parents) {
+    this.artifactId = artifactId;
+    this.version = version;
+    this.outputDirectory = outputDirectory;
+    this.parents = new ArrayList<>(parents);
+  }
+
+  public SpecJsonGenerator setLabel(String label) {
+    this.label = label;
+    return this;
+  }
+
+  public SpecJsonGenerator setDescription(String description) {
+    this.description = description;
+    return this;
+  }
+
+  public SpecJsonGenerator setAuthor(String author) {
+    this.author = author;
+    return this;
+  }
+
+  public SpecJsonGenerator setOrg(String org) {
+    this.org = org;
+    return this;
+  }
+
+  public SpecJsonGenerator setCategories(List<String> categories) {
+    this.categories = categories == null ? null : new ArrayList<>(categories);
+    return this;
+  }
+
+  /**
+   * Sets arguments added to the action, each a name and a value.
+   */
+  public SpecJsonGenerator setAdditionalActionArguments(List<String[]> additionalActionArguments) {
+    this.additionalActionArguments = additionalActionArguments == null
+      ? null : new ArrayList<>(additionalActionArguments);
+    return this;
+  }
+
+  /**
+   * Sets the type of the action. Defaults to {@link #ONE_STEP_DEPLOY_PLUGIN}, which becomes
+   * {@link #CREATE_PIPELINE_DRAFT} for pipelines.
+   */
+  public SpecJsonGenerator setActionType(String actionType) {
+    this.actionType = actionType;
+    return this;
+  }
+
+  /**
+   * Sets the scope of the artifact. Defaults to {@code user}.
+   */
+  public SpecJsonGenerator setScope(String scope) {
+    this.scope = scope;
+    return this;
+  }
+
+  public SpecJsonGenerator setPipeline(boolean isPipeline) {
+    this.isPipeline = isPipeline;
+    return this;
+  }
+
+  /**
+   * Writes spec.json without any indentation.
+   */
+  public SpecJsonGenerator setCompactOutput(boolean compactOutput) {
+    this.compactOutput = compactOutput;
+    return this;
+  }
+
+  /**
+   * Sets the creation time of the spec in milliseconds since the epoch, null for the current time.
+   */
+  public SpecJsonGenerator setCreated(Long created) {
+    this.created = created;
+    return this;
+  }
+
+  public SpecJsonGenerator setLog(GenerationLog log) {
+    this.log = log;
+    return this;
+  }
+
+  SpecJsonGenerator setMetrics(GoalMetrics metrics) {
+    this.metrics = metrics;
+    return this;
+  }
+
+  /**
+   * Generates spec.json, only replacing an existing one if its content changed.
+   *
+   * @return the spec.json file
+   * @throws GenerationException if spec.json cannot be written
+   */
+  public File generate() throws GenerationException {
+    long createdTime = created == null ? Instant.now().toEpochMilli() : created;
+    String cdapVersion = filterVersions(parents.isEmpty() ? null : parents.get(0));
+    String configFilename = artifactId + "-" + version + ".json";
+    String type = actionType;
+    if (isPipeline && ONE_STEP_DEPLOY_PLUGIN.equals(type)) {
+      //Default value of pipeline is create_pipeline_draft, developer also can define it in pom.xml
+      type = CREATE_PIPELINE_DRAFT;
+    }
+    outputDirectory.mkdirs();
+
+    // Print header.
+    printHeader(createdTime, cdapVersion, type, configFilename);
+
+    ObjectNode output = JsonSupport.newObject();
+
+    putIfNotNull(output, SPEC_VERSION, version);
+    putIfNotNull(output, LABEL, label);
+    putIfNotNull(output, DESCRIPTION, description);
+    if (!isNullOrEmpty(author)) {
+      output.put(AUTHOR, author);
+    }
+    if (!isNullOrEmpty(org)) {
+      output.put(ORG, org);
+    }
+    output.put(CREATED, createdTime);
+    if (categories != null) {
+      ArrayNode categoriesJson = output.putArray(CATEGORIES);
+      for (String category : categories) {
+        categoriesJson.add(category);
+      }
+    }
+    putIfNotNull(output, CDAP_VERSION, cdapVersion);
+
+    ArrayNode additionalArguments = output.arrayNode();
+    if (additionalActionArguments != null) {
+      for (String[] pair : additionalActionArguments) {
+        String key = pair[0];
+        String value = pair[1];
+        ObjectNode argument = createActionArgument(key, value);
+        additionalArguments.add(argument);
+      }
+    }
+
+    ObjectNode actionJson = createAction(type, configFilename, additionalArguments);
+    output.putArray(ACTIONS).add(actionJson);
+
+    File outputFile = new File(outputDirectory, SPEC_JSON);
+    try {
+      long start = System.nanoTime();
+      JsonSupport.write(output, outputFile, compactOutput);
+      metrics.time(GoalMetrics.Phase.WRITE, start);
+      metrics.written(outputFile.length());
+      metrics.processed(1);
+      metrics.retained(outputFile.length());
+      log.info("Successfully created: " + SPEC_JSON);
+      if (compactOutput) {
+        long size = outputFile.length();
+        log.info(String.format("Compact output: %d bytes, %d bytes saved", size,
+                               JsonSupport.size(output, false) - size));
+      }
+    } catch (IOException e) {
+      throw new GenerationException(e.getMessage(), e);
+    }
+    return outputFile;
+  }
+
+  private ObjectNode createAction(String type, String config, ArrayNode additionalArguments) {
+    ObjectNode actionJson = JsonSupport.newObject();
+    putIfNotNull(actionJson, "type", type);
+    putIfNotNull(actionJson, "label", label);
+
+    ArrayNode actionArguments = actionJson.putArray("arguments");
+
+    actionArguments.add(createActionArgument("name", artifactId));
+    actionArguments.add(createActionArgument("version", version));
+    actionArguments.add(createActionArgument("scope", scope));
+    actionArguments.add(createActionArgument("config", config));
+    actionArguments.addAll(additionalArguments);
+
+    if (isPipeline) {
+      actionArguments.add(createPipelineArtifactArgument());
+    }
+    return actionJson;
+  }
+
+  private static ObjectNode createActionArgument(String name, String value) {
+    ObjectNode actionArgument = JsonSupport.newObject();
+    putIfNotNull(actionArgument, "name", name);
+    putIfNotNull(actionArgument, "value", value);
+    return actionArgument;
+  }
+
+  private static ObjectNode createPipelineArtifactArgument() {
+    ObjectNode actionArgument = JsonSupport.newObject();
+    actionArgument.put("name", "artifact");
+    ObjectNode valueObject = actionArgument.putObject("value");
+    valueObject.put("scope", "SYSTEM");
+    valueObject.put("name", "cdap-data-pipeline");
+    valueObject.put("version", "[6.1.1, 7.0.0-SNAPSHOT)");
+    return actionArgument;
+  }
+
+  /**
+   * Sets a field unless the value is null, in which case the field is left out as it always has been.
+   */
+  private static void putIfNotNull(ObjectNode object, String field, String value) {
+    if (value != null) {
+      object.put(field, value);
+    }
+  }
+
+  private static boolean isNullOrEmpty(String value) {
+    return value == null || value.isEmpty();
+  }
+
+  private static String filterVersions(String cdapArtifact) {
+    String empty = "";
+    if (cdapArtifact == null || cdapArtifact.isEmpty()) {
+      return empty;
+    }
+    int leftBracket = cdapArtifact.indexOf("[");
+    if (leftBracket < 0) {
+      leftBracket = cdapArtifact.indexOf("(");
+    }
+    if (leftBracket < 0) {
+      return empty;
+    }
+
+    int rightBracket = cdapArtifact.indexOf("]");
+    if (rightBracket < 0) {
+      rightBracket = cdapArtifact.indexOf(")");
+    }
+    if (rightBracket < 0) {
+      return empty;
+    }
+
+    return cdapArtifact.substring(leftBracket, rightBracket + 1);
+  }
+
+  /**
+   * Prints the header with all the information the spec is generated from.
+   */
+  private void printHeader(long createdTime, String cdapVersion, String type, String configFilename) {
+    log.info(repeat("-", 72));
+    log.info("CDAP Plugin JSON - Spec Json creator");
+    log.info(repeat("-", 72));
+    log.info("specVersion          : " + version);
+    log.info("label                : " + label);
+    log.info("description          : " + description);
+    if (!isNullOrEmpty(author)) {
+      log.info("author               : " + author);
+    }
+    if (!isNullOrEmpty(org)) {
+      log.info("org                  : " + org);
+    }
+    log.info("created              : " + createdTime);
+    log.info("cdapVersion          : " + cdapVersion);
+    log.info("action type          : " + type);
+    log.info("action arg name      : " + artifactId);
+    log.info("action arg version   : " + version);
+    log.info("action arg scope     : " + scope);
+    log.info("action arg config    : " + configFilename);
+    if (categories != null) {
+      log.info("categories");
+      for (String category : categories) {
+        log.info(" " + category);
+      }
+    }
+    if (additionalActionArguments != null) {
+      log.info("additionalActionArguments");
+      for (String[] pair : additionalActionArguments) {
+        log.info(" " + pair[0] + " : " + pair[1]);
+      }
+    }
+    log.info(repeat("-", 72));
+  }
+
+  /**
+   * Repeats text for specified number of times
+   */
+  private static String repeat(String text, int numRepetitions) {
+    StringBuilder builder = new StringBuilder();
+    for (int i = 0; i < numRepetitions; i++) {
+      builder.append(text);
+    }
+
+    return builder.toString();
+  }
+}
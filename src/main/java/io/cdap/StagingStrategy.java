@@ -0,0 +1,215 @@
+/*
+ * Copyright © 2022 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.FileSystemException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.stream.Collectors;
+import org.apache.commons.io.FileUtils;
+
+/**
+ * How build artifacts are staged into the Hub package directory.
+ *
+ * Every strategy prepares the staged file under a temporary name next to the target and then moves it in place, so
+ * a target is either the previous file or the complete new one.
+ */
+enum StagingStrategy {
+
+  /**
+   * Copies the file, preserving its modification time. A digest is computed from the bytes being copied.
+   */
+  COPY("copy") {
+    @Override
+    StagingStrategy stageTo(Path source, Path tempFile, MessageDigest digest) throws IOException {
+      if (digest == null) {
+        Files.copy(source, tempFile, StandardCopyOption.COPY_ATTRIBUTES);
+        return this;
+      }
+      try (InputStream inStream = new DigestInputStream(Files.newInputStream(source), digest)) {
+        Files.copy(inStream, tempFile);
+      }
+      Files.setLastModifiedTime(tempFile, Files.getLastModifiedTime(source));
+      return this;
+    }
+  },
+
+  /**
+   * Hard links the file, so it takes no extra disk space or I/O. The staged file shares its content with the
+   * build output and must not be modified in place. Falls back to {@link #REFLINK_OR_COPY} when the file system
+   * does not support hard links or the package directory is on another file system.
+   */
+  HARDLINK("hardlink") {
+    @Override
+    StagingStrategy stageTo(Path source, Path tempFile, MessageDigest digest) throws IOException {
+      try {
+        Files.createLink(tempFile, source);
+      } catch (UnsupportedOperationException | FileSystemException e) {
+        Files.deleteIfExists(tempFile);
+        return REFLINK_OR_COPY.stageTo(source, tempFile, digest);
+      }
+      if (digest != null) {
+        Checksums.update(digest, source);
+      }
+      return this;
+    }
+  },
+
+  /**
+   * Copies the file with {@link FileChannel#transferTo}, which lets the operating system copy the data without
+   * passing it through the JVM. Where the JDK and file system support it, the copy shares its blocks with the source
+   * until either is modified.
+   */
+  REFLINK_OR_COPY("reflink-or-copy") {
+    @Override
+    StagingStrategy stageTo(Path source, Path tempFile, MessageDigest digest) throws IOException {
+      try (FileChannel in = FileChannel.open(source, StandardOpenOption.READ);
+           FileChannel out = FileChannel.open(tempFile, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+        long size = in.size();
+        long position = 0;
+        while (position < size) {
+          position += in.transferTo(position, size - position, out);
+        }
+      }
+      Files.setLastModifiedTime(tempFile, Files.getLastModifiedTime(source));
+      if (digest != null) {
+        Checksums.update(digest, source);
+      }
+      return this;
+    }
+  },
+
+  /**
+   * Links to the file with an absolute symbolic link, so the package directory is only valid as long as the
+   * build output exists.
+   */
+  SYMLINK("symlink") {
+    @Override
+    StagingStrategy stageTo(Path source, Path tempFile, MessageDigest digest) throws IOException {
+      Files.createSymbolicLink(tempFile, source.toAbsolutePath());
+      if (digest != null) {
+        Checksums.update(digest, source);
+      }
+      return this;
+    }
+  };
+
+  private final String value;
+
+  StagingStrategy(String value) {
+    this.value = value;
+  }
+
+  /**
+   * Returns the strategy configured with the given value.
+   *
+   * @throws IllegalArgumentException if no strategy has this value
+   */
+  static StagingStrategy of(String value) {
+    for (StagingStrategy strategy : values()) {
+      if (strategy.value.equals(value.toLowerCase(Locale.ROOT))) {
+        return strategy;
+      }
+    }
+    throw new IllegalArgumentException(
+      String.format("Unknown staging strategy '%s', expecting one of %s", value,
+                    Arrays.stream(values()).map(StagingStrategy::toString).collect(Collectors.joining(", ")))
+    );
+  }
+
+  /**
+   * Stages a file, replacing the target if it exists.
+   *
+   * @return the strategy the file was actually staged with, which differs from this one after a fallback
+   */
+  StagingStrategy stage(Path source, Path target) throws IOException {
+    return stage(source, target, null);
+  }
+
+  /**
+   * Stages a file, replacing the target if it exists, and reads its content into the given digest. Copies are
+   * digested while they are written; files staged without passing their content through the JVM are read once
+   * for the digest.
+   *
+   * @param digest digest receiving the content of the file, or null to only stage it
+   * @return the strategy the file was actually staged with, which differs from this one after a fallback
+   */
+  StagingStrategy stage(Path source, Path target, MessageDigest digest) throws IOException {
+    Path tempFile = OutputFiles.tempFile(target);
+    try {
+      Files.deleteIfExists(tempFile);
+      StagingStrategy used = stageTo(source, tempFile, digest);
+      OutputFiles.replace(tempFile, target);
+      return used;
+    } finally {
+      Files.deleteIfExists(tempFile);
+    }
+  }
+
+  /**
+   * Returns true if the target already holds what staging the source with this strategy would produce.
+   *
+   * A symbolic link is up to date if it points to the source. Any other target is up to date if it is the source
+   * itself, or a regular file with the same size and modification time. When {@code compareContent} is set, a
+   * file that only differs by its modification time is compared byte by byte, and has its modification time
+   * updated if the content is identical so the next check takes the fast path.
+   */
+  boolean isUpToDate(Path source, Path target, boolean compareContent) throws IOException {
+    if (this == SYMLINK || Files.isSymbolicLink(target)) {
+      return this == SYMLINK && Files.isSymbolicLink(target)
+        && Files.readSymbolicLink(target).equals(source.toAbsolutePath());
+    }
+    if (!Files.isRegularFile(target)) {
+      return false;
+    }
+    if (Files.isSameFile(source, target)) {
+      return true;
+    }
+    if (Files.size(source) != Files.size(target)) {
+      return false;
+    }
+    // Copies do not keep the sub-millisecond part of the modification time on every platform.
+    if (Files.getLastModifiedTime(source).toMillis() == Files.getLastModifiedTime(target).toMillis()) {
+      return true;
+    }
+    if (compareContent && FileUtils.contentEquals(source.toFile(), target.toFile())) {
+      Files.setLastModifiedTime(target, Files.getLastModifiedTime(source));
+      return true;
+    }
+    return false;
+  }
+
+  /**
+   * Stages the source under the given temporary name, which does not exist, and reads it into the digest if
+   * there is one.
+   */
+  abstract StagingStrategy stageTo(Path source, Path tempFile, MessageDigest digest) throws IOException;
+
+  @Override
+  public String toString() {
+    return value;
+  }
+}
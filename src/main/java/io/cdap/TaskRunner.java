@@ -0,0 +1,164 @@
+/*
+ * Copyright © 2022 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs independent tasks on a bounded pool of worker threads and returns their results in key order, so the
+ * output of a goal does not depend on the order in which the tasks complete.
+ */
+final class TaskRunner {
+
+  private TaskRunner() {
+  }
+
+  /**
+   * Returns the number of threads to use for the configured parallelism, where a value lower than one means one
+   * thread per available processor.
+   */
+  static int threads(int parallelism) {
+    return parallelism < 1 ? Runtime.getRuntime().availableProcessors() : parallelism;
+  }
+
+  /**
+   * Runs all tasks with at most {@code parallelism} of them at the same time.
+   *
+   * @param tasks tasks to run, keyed by the name their result is reported under
+   * @param parallelism maximum number of concurrent tasks, values lower than one use all available processors
+   * @param threadName prefix of the worker thread names
+   * @return results of the tasks sorted by key
+   * @throws Exception the exception thrown by the first failing task in key order
+   */
+  static <K extends Comparable<K>, V> Map<K, V> runAll(Map<K, ? extends Callable<V>> tasks, int parallelism,
+                                                       String threadName) throws Exception {
+    Map<K, V> results = new TreeMap<>();
+    int threads = Math.min(threads(parallelism), tasks.size());
+    if (threads <= 1) {
+      for (Map.Entry<K, ? extends Callable<V>> task : new TreeMap<>(tasks).entrySet()) {
+        results.put(task.getKey(), task.getValue().call());
+      }
+      return results;
+    }
+
+    ExecutorService executor = Executors.newFixedThreadPool(threads, newThreadFactory(threadName));
+    try {
+      List<K> keys = new ArrayList<>();
+      List<Future<V>> futures = new ArrayList<>();
+      for (Map.Entry<K, ? extends Callable<V>> task : new TreeMap<>(tasks).entrySet()) {
+        keys.add(task.getKey());
+        futures.add(executor.submit(task.getValue()));
+      }
+      for (int i = 0; i < futures.size(); i++) {
+        results.put(keys.get(i), get(futures.get(i)));
+      }
+      return results;
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  /**
+   * Runs all tasks with at most {@code parallelism} of them at the same time and hands each result to the consumer
+   * in key order, as soon as it and all the results before it are available. Only the result being consumed and
+   * those of the running tasks are retained, so memory use is bounded by the largest results rather than by all
+   * of them.
+   *
+   * @param tasks tasks to run, keyed by the name their result is reported under
+   * @param parallelism maximum number of concurrent tasks, values lower than one use all available processors
+   * @param threadName prefix of the worker thread names
+   * @param consumer receives the results in key order, always from the calling thread
+   * @throws Exception the exception thrown by the first failing task in key order, or by the consumer
+   */
+  static <K extends Comparable<K>, V> void forEachOrdered(Map<K, ? extends Callable<V>> tasks, int parallelism,
+                                                          String threadName,
+                                                          ResultConsumer<K, V> consumer) throws Exception {
+    List<Map.Entry<K, ? extends Callable<V>>> entries = new ArrayList<>(new TreeMap<>(tasks).entrySet());
+    int threads = Math.min(threads(parallelism), entries.size());
+    if (threads <= 1) {
+      for (Map.Entry<K, ? extends Callable<V>> entry : entries) {
+        consumer.accept(entry.getKey(), entry.getValue().call());
+      }
+      return;
+    }
+
+    ExecutorService executor = Executors.newFixedThreadPool(threads, newThreadFactory(threadName));
+    try {
+      Deque<Future<V>> pending = new ArrayDeque<>();
+      int next = 0;
+      for (; next < threads; next++) {
+        pending.add(executor.submit(entries.get(next).getValue()));
+      }
+      for (Map.Entry<K, ? extends Callable<V>> entry : entries) {
+        V result = get(pending.remove());
+        if (next < entries.size()) {
+          pending.add(executor.submit(entries.get(next++).getValue()));
+        }
+        consumer.accept(entry.getKey(), result);
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  /**
+   * Waits for the result of a task, rethrowing the exception the task failed with.
+   */
+  static <V> V get(Future<V> future) throws Exception {
+    try {
+      return future.get();
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof Exception) {
+        throw (Exception) cause;
+      }
+      if (cause instanceof Error) {
+        throw (Error) cause;
+      }
+      throw e;
+    }
+  }
+
+  /**
+   * Receives the result of a task.
+   */
+  interface ResultConsumer<K, V> {
+
+    void accept(K key, V value) throws Exception;
+  }
+
+  static ThreadFactory newThreadFactory(String threadName) {
+    AtomicInteger count = new AtomicInteger();
+    return runnable -> {
+      Thread thread = new Thread(runnable, threadName + "-" + count.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    };
+  }
+}
@@ -0,0 +1,77 @@
+/*
+ * Copyright © 2022 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap;
+
+import java.io.IOException;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+import org.apache.maven.project.MavenProject;
+
+/**
+ * This mojo keeps the CDAP Plugin JSON file up to date while widgets, docs and icons are edited, with the
+ * {@link PluginJsonWatcher}. It is configured as {@code create-plugin-json}, generates the plugin JSON, then runs
+ * until it is stopped, updating the plugin JSON on every change.
+ */
+@Mojo(name = "watch-plugin-json", requiresDirectInvocation = true)
+public class WatchPluginJson extends PluginJson {
+
+  /**
+   * Time in milliseconds without any change after which changed files are read again.
+   */
+  @Parameter(property = "watchDebounceMillis", defaultValue = "50")
+  private long debounceMillis;
+
+  /**
+   * URL of a CDAP instance, such as {@code http://localhost:11015}, the artifact properties of the project are
+   * replaced on every update. The artifact must already be deployed.
+   */
+  @Parameter(property = "cdapUrl")
+  private String cdapUrl;
+
+  @Parameter(property = "cdapNamespace", defaultValue = "default")
+  private String cdapNamespace;
+
+  /**
+   * Access token of the CDAP instance, if it requires authentication.
+   */
+  @Parameter(property = "cdapAccessToken")
+  private String cdapAccessToken;
+
+  @Override
+  public void execute() throws MojoExecutionException {
+    PluginJsonGenerator generator = newGenerator(new GoalMetrics("watch-plugin-json"));
+    printHeader();
+    try (PluginJsonWatcher watcher = new PluginJsonWatcher(generator, debounceMillis, new MojoLog(getLog()))) {
+      if (cdapUrl != null && !cdapUrl.isEmpty()) {
+        MavenProject project = getProject();
+        CdapClient client = new CdapClient(cdapUrl, cdapAccessToken);
+        watcher.setListener(properties -> {
+          client.putProperties(cdapNamespace, project.getArtifactId(), project.getVersion(), properties);
+          getLog().info("Updated properties   : " + cdapUrl);
+        });
+      }
+      watcher.start();
+      getLog().info("Watching for changes, press Ctrl+C to stop");
+      watcher.run();
+    } catch (GenerationException | IOException e) {
+      throw new MojoExecutionException(e.getMessage(), e);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
@@ -0,0 +1,127 @@
+/*
+ * Copyright © 2022 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.networknt.schema.JsonSchema;
+import com.networknt.schema.JsonSchemaFactory;
+import com.networknt.schema.SpecVersion;
+import com.networknt.schema.ValidationMessage;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.stream.Collectors;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.commons.io.IOUtils;
+
+/**
+ * Validates widget JSON against a JSON schema, the one bundled with the plugin by default.
+ *
+ * Compiling a schema is much more expensive than validating a widget with it, so compiled schemas are kept for the
+ * life of the JVM, keyed by the hash of their content, and shared by every widget of every module of a build. A
+ * compiled schema is thread safe, so widgets are validated by the threads reading them.
+ */
+final class WidgetValidator {
+
+  /**
+   * Schema bundled with the plugin, relative to this class.
+   */
+  static final String BUNDLED_SCHEMA = "widget-schema.json";
+
+  private static final JsonSchemaFactory FACTORY = JsonSchemaFactory.getInstance(SpecVersion.VersionFlag.V7);
+  private static final ConcurrentMap<String, JsonSchema> SCHEMAS = new ConcurrentHashMap<>();
+
+  /**
+   * What to do with invalid widgets.
+   */
+  enum Mode {
+    NONE,
+    WARN,
+    FAIL;
+
+    /**
+     * Returns the mode configured with the given value.
+     *
+     * @throws IllegalArgumentException if no mode has this value
+     */
+    static Mode of(String value) {
+      for (Mode mode : values()) {
+        if (mode.name().equalsIgnoreCase(value)) {
+          return mode;
+        }
+      }
+      throw new IllegalArgumentException(
+        String.format("Unknown widget validation '%s', expecting one of none, warn, fail", value)
+      );
+    }
+  }
+
+  private final JsonSchema schema;
+
+  private WidgetValidator(JsonSchema schema) {
+    this.schema = schema;
+  }
+
+  /**
+   * Returns a validator for the given schema file, or for the bundled schema if the file is null.
+   */
+  static WidgetValidator of(File schemaFile) throws IOException {
+    byte[] content;
+    if (schemaFile == null) {
+      try (InputStream inStream = WidgetValidator.class.getResourceAsStream(BUNDLED_SCHEMA)) {
+        if (inStream == null) {
+          throw new IOException("Unable to find the bundled widget schema " + BUNDLED_SCHEMA);
+        }
+        content = IOUtils.toByteArray(inStream);
+      }
+    } else {
+      content = Files.readAllBytes(schemaFile.toPath());
+    }
+
+    String key = DigestUtils.sha256Hex(content);
+    JsonSchema schema = SCHEMAS.get(key);
+    if (schema == null) {
+      JsonNode schemaJson = JsonSupport.read(new ByteArrayInputStream(content));
+      schema = SCHEMAS.computeIfAbsent(key, k -> FACTORY.getSchema(schemaJson));
+    }
+    return new WidgetValidator(schema);
+  }
+
+  /**
+   * Returns the number of schemas compiled so far in this JVM.
+   */
+  static int compiledSchemas() {
+    return SCHEMAS.size();
+  }
+
+  /**
+   * Validates a widget.
+   *
+   * @return the validation errors, sorted, empty if the widget is valid
+   */
+  List<String> validate(JsonNode widget) {
+    return schema.validate(widget).stream()
+      .map(ValidationMessage::getMessage)
+      .sorted()
+      .collect(Collectors.toList());
+  }
+}
@@ -17,8 +17,23 @@
 package io.cdap;
 
 import java.io.File;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
+import org.apache.commons.compress.archivers.tar.TarArchiveInputStream;
+import org.apache.commons.compress.compressors.gzip.GzipCompressorInputStream;
 import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.plugin.testing.MojoRule;
 import org.apache.maven.project.MavenProject;
 import org.apache.maven.project.ProjectBuilder;
@@ -26,16 +41,24 @@ import org.apache.maven.project.ProjectBuildingRequest;
 import org.codehaus.plexus.PlexusTestCase;
 import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 
 import static io.cdap.Utils.newMavenSession;
 import static junit.framework.TestCase.assertNotNull;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 public class ArtifactPackagerMojoTest {
 
   @Rule
   public MojoRule rule = new MojoRule();
 
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
   @Test
   public void execute_relativeOutputDirSpecified_andFilesExistInBuildDir_ArtifactsAreMovedToOutputDir() throws Exception{
     //Given: a standard pom where relativeOutputDir = "/../packages/"
@@ -126,4 +149,214 @@ public class ArtifactPackagerMojoTest {
 
     FileUtils.deleteDirectory(new File(expectedOutputDir));
   }
+
+  @Test
+  public void execute_stagingThreadsAndFailingFile_otherFilesAreStagedAndFailureIsReported() throws Exception {
+    //Given: icons are staged by several threads and spec.json cannot replace a directory of the same name
+    String expectedOutputDir = "src/test/resources/packages/artifact/1.0.0/";
+    FileUtils.deleteDirectory(new File(expectedOutputDir));
+    new File(expectedOutputDir, "spec.json/nested").mkdirs();
+
+    String basedir = PlexusTestCase.getBasedir();
+    File testPom = new File(basedir, "src/test/resources/test_poms/artifactPackager-icons-pom.xml");
+
+    ProjectBuildingRequest buildingRequest = newMavenSession(rule).getProjectBuildingRequest();
+    ProjectBuilder projectBuilder = rule.lookup(ProjectBuilder.class);
+    MavenProject project = projectBuilder.build(testPom, buildingRequest).getProject();
+    ArtifactPackager mojo = (ArtifactPackager) rule.lookupConfiguredMojo(project, "package-artifacts-for-hub");
+    rule.setVariableValueToObject(mojo, "stagingThreads", 4);
+
+    //When: Goal is executed
+    try {
+      mojo.execute();
+      fail("Expected spec.json to fail the execution");
+    } catch (MojoExecutionException e) {
+      //Then: the failure is reported and the other files are staged
+      assertTrue(e.getMessage().startsWith("Unable to stage 1 of 4 files: spec.json"));
+    }
+    assertTrue(new File(basedir, expectedOutputDir + "artifact-1.0.0.jar").isFile());
+    assertTrue(new File(basedir, expectedOutputDir + "artifact-1.0.0.json").isFile());
+    assertTrue(new File(basedir, expectedOutputDir + "icon.png").isFile());
+    assertFalse(new File(basedir, expectedOutputDir + ".spec.json.tmp").exists());
+
+    FileUtils.deleteDirectory(new File(expectedOutputDir));
+  }
+
+  @Test
+  public void execute_writeChecksums_manifestsAreWrittenNextToSpecJson() throws Exception {
+    //Given: relativeOutputDir = "/../packages/" && writeChecksums = true
+    File outputDir = new File("src/test/resources/packages/artifact/1.0.0");
+    FileUtils.deleteDirectory(outputDir);
+    ArtifactPackager mojo = lookupIconsMojo();
+    rule.setVariableValueToObject(mojo, "writeChecksums", true);
+    rule.setVariableValueToObject(mojo, "stagingStrategy", "hardlink");
+
+    //When: Goal is executed
+    mojo.execute();
+
+    //Then: every staged file is listed with its SHA-256
+    List<String> sums = Files.readAllLines(new File(outputDir, Checksums.SUMS_FILE).toPath());
+    assertEquals(4, sums.size());
+    File icon = new File(outputDir, "icon.png");
+    assertEquals(DigestUtils.sha256Hex(Files.readAllBytes(icon.toPath())) + "  icon.png", sums.get(2));
+    JsonNode index = JsonSupport.read(new File(outputDir, Checksums.INDEX_FILE));
+    assertEquals("SHA-256", index.get("algorithm").asText());
+    assertEquals("icon.png", index.get("files").get(2).get("name").asText());
+    assertEquals(icon.length(), index.get("files").get(2).get("size").asLong());
+
+    //When: Goal is executed again with skipUnchanged
+    mojo = lookupIconsMojo();
+    rule.setVariableValueToObject(mojo, "writeChecksums", true);
+    rule.setVariableValueToObject(mojo, "skipUnchanged", true);
+    mojo.execute();
+
+    //Then: the checksums of the skipped files are kept
+    assertEquals(sums, Files.readAllLines(new File(outputDir, Checksums.SUMS_FILE).toPath()));
+
+    //When: Goal is executed again without writeChecksums
+    mojo = lookupIconsMojo();
+    rule.setVariableValueToObject(mojo, "skipUnchanged", true);
+    mojo.execute();
+
+    //Then: the checksums, which would not be updated, are removed
+    assertFalse(new File(outputDir, Checksums.SUMS_FILE).exists());
+    assertFalse(new File(outputDir, Checksums.INDEX_FILE).exists());
+
+    FileUtils.deleteDirectory(outputDir);
+  }
+
+  @Test
+  public void execute_symlinkSourceChangedAndSkipUnchanged_checksumIsUpdated() throws Exception {
+    //Given: files symlinked from a build directory, with writeChecksums and skipUnchanged
+    File outputDir = new File("src/test/resources/packages/artifact/1.0.0");
+    FileUtils.deleteDirectory(outputDir);
+    File buildDir = temporaryFolder.newFolder("build");
+    FileUtils.copyDirectory(new File("src/test/resources/test_build_dir"), buildDir);
+    File jar = new File(buildDir, "artifact-1.0.0.jar");
+    ArtifactPackager mojo = lookupIconsMojo();
+    rule.setVariableValueToObject(mojo, "buildDirectory", buildDir.getAbsolutePath());
+    rule.setVariableValueToObject(mojo, "stagingStrategy", "symlink");
+    rule.setVariableValueToObject(mojo, "writeChecksums", true);
+    rule.setVariableValueToObject(mojo, "skipUnchanged", true);
+    mojo.execute();
+
+    //When: the jar is rebuilt and the goal is executed again
+    Files.write(jar.toPath(), "rebuilt".getBytes(StandardCharsets.UTF_8));
+    mojo = lookupIconsMojo();
+    rule.setVariableValueToObject(mojo, "buildDirectory", buildDir.getAbsolutePath());
+    rule.setVariableValueToObject(mojo, "stagingStrategy", "symlink");
+    rule.setVariableValueToObject(mojo, "writeChecksums", true);
+    rule.setVariableValueToObject(mojo, "skipUnchanged", true);
+    mojo.execute();
+
+    //Then: the checksum is the one of the rebuilt jar
+    List<String> sums = Files.readAllLines(new File(outputDir, Checksums.SUMS_FILE).toPath());
+    assertEquals(DigestUtils.sha256Hex("rebuilt") + "  artifact-1.0.0.jar", sums.get(0));
+
+    FileUtils.deleteDirectory(outputDir);
+  }
+
+  @Test
+  public void execute_zipArchiveFormat_filesAreArchivedInHubLayout() throws Exception {
+    //Given: relativeOutputDir = "/../packages/" && archiveFormat = zip
+    File archive = new File("src/test/resources/packages/artifact-1.0.0.zip");
+    Files.deleteIfExists(archive.toPath());
+    FileUtils.deleteDirectory(new File("src/test/resources/packages/artifact/1.0.0"));
+    ArtifactPackager mojo = lookupIconsMojo();
+    rule.setVariableValueToObject(mojo, "archiveFormat", "zip");
+    rule.setVariableValueToObject(mojo, "writeChecksums", true);
+
+    //When: Goal is executed
+    mojo.execute();
+
+    //Then: all files are in the archive, already compressed ones are stored
+    try (ZipFile zip = new ZipFile(archive)) {
+      List<String> names = new ArrayList<>();
+      zip.stream().forEach(entry -> names.add(entry.getName()));
+      assertEquals(Arrays.asList("artifact/1.0.0/artifact-1.0.0.jar", "artifact/1.0.0/artifact-1.0.0.json",
+                                 "artifact/1.0.0/icon.png", "artifact/1.0.0/spec.json",
+                                 "artifact/1.0.0/SHA256SUMS", "artifact/1.0.0/checksums.json"), names);
+      try (InputStream sums = zip.getInputStream(zip.getEntry("artifact/1.0.0/SHA256SUMS"))) {
+        String iconSha256 = DigestUtils.sha256Hex(Files.readAllBytes(
+          new File("src/test/resources/test_icons_dir/icon.png").toPath()));
+        assertTrue(IOUtils.toString(sums, StandardCharsets.UTF_8).contains(iconSha256 + "  icon.png\n"));
+      }
+      assertEquals(ZipEntry.STORED, zip.getEntry("artifact/1.0.0/artifact-1.0.0.jar").getMethod());
+      assertEquals(ZipEntry.STORED, zip.getEntry("artifact/1.0.0/icon.png").getMethod());
+      assertEquals(ZipEntry.DEFLATED, zip.getEntry("artifact/1.0.0/spec.json").getMethod());
+      try (InputStream icon = zip.getInputStream(zip.getEntry("artifact/1.0.0/icon.png"))) {
+        assertArrayEquals(Files.readAllBytes(new File("src/test/resources/test_icons_dir/icon.png").toPath()),
+                          IOUtils.toByteArray(icon));
+      }
+    }
+    assertFalse(new File("src/test/resources/packages/artifact/1.0.0").exists());
+
+    Files.delete(archive.toPath());
+  }
+
+  @Test
+  public void execute_tarGzArchiveFormat_filesAreArchivedInHubLayout() throws Exception {
+    //Given: relativeOutputDir = "/../packages/" && archiveFormat = tar.gz
+    File archive = new File("src/test/resources/packages/artifact-1.0.0.tar.gz");
+    Files.deleteIfExists(archive.toPath());
+    ArtifactPackager mojo = lookupIconsMojo();
+    rule.setVariableValueToObject(mojo, "archiveFormat", "tar.gz");
+    rule.setVariableValueToObject(mojo, "compressionLevel", 9);
+
+    //When: Goal is executed
+    mojo.execute();
+
+    //Then: all files are in the archive
+    List<String> names = new ArrayList<>();
+    try (TarArchiveInputStream tar = new TarArchiveInputStream(
+      new GzipCompressorInputStream(Files.newInputStream(archive.toPath())))) {
+      for (TarArchiveEntry entry = tar.getNextTarEntry(); entry != null; entry = tar.getNextTarEntry()) {
+        names.add(entry.getName());
+      }
+    }
+    assertEquals(Arrays.asList("artifact/1.0.0/artifact-1.0.0.jar", "artifact/1.0.0/artifact-1.0.0.json",
+                               "artifact/1.0.0/icon.png", "artifact/1.0.0/spec.json"), names);
+
+    Files.delete(archive.toPath());
+  }
+
+  @Test
+  public void execute_reproducibleTarGzArchive_archiveIsIdenticalAcrossBuilds() throws Exception {
+    //Given: archiveFormat = tar.gz && reproducible = true && writeChecksums = true
+    File archive = new File("src/test/resources/packages/artifact-1.0.0.tar.gz");
+
+    //When: Goal is executed twice
+    byte[][] builds = new byte[2][];
+    for (int i = 0; i < builds.length; i++) {
+      ArtifactPackager mojo = lookupIconsMojo();
+      rule.setVariableValueToObject(mojo, "archiveFormat", "tar.gz");
+      rule.setVariableValueToObject(mojo, "writeChecksums", true);
+      rule.setVariableValueToObject(mojo, "reproducible", true);
+      rule.setVariableValueToObject(mojo, "outputTimestamp", "1640995200");
+      mojo.execute();
+      builds[i] = Files.readAllBytes(archive.toPath());
+      Thread.sleep(5);
+    }
+
+    //Then: the archives are identical and every entry has the build timestamp
+    assertArrayEquals(builds[0], builds[1]);
+    try (TarArchiveInputStream tar = new TarArchiveInputStream(
+      new GzipCompressorInputStream(Files.newInputStream(archive.toPath())))) {
+      for (TarArchiveEntry entry = tar.getNextTarEntry(); entry != null; entry = tar.getNextTarEntry()) {
+        assertEquals(entry.getName(), 1640995200000L, entry.getModTime().getTime());
+        assertEquals("", entry.getUserName());
+      }
+    }
+
+    Files.delete(archive.toPath());
+  }
+
+  private ArtifactPackager lookupIconsMojo() throws Exception {
+    File testPom = new File(PlexusTestCase.getBasedir(), "src/test/resources/test_poms/artifactPackager-icons-pom.xml");
+
+    ProjectBuildingRequest buildingRequest = newMavenSession(rule).getProjectBuildingRequest();
+    ProjectBuilder projectBuilder = rule.lookup(ProjectBuilder.class);
+    MavenProject project = projectBuilder.build(testPom, buildingRequest).getProject();
+    return (ArtifactPackager) rule.lookupConfiguredMojo(project, "package-artifacts-for-hub");
+  }
 }
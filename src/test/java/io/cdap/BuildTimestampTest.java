@@ -0,0 +1,65 @@
+/*
+ * Copyright © 2022 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap;
+
+import java.io.File;
+import java.util.Collections;
+import java.util.Map;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class BuildTimestampTest {
+
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  @Test
+  public void resolve_eachSource_timestampIsInMillis() throws Exception {
+    // GIVEN
+    Map<String, String> environment = Collections.singletonMap(BuildTimestamp.SOURCE_DATE_EPOCH, "1600000000");
+    File notInGit = temporaryFolder.newFolder();
+
+    // WHEN / THEN: the output timestamp comes first, in seconds or ISO-8601
+    assertEquals(Long.valueOf(1640995200000L), BuildTimestamp.resolve("1640995200", environment, notInGit));
+    assertEquals(Long.valueOf(1640995200000L),
+                 BuildTimestamp.resolve("2022-01-01T01:00:00+01:00", environment, notInGit));
+
+    // WHEN / THEN: a disabled output timestamp falls back to SOURCE_DATE_EPOCH
+    assertEquals(Long.valueOf(1600000000000L), BuildTimestamp.resolve("-", environment, notInGit));
+    assertEquals(Long.valueOf(1600000000000L), BuildTimestamp.resolve(null, environment, notInGit));
+
+    // WHEN / THEN: no source outside of a git repository
+    assertNull(BuildTimestamp.resolve(null, Collections.emptyMap(), notInGit));
+  }
+
+  @Test
+  public void resolve_invalidOutputTimestamp_isRejected() {
+    try {
+      BuildTimestamp.resolve("yesterday", Collections.emptyMap(), new File("."));
+      fail("Expected an invalid output timestamp to be rejected");
+    } catch (IllegalArgumentException e) {
+      assertTrue(e.getMessage().contains("project.build.outputTimestamp"));
+    }
+  }
+}
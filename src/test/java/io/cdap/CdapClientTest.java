@@ -0,0 +1,158 @@
+/*
+ * Copyright © 2022 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class CdapClientTest {
+
+  private HttpServer server;
+  private final List<String> requests = new CopyOnWriteArrayList<>();
+  private final Queue<Integer> responseCodes = new ConcurrentLinkedQueue<>();
+  private volatile int responseCode = 200;
+  private volatile byte[] lastBody;
+
+  @Before
+  public void startServer() throws IOException {
+    server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+    server.createContext("/", exchange -> {
+      try (InputStream inStream = exchange.getRequestBody()) {
+        lastBody = IOUtils.toByteArray(inStream);
+      }
+      requests.add(exchange.getRequestMethod() + " " + exchange.getRequestURI().getPath() + " "
+                     + exchange.getRequestHeaders().getFirst("Authorization"));
+      Integer queued = responseCodes.poll();
+      int code = queued == null ? responseCode : queued;
+      byte[] response = (code == 200 ? "OK" : "Artifact not found").getBytes(StandardCharsets.UTF_8);
+      exchange.sendResponseHeaders(code, response.length);
+      try (OutputStream outStream = exchange.getResponseBody()) {
+        outStream.write(response);
+      }
+    });
+    server.start();
+  }
+
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  @After
+  public void stopServer() {
+    server.stop(0);
+  }
+
+  @Test
+  public void putProperties_properties_areSentAsJsonObject() throws Exception {
+    // GIVEN
+    CdapClient client = new CdapClient(url() + "/", "token");
+    Map<String, String> properties = new TreeMap<>();
+    properties.put("doc.Test-batchsource", "# Test");
+    properties.put("widgets.Test-batchsource", "{}");
+
+    // WHEN
+    client.putProperties("default", "test_plugin", "1.0.0", properties);
+
+    // THEN
+    assertEquals("PUT /v3/namespaces/default/artifacts/test_plugin/versions/1.0.0/properties Bearer token",
+                 requests.get(0));
+    JsonNode body = JsonSupport.MAPPER.readTree(lastBody);
+    assertEquals("# Test", body.get("doc.Test-batchsource").asText());
+    assertEquals(2, body.size());
+  }
+
+  @Test
+  public void putProperties_errorResponse_isReported() {
+    // GIVEN
+    responseCode = 404;
+    CdapClient client = new CdapClient(url(), null);
+
+    // WHEN
+    try {
+      client.putProperties("default", "test_plugin", "1.0.0", new TreeMap<>());
+      fail("Expected the 404 response to fail");
+    } catch (IOException e) {
+      // THEN
+      assertTrue(e.getMessage(), e.getMessage().contains("404 Artifact not found"));
+    }
+    assertEquals("PUT /v3/namespaces/default/artifacts/test_plugin/versions/1.0.0/properties null", requests.get(0));
+  }
+
+  @Test
+  public void deployArtifact_conflictAfterRetry_isSuccess() throws Exception {
+    // GIVEN
+    responseCodes.add(503);
+    responseCodes.add(409);
+    Path jar = temporaryFolder.newFile("test_plugin-1.0.0.jar").toPath();
+    Files.write(jar, new byte[] {1, 2, 3});
+    CdapClient client = new CdapClient(url(), null).setRetries(1, 1);
+
+    // WHEN
+    client.deployArtifact("default", "test_plugin", "1.0.0", Collections.emptyList(), jar);
+
+    // THEN
+    assertEquals(2, requests.size());
+    assertArrayEquals(new byte[] {1, 2, 3}, lastBody);
+  }
+
+  @Test
+  public void deployArtifact_conflictOnFirstAttempt_isReported() throws Exception {
+    // GIVEN
+    responseCode = 409;
+    Path jar = temporaryFolder.newFile("test_plugin-1.0.0.jar").toPath();
+    CdapClient client = new CdapClient(url(), null).setRetries(1, 1);
+
+    // WHEN
+    try {
+      client.deployArtifact("default", "test_plugin", "1.0.0", Collections.emptyList(), jar);
+      fail("Expected the 409 response to fail");
+    } catch (IOException e) {
+      // THEN
+      assertTrue(e.getMessage(), e.getMessage().contains("409"));
+    }
+    assertEquals(1, requests.size());
+  }
+
+  private String url() {
+    return "http://localhost:" + server.getAddress().getPort();
+  }
+}
@@ -0,0 +1,232 @@
+/*
+ * Copyright © 2022 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.maven.artifact.Artifact;
+import org.apache.maven.artifact.DefaultArtifact;
+import org.apache.maven.artifact.handler.DefaultArtifactHandler;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.testing.MojoRule;
+import org.apache.maven.project.MavenProject;
+import org.apache.maven.project.ProjectBuilder;
+import org.apache.maven.project.ProjectBuildingRequest;
+import org.codehaus.plexus.PlexusTestCase;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static io.cdap.Utils.newMavenSession;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class CdapDeployerMojoTest {
+
+  private static final String PARENTS = "[\"system:cdap-data-pipeline[6.0.0,7.0.0)\", "
+    + "\"system:cdap-data-streams[6.0.0,7.0.0)\"]";
+
+  @Rule
+  public MojoRule rule = new MojoRule();
+
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  private HttpServer server;
+  private ExecutorService executor;
+  private final List<String> requests = new CopyOnWriteArrayList<>();
+  private final Map<String, byte[]> bodies = new ConcurrentHashMap<>();
+  private final Map<String, String> headers = new ConcurrentHashMap<>();
+  /**
+   * Responses to send, by path, before responding 200.
+   */
+  private final Map<String, List<Integer>> failures = new ConcurrentHashMap<>();
+  /**
+   * Client addresses, one per connection.
+   */
+  private final Set<InetSocketAddress> connections = ConcurrentHashMap.newKeySet();
+
+  @Before
+  public void startServer() throws IOException {
+    server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+    server.createContext("/", this::handle);
+    executor = Executors.newCachedThreadPool();
+    server.setExecutor(executor);
+    server.start();
+  }
+
+  @After
+  public void stopServer() {
+    server.stop(0);
+    executor.shutdownNow();
+  }
+
+  @Test
+  public void execute_reactorWithPluginModules_jarsAndPropertiesAreDeployed() throws Exception {
+    //Given: two plugin modules, the first failing once with 503, a pipeline module and a parent module
+    MavenProject first = newModule("first", "{\"properties\": {\"doc.First-batchsource\": \"# First\"}, "
+      + "\"parents\": " + PARENTS + "}", new byte[] {1, 2, 3});
+    MavenProject second = newModule("second", "{\"properties\": {}, \"parents\": " + PARENTS + "}", new byte[] {4});
+    MavenProject pipeline = newModule("pipeline", "{\"stages\": [], \"connections\": []}", null);
+    MavenProject parent = newModule("parent", null, null);
+    failures.put("/v3/namespaces/default/artifacts/first", new CopyOnWriteArrayList<>(Arrays.asList(503)));
+    CdapDeployer mojo = lookupMojo(parent, first, pipeline, second);
+
+    //When: Goal is executed
+    mojo.execute();
+
+    //Then: the jars of the plugin modules are deployed, then their properties, the failed upload being retried
+    assertEquals(5, requests.size());
+    assertEquals(2, requests.stream().filter("POST /v3/namespaces/default/artifacts/first"::equals).count());
+    assertTrue(requests.indexOf("PUT /v3/namespaces/default/artifacts/second/versions/1.0.0/properties")
+                 > requests.indexOf("POST /v3/namespaces/default/artifacts/second"));
+    assertArrayEquals(new byte[] {1, 2, 3}, bodies.get("/v3/namespaces/default/artifacts/first"));
+    assertEquals("system:cdap-data-pipeline[6.0.0,7.0.0)/system:cdap-data-streams[6.0.0,7.0.0)",
+                 headers.get("/v3/namespaces/default/artifacts/first Artifact-Extends"));
+    assertEquals("1.0.0", headers.get("/v3/namespaces/default/artifacts/first Artifact-Version"));
+    assertEquals("3", headers.get("/v3/namespaces/default/artifacts/first Content-length"));
+
+    //Then: the properties are those of the plugin JSON
+    JsonNode properties = JsonSupport.MAPPER.readTree(
+      bodies.get("/v3/namespaces/default/artifacts/first/versions/1.0.0/properties"));
+    assertEquals("# First", properties.get("doc.First-batchsource").asText());
+
+    //Then: connections are reused
+    assertTrue(connections.toString(), connections.size() < requests.size());
+  }
+
+  @Test
+  public void execute_clientError_failsWithModuleWithoutRetrying() throws Exception {
+    //Given: a plugin module CDAP rejects
+    MavenProject plugin = newModule("plugin", "{\"properties\": {}, \"parents\": " + PARENTS + "}", new byte[] {1});
+    failures.put("/v3/namespaces/default/artifacts/plugin", new CopyOnWriteArrayList<>(Arrays.asList(400)));
+    CdapDeployer mojo = lookupMojo(plugin);
+
+    //When: Goal is executed
+    try {
+      mojo.execute();
+      fail("Expected the rejected artifact to fail the goal");
+    } catch (MojoExecutionException e) {
+      //Then: the module is named and the upload was not retried
+      assertTrue(e.getMessage(), e.getMessage().contains("plugin/1.0.0"));
+    }
+    assertEquals(1, requests.size());
+  }
+
+  @Test
+  public void execute_customJarNames_packagedJarsAreDeployed() throws Exception {
+    //Given: a module with a custom final name and a module whose packaged jar has another name
+    MavenProject finalName = newModule("finalName", "{\"properties\": {}, \"parents\": " + PARENTS + "}", null);
+    finalName.getBuild().setFinalName("renamed");
+    Files.write(new File(finalName.getBuild().getDirectory(), "renamed.jar").toPath(), new byte[] {1});
+    MavenProject packaged = newModule("packaged", "{\"properties\": {}, \"parents\": " + PARENTS + "}", null);
+    File packagedJar = new File(packaged.getBuild().getDirectory(), "packaged-1.0.0-shaded.jar");
+    Files.write(packagedJar.toPath(), new byte[] {2});
+    Artifact artifact = new DefaultArtifact("io.cdap", "packaged", "1.0.0", null, "jar", null,
+                                            new DefaultArtifactHandler("jar"));
+    artifact.setFile(packagedJar);
+    packaged.setArtifact(artifact);
+    CdapDeployer mojo = lookupMojo(finalName, packaged);
+
+    //When: Goal is executed
+    mojo.execute();
+
+    //Then: the jars are found
+    assertArrayEquals(new byte[] {1}, bodies.get("/v3/namespaces/default/artifacts/finalName"));
+    assertArrayEquals(new byte[] {2}, bodies.get("/v3/namespaces/default/artifacts/packaged"));
+  }
+
+  private void handle(HttpExchange exchange) throws IOException {
+    String path = exchange.getRequestURI().getPath();
+    requests.add(exchange.getRequestMethod() + " " + path);
+    for (String header : new String[] {"Artifact-Extends", "Artifact-Version", "Content-length"}) {
+      String value = exchange.getRequestHeaders().getFirst(header);
+      if (value != null) {
+        headers.put(path + " " + header, value);
+      }
+    }
+    connections.add(exchange.getRemoteAddress());
+    try (InputStream inStream = exchange.getRequestBody()) {
+      bodies.put(path, IOUtils.toByteArray(inStream));
+    }
+    List<Integer> pending = failures.getOrDefault(path, new CopyOnWriteArrayList<>());
+    int code = pending.isEmpty() ? 200 : pending.remove(0);
+    byte[] response = (code == 200 ? "OK" : "Failed").getBytes(StandardCharsets.UTF_8);
+    exchange.sendResponseHeaders(code, response.length);
+    try (OutputStream outStream = exchange.getResponseBody()) {
+      outStream.write(response);
+    }
+  }
+
+  /**
+   * Creates a module with a build directory holding the given plugin JSON and jar, if not null.
+   */
+  private MavenProject newModule(String artifactId, String pluginJson, byte[] jar) throws Exception {
+    File baseDir = temporaryFolder.newFolder(artifactId);
+    File buildDir = new File(baseDir, "target");
+    buildDir.mkdirs();
+    if (pluginJson != null) {
+      Files.write(new File(buildDir, artifactId + "-1.0.0.json").toPath(),
+                  pluginJson.getBytes(StandardCharsets.UTF_8));
+    }
+    if (jar != null) {
+      Files.write(new File(buildDir, artifactId + "-1.0.0.jar").toPath(), jar);
+    }
+
+    MavenProject project = new MavenProject();
+    project.setArtifactId(artifactId);
+    project.setVersion("1.0.0");
+    project.setFile(new File(baseDir, "pom.xml"));
+    project.getBuild().setDirectory(buildDir.getAbsolutePath());
+    project.getBuild().setFinalName(artifactId + "-1.0.0");
+    return project;
+  }
+
+  private CdapDeployer lookupMojo(MavenProject... modules) throws Exception {
+    File testPom = new File(PlexusTestCase.getBasedir(), "src/test/resources/test_poms/deployToCdap-pom.xml");
+
+    ProjectBuildingRequest buildingRequest = newMavenSession(rule).getProjectBuildingRequest();
+    ProjectBuilder projectBuilder = rule.lookup(ProjectBuilder.class);
+    MavenProject project = projectBuilder.build(testPom, buildingRequest).getProject();
+    CdapDeployer mojo = (CdapDeployer) rule.lookupConfiguredMojo(project, "deploy-to-cdap");
+    rule.setVariableValueToObject(mojo, "reactorProjects", Arrays.asList(modules));
+    rule.setVariableValueToObject(mojo, "cdapUrl", "http://localhost:" + server.getAddress().getPort());
+    return mojo;
+  }
+}
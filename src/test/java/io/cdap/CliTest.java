@@ -0,0 +1,138 @@
+/*
+ * Copyright © 2022 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class CliTest {
+
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+  private final ByteArrayOutputStream err = new ByteArrayOutputStream();
+
+  @Test
+  public void run_pluginJson_pluginJsonIsGenerated() throws Exception {
+    // GIVEN
+    File outputDirectory = temporaryFolder.getRoot();
+
+    // WHEN
+    int exitCode = run("plugin-json", "--base-dir", "src/test/resources/test_plugin",
+                       "--output-dir", outputDirectory.getPath(), "--artifact-id", "test_plugin",
+                       "--version", "1.0.0", "--parents",
+                       "system:cdap-data-pipeline[6.0.0,9.0.0-SNAPSHOT),system:cdap-data-streams[6.0.0,9.0.0-SNAPSHOT)",
+                       "--widget-validation", "fail", "--compact");
+
+    // THEN
+    assertEquals(error(), Cli.OK, exitCode);
+    JsonNode pluginJson = JsonSupport.read(new File(outputDirectory, "test_plugin-1.0.0.json"));
+    assertEquals(4, pluginJson.get("properties").size());
+    assertEquals(2, pluginJson.get("parents").size());
+    assertEquals("system:cdap-data-streams[6.0.0,9.0.0-SNAPSHOT)", pluginJson.get("parents").get(1).asText());
+  }
+
+  @Test
+  public void run_specJsonWithTimestamp_createdIsTheTimestamp() throws Exception {
+    // GIVEN
+    File outputDirectory = temporaryFolder.getRoot();
+
+    // WHEN
+    int exitCode = run("spec-json", "--output-dir", outputDirectory.getPath(), "--artifact-id", "test_plugin",
+                       "--version", "1.0.0", "--label", "Test", "--categories", "a, b",
+                       "--action-arguments", "scope=system", "--output-timestamp", "2022-01-01T00:00:00Z");
+
+    // THEN
+    assertEquals(error(), Cli.OK, exitCode);
+    JsonNode spec = JsonSupport.read(new File(outputDirectory, SpecJsonGenerator.SPEC_JSON));
+    assertEquals(1640995200000L, spec.get("created").asLong());
+    assertEquals(2, spec.get("categories").size());
+  }
+
+  @Test
+  public void run_pipelineJson_configIsExtracted() throws Exception {
+    // GIVEN
+    File output = new File(temporaryFolder.getRoot(), "config.json");
+
+    // WHEN
+    int exitCode = run("pipeline-json", "--input", "src/test/resources/exported_pipeline.json",
+                       "--output", output.getPath());
+
+    // THEN
+    assertEquals(error(), Cli.OK, exitCode);
+    assertEquals(JsonSupport.read(new File("src/test/resources/expected_pipeline.json")), JsonSupport.read(output));
+  }
+
+  @Test
+  public void run_invalidCommandLines_usageErrorIsReturned() {
+    assertEquals(Cli.USAGE, run());
+    assertEquals(Cli.USAGE, run("create-everything"));
+    assertEquals(Cli.USAGE, run("spec-json", "--version", "1.0.0"));
+    assertEquals(Cli.USAGE, run("spec-json", "--artifact-id", "a", "--version", "1", "--lable", "Test"));
+    assertEquals(Cli.USAGE, run("plugin-json", "--parallelism"));
+    assertTrue(error(), error().contains("Missing value of option '--parallelism'"));
+  }
+
+  @Test
+  public void run_pipelineWithoutConfig_failureIsReturned() {
+    // WHEN
+    int exitCode = run("pipeline-json", "--input", "src/test/resources/invalid.json",
+                       "--output", new File(temporaryFolder.getRoot(), "config.json").getPath());
+
+    // THEN
+    assertEquals(Cli.FAILED, exitCode);
+  }
+
+  @Test
+  public void run_pipelinesWithSameOutputName_failureIsReturned() throws Exception {
+    // GIVEN
+    File inputs = temporaryFolder.newFolder("pipelines");
+    File exported = new File("src/test/resources/exported_pipeline.json");
+    Files.copy(exported.toPath(), new File(inputs, "pipeline.json").toPath());
+    Files.copy(exported.toPath(), new File(inputs, "pipeline.export").toPath());
+    File outputs = temporaryFolder.newFolder("configs");
+
+    // WHEN
+    int exitCode = run("pipeline-json", "--input-dir", inputs.getPath(), "--output-dir", outputs.getPath(),
+                       "--version", "1.0.0", "--includes", "pipeline.*");
+
+    // THEN
+    assertEquals(Cli.FAILED, exitCode);
+    assertTrue(error(), error().contains("would both be written to 'pipeline-1.0.0.json'"));
+    assertEquals(0, outputs.list().length);
+  }
+
+  private int run(String... args) {
+    return Cli.run(args, new PrintStream(out, true), new PrintStream(err, true));
+  }
+
+  private String error() {
+    return new String(err.toByteArray(), StandardCharsets.UTF_8);
+  }
+}
@@ -0,0 +1,141 @@
+/*
+ * Copyright © 2022 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.testing.MojoRule;
+import org.apache.maven.project.MavenProject;
+import org.apache.maven.project.ProjectBuilder;
+import org.apache.maven.project.ProjectBuildingRequest;
+import org.codehaus.plexus.PlexusTestCase;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static io.cdap.Utils.newMavenSession;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class HubAggregatorMojoTest {
+
+  @Rule
+  public MojoRule rule = new MojoRule();
+
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  @Test
+  public void execute_reactorWithPluginAndPipelineModules_hubTreeIsAssembled() throws Exception {
+    //Given: a plugin and a pipeline module sharing an icon, and a module without spec.json
+    byte[] icon = Files.readAllBytes(new File("src/test/resources/test_icons_dir/icon.png").toPath());
+    MavenProject plugin = newModule("plugin", "{\"label\": \"Plugin\", \"specVersion\": \"1.0.0\", \"actions\": []}");
+    Files.write(new File(plugin.getBuild().getDirectory(), "plugin-1.0.0.jar").toPath(), new byte[] {1, 2, 3});
+    Files.write(new File(plugin.getBasedir(), "icons/icon.png").toPath(), icon);
+    MavenProject pipeline = newModule("pipeline", "{\"label\": \"Pipeline\", "
+      + "\"actions\": [{\"type\": \"create_pipeline_draft\"}]}");
+    Files.write(new File(pipeline.getBuild().getDirectory(), "pipeline-1.0.0.jar").toPath(), new byte[] {1});
+    Files.write(new File(pipeline.getBasedir(), "icons/icon.png").toPath(), icon);
+    MavenProject parent = newModule("parent", null);
+    File outputDir = temporaryFolder.newFolder("packages");
+    HubAggregator mojo = lookupMojo(outputDir, parent, pipeline, plugin);
+
+    //When: Goal is executed
+    mojo.execute();
+
+    //Then: every package is staged, pipelines without their jar
+    File pluginDir = new File(outputDir, "plugin/1.0.0");
+    File pipelineDir = new File(outputDir, "pipeline/1.0.0");
+    assertTrue(new File(pluginDir, "plugin-1.0.0.jar").exists());
+    assertTrue(new File(pluginDir, "plugin-1.0.0.json").exists());
+    assertTrue(new File(pluginDir, "spec.json").exists());
+    assertTrue(new File(pipelineDir, "pipeline-1.0.0.json").exists());
+    assertFalse(new File(pipelineDir, "pipeline-1.0.0.jar").exists());
+    assertFalse(new File(outputDir, "parent").exists());
+
+    //Then: the shared icon is staged once
+    assertArrayEquals(icon, Files.readAllBytes(new File(pluginDir, "icon.png").toPath()));
+    assertTrue(Files.isSameFile(new File(pipelineDir, "icon.png").toPath(), new File(pluginDir, "icon.png").toPath()));
+
+    //Then: packages.json lists the packages in order, without their actions
+    JsonNode index = JsonSupport.read(new File(outputDir, PackagesIndex.PACKAGES_JSON));
+    assertEquals(2, index.size());
+    assertEquals("pipeline", index.get(0).get("name").asText());
+    assertEquals("plugin", index.get(1).get("name").asText());
+    assertEquals("1.0.0", index.get(1).get("version").asText());
+    assertEquals("Plugin", index.get(1).get("label").asText());
+    assertFalse(index.get(1).has("actions"));
+  }
+
+  @Test
+  public void execute_invalidSpecJson_failsWithModule() throws Exception {
+    //Given: a module with an invalid spec.json
+    MavenProject plugin = newModule("plugin", "{\"label\": ");
+    HubAggregator mojo = lookupMojo(temporaryFolder.newFolder("packages"), plugin);
+
+    //When: Goal is executed
+    try {
+      mojo.execute();
+      fail("Expected an invalid spec.json to fail the goal");
+    } catch (MojoExecutionException e) {
+      //Then: the spec.json is named
+      assertTrue(e.getMessage(), e.getMessage().contains("spec.json"));
+    }
+  }
+
+  /**
+   * Creates a module with a build directory holding the given spec.json and a plugin JSON, or nothing if the spec
+   * is null.
+   */
+  private MavenProject newModule(String artifactId, String spec) throws Exception {
+    File baseDir = temporaryFolder.newFolder(artifactId);
+    File buildDir = new File(baseDir, "target");
+    buildDir.mkdirs();
+    new File(baseDir, "icons").mkdirs();
+    if (spec != null) {
+      Files.write(new File(buildDir, "spec.json").toPath(), spec.getBytes(StandardCharsets.UTF_8));
+      Files.write(new File(buildDir, artifactId + "-1.0.0.json").toPath(), "{}".getBytes(StandardCharsets.UTF_8));
+    }
+
+    MavenProject project = new MavenProject();
+    project.setArtifactId(artifactId);
+    project.setVersion("1.0.0");
+    project.setFile(new File(baseDir, "pom.xml"));
+    project.getBuild().setDirectory(buildDir.getAbsolutePath());
+    return project;
+  }
+
+  private HubAggregator lookupMojo(File outputDir, MavenProject... modules) throws Exception {
+    File testPom = new File(PlexusTestCase.getBasedir(), "src/test/resources/test_poms/hubAggregator-pom.xml");
+
+    ProjectBuildingRequest buildingRequest = newMavenSession(rule).getProjectBuildingRequest();
+    ProjectBuilder projectBuilder = rule.lookup(ProjectBuilder.class);
+    MavenProject project = projectBuilder.build(testPom, buildingRequest).getProject();
+    HubAggregator mojo = (HubAggregator) rule.lookupConfiguredMojo(project, "aggregate-artifacts-for-hub");
+    rule.setVariableValueToObject(mojo, "reactorProjects", Arrays.asList(modules));
+    rule.setVariableValueToObject(mojo, "outputDirectory", outputDir);
+    return mojo;
+  }
+}
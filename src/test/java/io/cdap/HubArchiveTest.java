@@ -0,0 +1,69 @@
+/*
+ * Copyright © 2022 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.TimeZone;
+import java.util.TreeMap;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.assertArrayEquals;
+
+public class HubArchiveTest {
+
+  private static final long TIME = 1640995200000L;
+
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  @Test
+  public void write_zipWithFixedTime_isIdenticalInEveryTimeZone() throws Exception {
+    // GIVEN
+    File spec = temporaryFolder.newFile("spec.json");
+    Files.write(spec.toPath(), "{}".getBytes(StandardCharsets.UTF_8));
+    Map<String, File> files = new TreeMap<>();
+    files.put("spec.json", spec);
+
+    // WHEN
+    byte[] utc = writeZip("UTC", files);
+    byte[] tokyo = writeZip("Asia/Tokyo", files);
+    byte[] newYork = writeZip("America/New_York", files);
+
+    // THEN
+    assertArrayEquals(utc, tokyo);
+    assertArrayEquals(utc, newYork);
+  }
+
+  private byte[] writeZip(String timeZone, Map<String, File> files) throws Exception {
+    TimeZone defaultTimeZone = TimeZone.getDefault();
+    TimeZone.setDefault(TimeZone.getTimeZone(timeZone));
+    try {
+      Path archive = temporaryFolder.getRoot().toPath().resolve(timeZone.replace('/', '-') + ".zip");
+      HubArchive.write(archive, HubArchive.Format.ZIP, 9, "artifact/1.0.0/", files, new Checksums(), TIME);
+      return Files.readAllBytes(archive);
+    } finally {
+      TimeZone.setDefault(defaultTimeZone);
+    }
+  }
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright © 2022 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap;
+
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.attribute.FileTime;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class IconCacheTest {
+
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  @Test
+  public void get_identicalIconsInDifferentModules_returnsCachedDataUri() throws Exception {
+    // GIVEN
+    File cacheDirectory = temporaryFolder.newFolder("cache");
+    IconCache cache = new IconCache(cacheDirectory.toPath(), 1024);
+    String firstKey = IconCache.key(IconEncoder.read(newIcon("module1", new byte[]{1, 2, 3, 4})), "image/png");
+    cache.put(firstKey, "data:image/png;base64,AQIDBA==");
+
+    // WHEN
+    String secondKey = IconCache.key(IconEncoder.read(newIcon("module2", new byte[]{1, 2, 3, 4})), "image/png");
+
+    // THEN
+    assertEquals(firstKey, secondKey);
+    assertEquals("data:image/png;base64,AQIDBA==", cache.get(secondKey));
+    assertNull(cache.get(IconCache.key(ByteBuffer.wrap(new byte[]{1, 2, 3, 4}), "image/gif")));
+    assertEquals(1, cacheDirectory.listFiles().length);
+  }
+
+  @Test
+  public void evict_cacheFull_leastRecentlyUsedIconIsEvicted() throws Exception {
+    // GIVEN: a cache that fits two entries
+    File cacheDirectory = temporaryFolder.newFolder("cache");
+    IconCache cache = new IconCache(cacheDirectory.toPath(), 2 * "data:image/png;base64,AAAA".length());
+    cache.put("old", "data:image/png;base64,AQEB");
+    cache.put("recent", "data:image/png;base64,AgIC");
+    for (File entry : cacheDirectory.listFiles()) {
+      Files.setLastModifiedTime(entry.toPath(), FileTime.fromMillis(1000L));
+    }
+    cache.get("recent");
+
+    // WHEN
+    cache.put("new", "data:image/png;base64,AwMD");
+    cache.evict();
+
+    // THEN
+    assertNull(cache.get("old"));
+    assertEquals("data:image/png;base64,AgIC", cache.get("recent"));
+    assertEquals("data:image/png;base64,AwMD", cache.get("new"));
+  }
+
+  private File newIcon(String module, byte[] content) throws Exception {
+    File icon = new File(temporaryFolder.newFolder(module), "icon.png");
+    Files.write(icon.toPath(), content);
+    return icon;
+  }
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright © 2022 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap;
+
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Random;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+public class IconEncoderTest {
+
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  @Test
+  public void toDataUri_anyLength_matchesJdkBase64() {
+    Random random = new Random(42);
+    for (int length = 0; length < 64; length++) {
+      byte[] content = new byte[length];
+      random.nextBytes(content);
+
+      String dataUri = IconEncoder.toDataUri(ByteBuffer.wrap(content), "image/png");
+
+      assertEquals("data:image/png;base64," + Base64.getEncoder().encodeToString(content), dataUri);
+    }
+  }
+
+  @Test
+  public void toDataUri_partOfBufferOrDirectBuffer_encodesRemainingBytes() {
+    byte[] content = new byte[100];
+    new Random(3).nextBytes(content);
+    ByteBuffer slice = ByteBuffer.wrap(content, 10, 80).slice();
+    slice.position(5);
+    ByteBuffer direct = ByteBuffer.allocateDirect(content.length);
+    direct.put(content).flip();
+
+    String sliceUri = IconEncoder.toDataUri(slice, "image/png");
+    String directUri = IconEncoder.toDataUri(direct, "image/svg+xml");
+
+    assertEquals("data:image/png;base64,"
+                   + Base64.getEncoder().encodeToString(Arrays.copyOfRange(content, 15, 90)), sliceUri);
+    assertEquals("data:image/svg+xml;base64," + Base64.getEncoder().encodeToString(content), directUri);
+    assertFalse(slice.hasRemaining());
+    assertFalse(direct.hasRemaining());
+  }
+
+  @Test
+  public void toDataUri_largeIcon_isEncoded() throws Exception {
+    byte[] content = new byte[64 * 1024 + 1];
+    new Random(7).nextBytes(content);
+    File icon = temporaryFolder.newFile("large.png");
+    Files.write(icon.toPath(), content);
+
+    String dataUri = IconEncoder.toDataUri(icon, "image/png");
+
+    assertEquals("data:image/png;base64," + Base64.getEncoder().encodeToString(content), dataUri);
+  }
+}
@@ -0,0 +1,132 @@
+/*
+ * Copyright © 2022 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import javax.imageio.ImageIO;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class IconOptimizerTest {
+
+  private static final String PNG_ICON = "src/test/resources/test_plugin/icons/TestSource-batchsource.png";
+
+  @Test
+  public void optimize_pngWithMetadataAndUncompressedData_isSmallerWithSamePixels() throws Exception {
+    // GIVEN
+    byte[] original = Files.readAllBytes(new File(PNG_ICON).toPath());
+
+    // WHEN
+    ByteBuffer optimized = IconOptimizer.optimize(ByteBuffer.wrap(original), "image/png");
+
+    // THEN
+    byte[] result = new byte[optimized.remaining()];
+    optimized.get(result);
+    assertTrue(result.length < original.length);
+    assertTrue(!new String(result, StandardCharsets.ISO_8859_1).contains("tEXt"));
+
+    BufferedImage expected = ImageIO.read(new ByteArrayInputStream(original));
+    BufferedImage actual = ImageIO.read(new ByteArrayInputStream(result));
+    assertEquals(expected.getWidth(), actual.getWidth());
+    assertEquals(expected.getHeight(), actual.getHeight());
+    for (int y = 0; y < expected.getHeight(); y++) {
+      for (int x = 0; x < expected.getWidth(); x++) {
+        assertEquals(expected.getRGB(x, y), actual.getRGB(x, y));
+      }
+    }
+  }
+
+  @Test
+  public void optimize_svgWithCommentsMetadataAndWhitespace_isMinified() {
+    // GIVEN
+    String svg = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
+      + "<!-- Created with an editor -->\n"
+      + "<svg xmlns=\"http://www.w3.org/2000/svg\" width=\"16\" height=\"16\">\n"
+      + "  <metadata>\n    <rdf:RDF/>\n  </metadata>\n"
+      + "  <rect   x=\"0\" y=\"0\"\n        width=\"16\" height=\"16\"/>\n"
+      + "</svg>\n";
+
+    // WHEN
+    ByteBuffer optimized = IconOptimizer.optimize(ByteBuffer.wrap(svg.getBytes(StandardCharsets.UTF_8)),
+                                                  "image/svg+xml");
+
+    // THEN
+    assertEquals("<svg xmlns=\"http://www.w3.org/2000/svg\" width=\"16\" height=\"16\">"
+                   + "<rect x=\"0\" y=\"0\" width=\"16\" height=\"16\"/></svg>",
+                 StandardCharsets.UTF_8.decode(optimized).toString());
+  }
+
+  @Test
+  public void optimize_svgWithText_whitespaceInTextIsKept() {
+    // GIVEN
+    String svg = "<svg xmlns=\"http://www.w3.org/2000/svg\">\n"
+      + "  <text x=\"0\"><tspan>a</tspan> <tspan>b</tspan></text>\n"
+      + "  <rect/>\n"
+      + "</svg>";
+
+    // WHEN
+    ByteBuffer optimized = IconOptimizer.optimize(ByteBuffer.wrap(svg.getBytes(StandardCharsets.UTF_8)),
+                                                  "image/svg+xml");
+
+    // THEN
+    assertEquals("<svg xmlns=\"http://www.w3.org/2000/svg\"><text x=\"0\"><tspan>a</tspan> <tspan>b</tspan></text>"
+                   + "<rect/></svg>",
+                 StandardCharsets.UTF_8.decode(optimized).toString());
+  }
+
+  @Test
+  public void optimize_svgNotInUtf8_isReturnedUnchanged() {
+    // GIVEN
+    String svg = "<?xml version=\"1.0\" encoding=\"ISO-8859-1\"?>\n"
+      + "<svg xmlns=\"http://www.w3.org/2000/svg\">\n  <title>Caf\u00e9</title>\n</svg>\n";
+    ByteBuffer declared = ByteBuffer.wrap(svg.getBytes(StandardCharsets.ISO_8859_1));
+    ByteBuffer undeclared = ByteBuffer.wrap(svg.replace(" encoding=\"ISO-8859-1\"", "")
+                                              .getBytes(StandardCharsets.ISO_8859_1));
+
+    // WHEN / THEN
+    assertSame(declared, IconOptimizer.optimize(declared, "image/svg+xml"));
+    assertSame(undeclared, IconOptimizer.optimize(undeclared, "image/svg+xml"));
+  }
+
+  @Test
+  public void optimize_pngWithHugeChunkLength_isReturnedUnchanged() {
+    // GIVEN: a PNG whose first chunk claims to be almost 2 GB
+    ByteBuffer content = ByteBuffer.allocate(32);
+    content.put(new byte[] {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1a, '\n'});
+    content.putInt(Integer.MAX_VALUE - 2).put("IHDR".getBytes(StandardCharsets.US_ASCII));
+    content.rewind();
+
+    // WHEN / THEN
+    assertSame(content, IconOptimizer.optimize(content, "image/png"));
+  }
+
+  @Test
+  public void optimize_unsupportedMediaType_isReturnedUnchanged() {
+    ByteBuffer content = ByteBuffer.wrap(new byte[]{1, 2, 3});
+
+    assertSame(content, IconOptimizer.optimize(content, "image/gif"));
+  }
+}
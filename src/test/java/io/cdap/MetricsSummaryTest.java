@@ -0,0 +1,61 @@
+/*
+ * Copyright © 2022 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import java.util.Arrays;
+import java.util.Map;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class MetricsSummaryTest {
+
+  @Test
+  public void totals_executionsOfSeveralModules_areSummedPerGoal() {
+    // GIVEN
+    GoalMetrics first = new GoalMetrics("create-plugin-json");
+    first.read(100);
+    first.written(40);
+    first.processed(3);
+    first.retained(30);
+    GoalMetrics second = new GoalMetrics("create-plugin-json");
+    second.read(50);
+    second.skipped(1);
+    second.retained(20);
+    GoalMetrics spec = new GoalMetrics("create-plugin-spec-json");
+    spec.written(10);
+
+    // WHEN
+    Map<String, ObjectNode> totals = MetricsSummary.totals(Arrays.asList(
+      first.toJson("first", "1.0.0"), second.toJson("second", "1.0.0"), spec.toJson("first", "1.0.0")));
+
+    // THEN
+    assertEquals(2, totals.size());
+    JsonNode pluginJson = totals.get("create-plugin-json");
+    assertEquals(2, pluginJson.get("executions").asInt());
+    assertEquals(150, pluginJson.get("bytesRead").asLong());
+    assertEquals(40, pluginJson.get("bytesWritten").asLong());
+    assertEquals(3, pluginJson.get("filesProcessed").asLong());
+    assertEquals(1, pluginJson.get("filesSkipped").asLong());
+    assertEquals(30, pluginJson.get("peakRetainedBytes").asLong());
+    assertEquals(GoalMetrics.Phase.values().length, pluginJson.get("phasesMs").size());
+    assertEquals(10, totals.get("create-plugin-spec-json").get("bytesWritten").asLong());
+  }
+}
@@ -0,0 +1,169 @@
+/*
+ * Copyright © 2022 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeNotNull;
+
+public class PackagesIndexTest {
+
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  @Test
+  public void update_specsChangeBetweenRuns_onlyChangedSpecsAreRead() throws Exception {
+    // GIVEN
+    Path packages = temporaryFolder.newFolder("packages").toPath();
+    Path cache = temporaryFolder.getRoot().toPath().resolve("cache/packages-index.json");
+    Path first = writeSpec(packages, "first/1.0.0", "{\"label\": \"First\", \"cdapVersion\": \"[6.0.0,7.0.0)\"}");
+    writeSpec(packages, "second/1.0.0", "{\"label\": \"Second\", \"actions\": [{\"type\": \"one_step\"}]}");
+    Files.createDirectories(packages.resolve("empty/1.0.0"));
+
+    // WHEN: the index is created
+    PackagesIndex.Update update = PackagesIndex.update(packages, cache, 2, false);
+
+    // THEN
+    assertEquals(2, update.packages);
+    assertEquals(2, update.read);
+    assertTrue(update.written);
+    JsonNode index = JsonSupport.read(packages.resolve(PackagesIndex.PACKAGES_JSON).toFile());
+    assertEquals(2, index.size());
+    assertEquals("first", index.get(0).get("name").asText());
+    assertEquals("1.0.0", index.get(0).get("version").asText());
+    assertEquals("[6.0.0,7.0.0)", index.get(0).get("cdapVersion").asText());
+    assertEquals("Second", index.get(1).get("label").asText());
+    assertFalse(index.get(1).has("actions"));
+
+    // WHEN: nothing changed
+    update = PackagesIndex.update(packages, cache, 2, false);
+
+    // THEN
+    assertEquals(0, update.read);
+    assertFalse(update.written);
+
+    // WHEN: a spec is rewritten with the same content
+    Files.setLastModifiedTime(first, FileTime.fromMillis(Files.getLastModifiedTime(first).toMillis() + 60000));
+    update = PackagesIndex.update(packages, cache, 2, false);
+
+    // THEN
+    assertEquals(0, update.read);
+    assertEquals(1, update.touched);
+    assertFalse(update.written);
+
+    // WHEN: a spec changes and another is removed
+    writeSpec(packages, "first/1.0.0", "{\"label\": \"First!\"}");
+    FileUtils.deleteDirectory(packages.resolve("second").toFile());
+    update = PackagesIndex.update(packages, cache, 2, false);
+
+    // THEN
+    assertEquals(1, update.packages);
+    assertEquals(1, update.read);
+    assertEquals(1, update.removed);
+    assertTrue(update.written);
+    index = JsonSupport.read(packages.resolve(PackagesIndex.PACKAGES_JSON).toFile());
+    assertEquals(1, index.size());
+    assertEquals("First!", index.get(0).get("label").asText());
+  }
+
+  @Test
+  public void update_specEditedJustAfterIndexing_specIsReadAgain() throws Exception {
+    // GIVEN: a spec indexed right after being written
+    Path packages = temporaryFolder.newFolder("packages").toPath();
+    Path cache = temporaryFolder.getRoot().toPath().resolve("cache/packages-index.json");
+    Path spec = writeSpec(packages, "plugin/1.0.0", "{\"label\": \"Before\"}");
+    FileTime lastModified = FileTime.fromMillis(System.currentTimeMillis());
+    Files.setLastModifiedTime(spec, lastModified);
+    PackagesIndex.update(packages, cache, 1, false);
+
+    // WHEN: it is edited within the same modification time tick, keeping its size
+    Files.write(spec, "{\"label\": \"After!\"}".getBytes(StandardCharsets.UTF_8));
+    Files.setLastModifiedTime(spec, lastModified);
+    PackagesIndex.Update update = PackagesIndex.update(packages, cache, 1, false);
+
+    // THEN
+    assertEquals(1, update.read);
+    JsonNode index = JsonSupport.read(packages.resolve(PackagesIndex.PACKAGES_JSON).toFile());
+    assertEquals("After!", index.get(0).get("label").asText());
+  }
+
+  @Test
+  public void update_racySpecHashedAgain_isNotHashedOnceTheWindowHasPassed() throws Exception {
+    // GIVEN: a cache written within a second of the spec
+    Path packages = temporaryFolder.newFolder("packages").toPath();
+    Path cache = temporaryFolder.getRoot().toPath().resolve("cache/packages-index.json");
+    Path spec = writeSpec(packages, "plugin/1.0.0", "{\"label\": \"Plugin\"}");
+    PackagesIndex.update(packages, cache, 1, false);
+    Files.setLastModifiedTime(cache, FileTime.fromMillis(Files.getLastModifiedTime(spec).toMillis() + 1000));
+
+    // WHEN
+    PackagesIndex.Update racy = PackagesIndex.update(packages, cache, 1, false);
+    PackagesIndex.Update next = PackagesIndex.update(packages, cache, 1, false);
+
+    // THEN
+    assertEquals(1, racy.touched);
+    assertEquals(0, next.touched);
+    assertEquals(0, next.read);
+  }
+
+  @Test
+  public void update_specReplacedWithSameSizeAndTime_specIsReadAgain() throws Exception {
+    // GIVEN
+    Path packages = temporaryFolder.newFolder("packages").toPath();
+    Path cache = temporaryFolder.getRoot().toPath().resolve("cache/packages-index.json");
+    Path spec = writeSpec(packages, "plugin/1.0.0", "{\"label\": \"Before\"}");
+    assumeNotNull(Files.readAttributes(spec, BasicFileAttributes.class).fileKey());
+    PackagesIndex.update(packages, cache, 1, false);
+
+    // WHEN: it is replaced by another file of the same size and modification time
+    Path replacement = temporaryFolder.newFile("spec.json").toPath();
+    Files.write(replacement, "{\"label\": \"After!\"}".getBytes(StandardCharsets.UTF_8));
+    Files.setLastModifiedTime(replacement, Files.getLastModifiedTime(spec));
+    Files.move(replacement, spec, StandardCopyOption.REPLACE_EXISTING);
+    PackagesIndex.Update update = PackagesIndex.update(packages, cache, 1, false);
+
+    // THEN
+    assertEquals(1, update.read);
+    JsonNode index = JsonSupport.read(packages.resolve(PackagesIndex.PACKAGES_JSON).toFile());
+    assertEquals("After!", index.get(0).get("label").asText());
+  }
+
+  /**
+   * Writes a spec last modified an hour ago, as if it had been checked out before the build.
+   */
+  private static Path writeSpec(Path packages, String directory, String spec) throws Exception {
+    Path specFile = packages.resolve(directory).resolve("spec.json");
+    Files.createDirectories(specFile.getParent());
+    Files.write(specFile, spec.getBytes(StandardCharsets.UTF_8));
+    Files.setLastModifiedTime(specFile, FileTime.fromMillis(System.currentTimeMillis() - 3600000));
+    return specFile;
+  }
+}
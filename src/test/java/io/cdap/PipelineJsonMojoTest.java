@@ -20,9 +20,13 @@ import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import java.io.File;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.List;
 
+import org.apache.maven.artifact.Artifact;
 import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.plugin.testing.MojoRule;
 import org.apache.maven.project.MavenProject;
@@ -32,10 +36,13 @@ import org.codehaus.plexus.PlexusTestCase;
 import org.junit.After;
 import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 
 import static io.cdap.Utils.newMavenSession;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 public class PipelineJsonMojoTest {
 
@@ -44,14 +51,22 @@ public class PipelineJsonMojoTest {
   private static final String EXPORTED_PIPELINE_JSON_FILE_PATH = "src/test/resources/target/test_exported_pipeline-1.0.0.json";
   private static final String INVALID_PIPELINE_JSON_POM_XML_FILE_PATH = "src/test/resources/test_poms/invalid-pipelineJson-pom.xml";
   public static final String VALID_PIPELINE_JSON_POM_XML_FILE_PATH = "src/test/resources/test_poms/pipelineJson-pom.xml";
+  private static final String BATCH_PIPELINE_JSON_POM_XML_FILE_PATH = "src/test/resources/test_poms/pipelineJson-batch-pom.xml";
+  private static final String BATCH_OUTPUT_DIRECTORY = "src/test/resources/target";
 
   @Rule
   public MojoRule rule = new MojoRule();
 
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
   @After
   public void cleanUp() throws IOException {
     File output = new File(EXPORTED_PIPELINE_JSON_FILE_PATH);
     Files.deleteIfExists(output.toPath());
+    for (String name : new String[] {"first-1.0.0.json", "second-1.0.0.json", "exported_pipeline-1.0.0.json"}) {
+      Files.deleteIfExists(Paths.get(BATCH_OUTPUT_DIRECTORY, name));
+    }
   }
 
   @Test
@@ -97,4 +112,130 @@ public class PipelineJsonMojoTest {
 
     assertFalse(output.exists());
   }
+
+  @Test
+  public void extractConfig_configBetweenOtherFields_onlyConfigIsCopied() throws Exception {
+    //GIVEN
+    Path input = temporaryFolder.newFile("pipeline.json").toPath();
+    Files.write(input, ("{\"artifact\": {\"name\": \"cdap-data-pipeline\", \"tags\": [[1, 2], {\"config\": 0}]},"
+      + " \"config\": {\"stages\": [{\"name\": \"File\", \"properties\": {}}], \"engine\": \"spark\"},"
+      + " \"name\": \"pipeline\"}").getBytes(StandardCharsets.UTF_8));
+    Path output = temporaryFolder.getRoot().toPath().resolve("config.json");
+
+    // WHEN
+    boolean extracted = PipelineConfigExtractor.extractConfig(input, output, false);
+
+    // THEN
+    ObjectMapper mapper = new ObjectMapper();
+    assertTrue(extracted);
+    assertEquals(mapper.readTree("{\"stages\": [{\"name\": \"File\", \"properties\": {}}], \"engine\": \"spark\"}"),
+                 mapper.readTree(output.toFile()));
+  }
+
+  @Test
+  public void extractConfig_noConfig_nothingIsWritten() throws Exception {
+    //GIVEN
+    Path output = temporaryFolder.getRoot().toPath().resolve("config.json");
+
+    // WHEN
+    boolean extracted = PipelineConfigExtractor.extractConfig(Paths.get("src/test/resources/invalid.json"), output, true);
+
+    // THEN
+    assertFalse(extracted);
+    assertFalse(Files.exists(output));
+  }
+
+  @Test
+  public void execute_pipelineJsonDirectoryProvided_allConfigsAreExtracted() throws Exception {
+    //GIVEN
+    File testPom = new File(BATCH_PIPELINE_JSON_POM_XML_FILE_PATH);
+
+    ProjectBuildingRequest buildingRequest = newMavenSession(rule).getProjectBuildingRequest();
+    ProjectBuilder projectBuilder = rule.lookup(ProjectBuilder.class);
+    MavenProject project = projectBuilder.build(testPom, buildingRequest).getProject();
+
+    // WHEN
+    PipelineJson mojo = (PipelineJson) rule.lookupConfiguredMojo(project, CREATE_PIPELINE_JSON_GOAL);
+    mojo.execute();
+
+    // THEN
+    ObjectMapper mapper = new ObjectMapper();
+    assertEquals(mapper.readTree(new File(EXPECTED_PIPELINE_JSON_FILE_PATH)),
+                 mapper.readTree(new File(BATCH_OUTPUT_DIRECTORY, "first-1.0.0.json")));
+    assertEquals(mapper.readTree("{\"connections\": [], \"engine\": \"spark\", \"stages\": []}"),
+                 mapper.readTree(new File(BATCH_OUTPUT_DIRECTORY, "second-1.0.0.json")));
+  }
+
+  @Test
+  public void execute_pipelineJsonDirectoryAndAttach_eachConfigIsAttachedWithClassifier() throws Exception {
+    //GIVEN
+    File testPom = new File(BATCH_PIPELINE_JSON_POM_XML_FILE_PATH);
+
+    ProjectBuildingRequest buildingRequest = newMavenSession(rule).getProjectBuildingRequest();
+    ProjectBuilder projectBuilder = rule.lookup(ProjectBuilder.class);
+    MavenProject project = projectBuilder.build(testPom, buildingRequest).getProject();
+
+    PipelineJson mojo = (PipelineJson) rule.lookupConfiguredMojo(project, CREATE_PIPELINE_JSON_GOAL);
+    rule.setVariableValueToObject(mojo, "attach", true);
+
+    // WHEN
+    mojo.execute();
+
+    // THEN
+    List<Artifact> attached = ((MavenProject) rule.getVariableValueFromObject(mojo, "project")).getAttachedArtifacts();
+    assertEquals(2, attached.size());
+    assertEquals("first", attached.get(0).getClassifier());
+    assertEquals("json", attached.get(0).getType());
+    assertEquals(new File(BATCH_OUTPUT_DIRECTORY, "first-1.0.0.json").getAbsoluteFile(),
+                 attached.get(0).getFile().getAbsoluteFile());
+    assertEquals("second", attached.get(1).getClassifier());
+  }
+
+  @Test
+  public void execute_pipelineJsonDirectoryWithInvalidPipeline_validConfigsAreExtracted() throws Exception {
+    //GIVEN
+    File testPom = new File(BATCH_PIPELINE_JSON_POM_XML_FILE_PATH);
+
+    ProjectBuildingRequest buildingRequest = newMavenSession(rule).getProjectBuildingRequest();
+    ProjectBuilder projectBuilder = rule.lookup(ProjectBuilder.class);
+    MavenProject project = projectBuilder.build(testPom, buildingRequest).getProject();
+
+    PipelineJson mojo = (PipelineJson) rule.lookupConfiguredMojo(project, CREATE_PIPELINE_JSON_GOAL);
+    rule.setVariableValueToObject(mojo, "pipelineJsonDirectory", "src/test/resources");
+    rule.setVariableValueToObject(mojo, "pipelineJsonIncludes", "{exported_pipeline,invalid}.json");
+
+    // WHEN
+    try {
+      mojo.execute();
+      fail("Expected the invalid pipeline to fail the execution");
+    } catch (MojoExecutionException e) {
+      // THEN
+      assertTrue(e.getMessage().startsWith("Unable to extract 1 of 2 pipelines"));
+    }
+    assertTrue(new File(BATCH_OUTPUT_DIRECTORY, "exported_pipeline-1.0.0.json").isFile());
+    assertFalse(new File(BATCH_OUTPUT_DIRECTORY, "invalid-1.0.0.json").exists());
+  }
+
+  @Test
+  public void execute_pipelineJsonFileAndDirectoryProvided_fails() throws Exception {
+    //GIVEN
+    File testPom = new File(BATCH_PIPELINE_JSON_POM_XML_FILE_PATH);
+
+    ProjectBuildingRequest buildingRequest = newMavenSession(rule).getProjectBuildingRequest();
+    ProjectBuilder projectBuilder = rule.lookup(ProjectBuilder.class);
+    MavenProject project = projectBuilder.build(testPom, buildingRequest).getProject();
+
+    PipelineJson mojo = (PipelineJson) rule.lookupConfiguredMojo(project, CREATE_PIPELINE_JSON_GOAL);
+    rule.setVariableValueToObject(mojo, "pipelineJsonFile", "src/test/resources/exported_pipeline.json");
+
+    // WHEN
+    try {
+      mojo.execute();
+      fail("Expected pipelineJsonFile and pipelineJsonDirectory to be rejected together");
+    } catch (MojoExecutionException e) {
+      // THEN
+      assertTrue(e.getMessage(), e.getMessage().startsWith("pipelineJsonFile and pipelineJsonDirectory"));
+    }
+    assertFalse(new File(BATCH_OUTPUT_DIRECTORY, "first-1.0.0.json").exists());
+  }
 }
@@ -0,0 +1,161 @@
+/*
+ * Copyright © 2022 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class PluginJsonGeneratorTest {
+
+  private static final File PLUGIN_DIRECTORY = new File("src/test/resources/test_plugin");
+  private static final List<String> PARENTS = Arrays.asList("system:cdap-data-pipeline[6.0.0,9.0.0-SNAPSHOT)",
+                                                            "system:cdap-data-streams[6.0.0,9.0.0-SNAPSHOT)");
+
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  @Test
+  public void generate_withoutMaven_pluginJsonIsGenerated() throws Exception {
+    // GIVEN
+    List<String> warnings = new ArrayList<>();
+    PluginJsonGenerator generator = new PluginJsonGenerator("test_plugin", "1.0.0", PLUGIN_DIRECTORY,
+                                                            temporaryFolder.getRoot(), PARENTS)
+      .setLog(new RecordingLog(warnings));
+
+    // WHEN
+    File output = generator.generate();
+
+    // THEN
+    assertEquals(new File(temporaryFolder.getRoot(), "test_plugin-1.0.0.json"), output);
+    JsonNode pluginJson = JsonSupport.read(output);
+    assertEquals(4, pluginJson.get("properties").size());
+    assertEquals(PARENTS.get(1), pluginJson.get("parents").get(1).asText());
+    assertEquals(0, warnings.size());
+  }
+
+  @Test
+  public void isUpToDate_incrementalAndGenerated_isTrueUntilAnInputChanges() throws Exception {
+    // GIVEN
+    new PluginJsonGenerator("test_plugin", "1.0.0", PLUGIN_DIRECTORY, temporaryFolder.getRoot(), PARENTS)
+      .setIncremental(true, "1.0")
+      .generate();
+
+    // WHEN
+    boolean sameInputs = new PluginJsonGenerator("test_plugin", "1.0.0", PLUGIN_DIRECTORY,
+                                                 temporaryFolder.getRoot(), PARENTS)
+      .setIncremental(true, "1.0")
+      .isUpToDate();
+    boolean newGenerator = new PluginJsonGenerator("test_plugin", "1.0.0", PLUGIN_DIRECTORY,
+                                                   temporaryFolder.getRoot(), PARENTS)
+      .setIncremental(true, "2.0")
+      .isUpToDate();
+
+    // THEN
+    assertTrue(sameInputs);
+    assertFalse(newGenerator);
+  }
+
+  @Test
+  public void generate_widgetWithDuplicateField_fails() throws Exception {
+    // GIVEN
+    File pluginDirectory = temporaryFolder.newFolder("plugin");
+    File widgets = new File(pluginDirectory, "widgets");
+    assertTrue(widgets.mkdir());
+    Files.write(new File(widgets, "Test-batchsource.json").toPath(),
+                "{\"display-name\": \"Test\", \"display-name\": \"Other\"}".getBytes(StandardCharsets.UTF_8));
+    PluginJsonGenerator generator = new PluginJsonGenerator("test_plugin", "1.0.0", pluginDirectory,
+                                                            temporaryFolder.newFolder("target"), PARENTS);
+
+    // WHEN
+    try {
+      generator.generate();
+      fail("Expected the duplicate field to fail the generation");
+    } catch (GenerationException e) {
+      // THEN
+      assertTrue(e.getMessage(), e.getMessage().contains("Duplicate field 'display-name'"));
+    }
+  }
+
+  @Test
+  public void generate_compactOutput_reportsPrettyPrintedSize() throws Exception {
+    // GIVEN
+    RecordingLog log = new RecordingLog(new ArrayList<>());
+    File pretty = new PluginJsonGenerator("test_plugin", "1.0.0", PLUGIN_DIRECTORY,
+                                          temporaryFolder.newFolder("pretty"), PARENTS)
+      .generate();
+
+    // WHEN
+    File compact = new PluginJsonGenerator("test_plugin", "1.0.0", PLUGIN_DIRECTORY,
+                                           temporaryFolder.newFolder("compact"), PARENTS)
+      .setCompactOutput(true)
+      .setLog(log)
+      .generate();
+
+    // THEN
+    String expected = String.format("Compact output       : %d bytes, %d bytes pretty-printed, %d bytes saved",
+                                    compact.length(), pretty.length(), pretty.length() - compact.length());
+    assertTrue(log.infos.toString(), log.infos.contains(expected));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void setWidgetValidation_unknownMode_isRejected() {
+    new PluginJsonGenerator("test_plugin", "1.0.0", PLUGIN_DIRECTORY, temporaryFolder.getRoot(), PARENTS)
+      .setWidgetValidation("strict", null);
+  }
+
+  /**
+   * Keeps the messages and warnings of a generator.
+   */
+  private static final class RecordingLog implements GenerationLog {
+
+    private final List<String> infos = new ArrayList<>();
+    private final List<String> warnings;
+
+    RecordingLog(List<String> warnings) {
+      this.warnings = warnings;
+    }
+
+    @Override
+    public void info(String message) {
+      infos.add(message);
+    }
+
+    @Override
+    public void warn(String message) {
+      warnings.add(message);
+    }
+
+    @Override
+    public void error(String message) {
+      warnings.add(message);
+    }
+  }
+}
@@ -0,0 +1,389 @@
+/*
+ * Copyright © 2022 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.testing.MojoRule;
+import org.apache.maven.project.MavenProject;
+import org.apache.maven.project.ProjectBuilder;
+import org.apache.maven.project.ProjectBuildingRequest;
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static io.cdap.Utils.newMavenSession;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class PluginJsonMojoTest {
+
+  private static final String CREATE_PLUGIN_JSON_GOAL = "create-plugin-json";
+  private static final String BUILD_DIRECTORY = "src/test/resources/target";
+  private static final String PLUGIN_JSON_FILE_PATH = BUILD_DIRECTORY + "/test_plugin-1.0.0.json";
+  private static final String METRICS_FILE = GoalMetrics.DIRECTORY + "/create-plugin-json.json";
+  private static final String PLUGIN_JSON_POM_XML_FILE_PATH = "src/test/resources/test_poms/pluginJson-pom.xml";
+
+  @Rule
+  public MojoRule rule = new MojoRule();
+
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  @After
+  public void cleanUp() throws IOException {
+    Files.deleteIfExists(new File(PLUGIN_JSON_FILE_PATH).toPath());
+    Files.deleteIfExists(new File(BUILD_DIRECTORY, PluginJson.MANIFEST_FILE).toPath());
+    Files.deleteIfExists(new File(BUILD_DIRECTORY, METRICS_FILE).toPath());
+  }
+
+  @Test
+  public void execute_widgetsDocsAndIconsProvided_pluginJsonIsGenerated() throws Exception {
+    // WHEN
+    lookupMojo().execute();
+
+    // THEN
+    JsonNode output = new ObjectMapper().readTree(new File(PLUGIN_JSON_FILE_PATH));
+    JsonNode properties = output.get("properties");
+
+    assertEquals(4, properties.size());
+    assertTrue(properties.get("doc.TestSource-batchsource").asText().startsWith("# Test Source"));
+    assertTrue(properties.get("doc.TestSink-batchsink").asText().startsWith("# Test Sink"));
+
+    JsonNode widget = new ObjectMapper().readTree(properties.get("widgets.TestSource-batchsource").asText());
+    assertEquals("Test Source", widget.get("display-name").asText());
+    assertEquals("inline", widget.get("icon").get("type").asText());
+    assertTrue(widget.get("icon").get("arguments").get("data").asText().startsWith("data:image/png;base64,"));
+
+    JsonNode sink = new ObjectMapper().readTree(properties.get("widgets.TestSink-batchsink").asText());
+    assertEquals(null, sink.get("icon"));
+
+    assertEquals(2, output.get("parents").size());
+    assertEquals("system:cdap-data-pipeline[6.0.0,9.0.0-SNAPSHOT)", output.get("parents").get(0).asText());
+  }
+
+  @Test
+  public void execute_incrementalAndInputsUnchanged_pluginJsonIsNotRewritten() throws Exception {
+    // GIVEN
+    lookupMojo().execute();
+    File output = new File(PLUGIN_JSON_FILE_PATH);
+    String content = new String(Files.readAllBytes(output.toPath()), "UTF-8");
+    assertTrue(output.setLastModified(1000L));
+
+    // WHEN
+    lookupMojo().execute();
+
+    // THEN
+    assertEquals(1000L, output.lastModified());
+    assertEquals(content, new String(Files.readAllBytes(output.toPath()), "UTF-8"));
+  }
+
+  @Test
+  public void execute_incrementalAndManifestMissing_pluginJsonIsRegenerated() throws Exception {
+    // GIVEN
+    lookupMojo().execute();
+    File output = new File(PLUGIN_JSON_FILE_PATH);
+    byte[] expected = Files.readAllBytes(output.toPath());
+    Files.write(output.toPath(), "{}".getBytes(StandardCharsets.UTF_8));
+    Files.delete(new File(BUILD_DIRECTORY, PluginJson.MANIFEST_FILE).toPath());
+
+    // WHEN
+    lookupMojo().execute();
+
+    // THEN
+    assertArrayEquals(expected, Files.readAllBytes(output.toPath()));
+    assertTrue(new File(BUILD_DIRECTORY, PluginJson.MANIFEST_FILE).exists());
+  }
+
+  @Test
+  public void execute_incrementalAndWidgetEdited_pluginJsonIsRegenerated() throws Exception {
+    // GIVEN
+    File plugin = copyPlugin();
+    lookupMojo(plugin).execute();
+    File widget = new File(plugin, "widgets/TestSource-batchsource.json");
+    String content = new String(Files.readAllBytes(widget.toPath()), StandardCharsets.UTF_8);
+    Files.write(widget.toPath(), content.replace("Test Source", "Edited Source").getBytes(StandardCharsets.UTF_8));
+
+    // WHEN
+    lookupMojo(plugin).execute();
+
+    // THEN
+    JsonNode properties = new ObjectMapper().readTree(new File(PLUGIN_JSON_FILE_PATH)).get("properties");
+    JsonNode output = new ObjectMapper().readTree(properties.get("widgets.TestSource-batchsource").asText());
+    assertEquals("Edited Source", output.get("display-name").asText());
+  }
+
+  @Test
+  public void execute_incrementalAndDocEdited_pluginJsonIsRegenerated() throws Exception {
+    // GIVEN
+    File plugin = copyPlugin();
+    lookupMojo(plugin).execute();
+    Files.write(new File(plugin, "docs/TestSink-batchsink.md").toPath(),
+                "# Edited Sink".getBytes(StandardCharsets.UTF_8));
+
+    // WHEN
+    lookupMojo(plugin).execute();
+
+    // THEN
+    JsonNode properties = new ObjectMapper().readTree(new File(PLUGIN_JSON_FILE_PATH)).get("properties");
+    assertEquals("# Edited Sink", properties.get("doc.TestSink-batchsink").asText());
+  }
+
+  @Test
+  public void execute_incrementalAndIconEdited_pluginJsonIsRegenerated() throws Exception {
+    // GIVEN
+    File plugin = copyPlugin();
+    lookupMojo(plugin).execute();
+    File icon = new File(plugin, "icons/TestSource-batchsource.png");
+    Files.write(icon.toPath(), new byte[] {1, 2, 3});
+
+    // WHEN
+    lookupMojo(plugin).execute();
+
+    // THEN
+    JsonNode properties = new ObjectMapper().readTree(new File(PLUGIN_JSON_FILE_PATH)).get("properties");
+    JsonNode widget = new ObjectMapper().readTree(properties.get("widgets.TestSource-batchsource").asText());
+    assertEquals("data:image/png;base64,AQID", widget.get("icon").get("arguments").get("data").asText());
+  }
+
+  @Test
+  public void execute_incrementalAndCdapArtifactsChanged_pluginJsonIsRegenerated() throws Exception {
+    // GIVEN
+    lookupMojo().execute();
+    PluginJson mojo = lookupMojo();
+    rule.setVariableValueToObject(mojo, "cdapArtifacts", new String[] {"system:cdap-data-pipeline[6.0.0,7.0.0)"});
+
+    // WHEN
+    mojo.execute();
+
+    // THEN
+    JsonNode parents = new ObjectMapper().readTree(new File(PLUGIN_JSON_FILE_PATH)).get("parents");
+    assertEquals(1, parents.size());
+    assertEquals("system:cdap-data-pipeline[6.0.0,7.0.0)", parents.get(0).asText());
+  }
+
+  @Test
+  public void execute_regeneratedWithSameContent_pluginJsonIsNotReplaced() throws Exception {
+    // GIVEN
+    PluginJson mojo = lookupMojo();
+    rule.setVariableValueToObject(mojo, "incremental", false);
+    mojo.execute();
+    File output = new File(PLUGIN_JSON_FILE_PATH);
+    assertTrue(output.setLastModified(1000L));
+
+    // WHEN
+    mojo = lookupMojo();
+    rule.setVariableValueToObject(mojo, "incremental", false);
+    rule.setVariableValueToObject(mojo, "attach", true);
+    mojo.execute();
+
+    // THEN
+    assertEquals(1000L, output.lastModified());
+    MavenProject project = (MavenProject) rule.getVariableValueFromObject(mojo, "project");
+    assertEquals(1, project.getAttachedArtifacts().size());
+    assertEquals("json", project.getAttachedArtifacts().get(0).getType());
+    assertEquals(output.getAbsoluteFile(), project.getAttachedArtifacts().get(0).getFile().getAbsoluteFile());
+  }
+
+  @Test
+  public void execute_parallelismConfigured_pluginJsonIsSameAsSequential() throws Exception {
+    // GIVEN
+    PluginJson sequential = lookupMojo();
+    rule.setVariableValueToObject(sequential, "incremental", false);
+    sequential.execute();
+    byte[] expected = Files.readAllBytes(new File(PLUGIN_JSON_FILE_PATH).toPath());
+
+    // WHEN
+    PluginJson parallel = lookupMojo();
+    rule.setVariableValueToObject(parallel, "incremental", false);
+    rule.setVariableValueToObject(parallel, "parallelism", 4);
+    parallel.execute();
+
+    // THEN
+    assertArrayEquals(expected, Files.readAllBytes(new File(PLUGIN_JSON_FILE_PATH).toPath()));
+  }
+
+  @Test
+  public void execute_compactOutput_pluginJsonAndWidgetsAreNotIndented() throws Exception {
+    // GIVEN
+    PluginJson mojo = lookupMojo();
+    rule.setVariableValueToObject(mojo, "compactOutput", true);
+
+    // WHEN
+    mojo.execute();
+
+    // THEN
+    String content = new String(Files.readAllBytes(new File(PLUGIN_JSON_FILE_PATH).toPath()), "UTF-8");
+    JsonNode properties = new ObjectMapper().readTree(content).get("properties");
+    assertTrue(content.startsWith("{\"properties\":{\"doc."));
+    assertFalse(properties.get("widgets.TestSink-batchsink").asText().contains("\n"));
+    assertEquals("Test Sink",
+                 new ObjectMapper().readTree(properties.get("widgets.TestSink-batchsink").asText())
+                   .get("display-name").asText());
+  }
+
+  @Test(expected = MojoExecutionException.class)
+  public void execute_iconLargerThanMaxIconSize_failsWhenConfigured() throws Exception {
+    PluginJson mojo = lookupMojo();
+    rule.setVariableValueToObject(mojo, "optimizeIcons", true);
+    rule.setVariableValueToObject(mojo, "maxIconSize", 16L);
+    rule.setVariableValueToObject(mojo, "failOnLargeIcon", true);
+
+    mojo.execute();
+  }
+
+  @Test(expected = MojoExecutionException.class)
+  public void execute_incrementalAndMaxIconSizeLowered_iconsAreCheckedAgain() throws Exception {
+    // GIVEN
+    lookupMojo().execute();
+    PluginJson mojo = lookupMojo();
+    rule.setVariableValueToObject(mojo, "maxIconSize", 16L);
+    rule.setVariableValueToObject(mojo, "failOnLargeIcon", true);
+
+    // WHEN
+    mojo.execute();
+  }
+
+  @Test
+  public void execute_iconCacheLargerThanMaxSize_leastRecentlyUsedIconsAreEvicted() throws Exception {
+    // GIVEN: a cache holding 2 MB of icons used an hour ago
+    File cacheDirectory = temporaryFolder.newFolder("icon-cache");
+    for (int i = 0; i < 4; i++) {
+      File entry = new File(cacheDirectory, "old" + i + ".uri");
+      Files.write(entry.toPath(), new byte[512 * 1024]);
+      assertTrue(entry.setLastModified(System.currentTimeMillis() - 3600000));
+    }
+    PluginJson mojo = lookupMojo();
+    rule.setVariableValueToObject(mojo, "incremental", false);
+    rule.setVariableValueToObject(mojo, "cacheIcons", true);
+    rule.setVariableValueToObject(mojo, "iconCacheDirectory", cacheDirectory.getAbsolutePath());
+    rule.setVariableValueToObject(mojo, "iconCacheMaxSizeMb", 1L);
+
+    // WHEN
+    mojo.execute();
+
+    // THEN: the cache fits in 1 MB and keeps the icon of the build
+    long size = 0;
+    int newEntries = 0;
+    for (File entry : cacheDirectory.listFiles()) {
+      size += entry.length();
+      if (!entry.getName().startsWith("old")) {
+        newEntries++;
+      }
+    }
+    assertTrue(String.valueOf(size), size <= 1024 * 1024);
+    assertEquals(1, newEntries);
+  }
+
+  @Test
+  public void execute_widgetsNotMatchingSchema_failsWhenConfigured() throws Exception {
+    // GIVEN
+    File schema = temporaryFolder.newFile("widget-schema.json");
+    Files.write(schema.toPath(), "{\"required\": [\"missing-property\"]}".getBytes(StandardCharsets.UTF_8));
+    PluginJson mojo = lookupMojo();
+    rule.setVariableValueToObject(mojo, "widgetSchema", schema);
+    rule.setVariableValueToObject(mojo, "widgetValidation", "fail");
+
+    // WHEN
+    try {
+      mojo.execute();
+      fail("Expected widgets not matching the schema to fail the build");
+    } catch (MojoExecutionException e) {
+      // THEN
+      assertTrue(e.getMessage(), e.getMessage().contains("TestSink-batchsink.json"));
+      assertTrue(e.getMessage(), e.getMessage().contains("TestSource-batchsource.json"));
+    }
+    assertFalse(new File(PLUGIN_JSON_FILE_PATH).exists());
+  }
+
+  @Test
+  public void execute_widgetsMatchingBundledSchema_pluginJsonIsGenerated() throws Exception {
+    // GIVEN
+    PluginJson mojo = lookupMojo();
+    rule.setVariableValueToObject(mojo, "widgetValidation", "fail");
+
+    // WHEN
+    mojo.execute();
+
+    // THEN
+    assertTrue(new File(PLUGIN_JSON_FILE_PATH).exists());
+  }
+
+  @Test
+  public void execute_writeMetrics_metricsAreWritten() throws Exception {
+    // GIVEN
+    PluginJson mojo = lookupMojo();
+    rule.setVariableValueToObject(mojo, "incremental", false);
+    rule.setVariableValueToObject(mojo, "writeMetrics", true);
+
+    // WHEN
+    mojo.execute();
+
+    // THEN
+    JsonNode metrics = new ObjectMapper().readTree(new File(BUILD_DIRECTORY, METRICS_FILE));
+    assertEquals("create-plugin-json", metrics.get("goal").asText());
+    assertEquals("test_plugin", metrics.get("artifactId").asText());
+    // 2 widgets, 2 docs and 1 icon
+    assertEquals(5, metrics.get("filesProcessed").asInt());
+    assertEquals(new File(PLUGIN_JSON_FILE_PATH).length(), metrics.get("bytesWritten").asLong());
+    assertTrue(metrics.get("bytesRead").asLong() > 0);
+    assertTrue(metrics.get("peakRetainedBytes").asLong() > 0);
+    assertTrue(metrics.get("phasesMs").get("parse").asDouble() > 0);
+    assertTrue(metrics.get("wallTimeMs").asDouble() > 0);
+  }
+
+  /**
+   * Copies the widgets, docs and icons of the test plugin, to be edited by a test.
+   */
+  private File copyPlugin() throws IOException {
+    File plugin = temporaryFolder.newFolder("plugin");
+    FileUtils.copyDirectory(new File("src/test/resources/test_plugin"), plugin);
+    return plugin;
+  }
+
+  /**
+   * Looks up the goal reading the widgets, docs and icons of the given plugin directory.
+   */
+  private PluginJson lookupMojo(File plugin) throws Exception {
+    PluginJson mojo = lookupMojo();
+    rule.setVariableValueToObject(mojo, "widgetsDirectory", new File(plugin, "widgets").getAbsolutePath());
+    rule.setVariableValueToObject(mojo, "docsDirectory", new File(plugin, "docs").getAbsolutePath());
+    rule.setVariableValueToObject(mojo, "iconsDirectory", new File(plugin, "icons").getAbsolutePath());
+    return mojo;
+  }
+
+  private PluginJson lookupMojo() throws Exception {
+    File testPom = new File(PLUGIN_JSON_POM_XML_FILE_PATH);
+
+    ProjectBuildingRequest buildingRequest = newMavenSession(rule).getProjectBuildingRequest();
+    ProjectBuilder projectBuilder = rule.lookup(ProjectBuilder.class);
+    MavenProject project = projectBuilder.build(testPom, buildingRequest).getProject();
+
+    return (PluginJson) rule.lookupConfiguredMojo(project, CREATE_PLUGIN_JSON_GOAL);
+  }
+}
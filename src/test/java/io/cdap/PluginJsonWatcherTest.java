@@ -0,0 +1,139 @@
+/*
+ * Copyright © 2022 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class PluginJsonWatcherTest {
+
+  private static final List<String> PARENTS = Collections.singletonList("system:cdap-data-pipeline[6.0.0,7.0.0)");
+
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  private File pluginDirectory;
+  private PluginJsonGenerator generator;
+
+  @Before
+  public void setUp() throws Exception {
+    pluginDirectory = temporaryFolder.newFolder("plugin");
+    FileUtils.copyDirectory(new File("src/test/resources/test_plugin"), pluginDirectory);
+    generator = new PluginJsonGenerator("test_plugin", "1.0.0", pluginDirectory,
+                                        new File(pluginDirectory, "target"), PARENTS);
+  }
+
+  @Test
+  public void update_docChanged_onlyItsPropertyIsReadAgain() throws Exception {
+    try (PluginJsonWatcher watcher = new PluginJsonWatcher(generator, 10, GenerationLog.NONE)) {
+      // GIVEN
+      watcher.start();
+      String widget = watcher.getProperties().get("widgets.TestSource-batchsource");
+      Path doc = pluginDirectory.toPath().resolve("docs/TestSink-batchsink.md");
+      Files.write(doc, "# Updated Sink".getBytes(StandardCharsets.UTF_8));
+
+      // WHEN
+      boolean updated = watcher.update(Collections.singleton(doc));
+
+      // THEN
+      assertTrue(updated);
+      JsonNode properties = JsonSupport.read(generator.getOutputFile()).get("properties");
+      assertEquals("# Updated Sink", properties.get("doc.TestSink-batchsink").asText());
+      assertEquals(widget, properties.get("widgets.TestSource-batchsource").asText());
+      assertEquals(4, properties.size());
+    }
+  }
+
+  @Test
+  public void update_iconDeletedAndWidgetInvalid_iconIsRemovedAndInvalidWidgetIsKept() throws Exception {
+    try (PluginJsonWatcher watcher = new PluginJsonWatcher(generator, 10, GenerationLog.NONE)) {
+      // GIVEN
+      watcher.start();
+      Path icon = pluginDirectory.toPath().resolve("icons/TestSource-batchsource.png");
+      Path widget = pluginDirectory.toPath().resolve("widgets/TestSink-batchsink.json");
+      String sink = watcher.getProperties().get("widgets.TestSink-batchsink");
+      Files.delete(icon);
+
+      // WHEN
+      boolean iconRemoved = watcher.update(Collections.singleton(icon));
+      Files.write(widget, "{\"configuration-groups\": [".getBytes(StandardCharsets.UTF_8));
+      boolean invalidWidget = watcher.update(Collections.singleton(widget));
+
+      // THEN
+      assertTrue(iconRemoved);
+      assertFalse(invalidWidget);
+      JsonNode properties = JsonSupport.read(generator.getOutputFile()).get("properties");
+      assertNull(JsonSupport.MAPPER.readTree(properties.get("widgets.TestSource-batchsource").asText()).get("icon"));
+      assertEquals(sink, properties.get("widgets.TestSink-batchsink").asText());
+    }
+  }
+
+  @Test
+  public void update_unrelatedFile_isIgnored() throws Exception {
+    try (PluginJsonWatcher watcher = new PluginJsonWatcher(generator, 10, GenerationLog.NONE)) {
+      // GIVEN
+      watcher.start();
+      Path notes = pluginDirectory.toPath().resolve("docs/notes.txt");
+      Files.write(notes, "notes".getBytes(StandardCharsets.UTF_8));
+
+      // WHEN / THEN
+      assertFalse(watcher.update(Collections.singleton(notes)));
+    }
+  }
+
+  @Test(timeout = 30000)
+  public void awaitChanges_widgetWritten_changeIsReportedAndPublished() throws Exception {
+    AtomicReference<SortedMap<String, String>> published = new AtomicReference<>();
+    try (PluginJsonWatcher watcher = new PluginJsonWatcher(generator, 100, GenerationLog.NONE)) {
+      // GIVEN
+      watcher.setListener(published::set).start();
+      Path widget = pluginDirectory.toPath().resolve("widgets/TestSink-batchsink.json");
+      JsonNode content = JsonSupport.read(widget.toFile());
+      ((ObjectNode) content).put("display-name", "Updated Sink");
+      JsonSupport.write(content, widget.toFile(), false);
+
+      // WHEN
+      Set<Path> changed = watcher.awaitChanges();
+      watcher.update(changed);
+
+      // THEN
+      assertTrue(changed.toString(), changed.contains(widget));
+      JsonNode sink = JsonSupport.MAPPER.readTree(published.get().get("widgets.TestSink-batchsink"));
+      assertEquals("Updated Sink", sink.get("display-name").asText());
+    }
+  }
+}
@@ -134,6 +134,32 @@ public class SpecJsonCreatorMojoTest {
     assertEquals(expectedPipelineSpec(), artifactObject.toString());
   }
 
+  @Test
+  public void execute_reproducible_specJsonIsIdenticalAcrossBuilds() throws Exception {
+    // GIVEN
+    File testPom = new File(PlexusTestCase.getBasedir(), "src/test/resources/test_poms/default-values-pom.xml");
+
+    ProjectBuildingRequest buildingRequest = newMavenSession(rule).getProjectBuildingRequest();
+    ProjectBuilder projectBuilder = rule.lookup(ProjectBuilder.class);
+    MavenProject project = projectBuilder.build(testPom, buildingRequest).getProject();
+
+    // WHEN
+    byte[][] builds = new byte[2][];
+    for (int i = 0; i < builds.length; i++) {
+      SpecJsonCreator mojo = (SpecJsonCreator) rule.lookupConfiguredMojo(project, "create-plugin-spec-json");
+      rule.setVariableValueToObject(mojo, "reproducible", true);
+      rule.setVariableValueToObject(mojo, "outputTimestamp", "2022-01-01T00:00:00Z");
+      mojo.execute();
+      builds[i] = Files.readAllBytes(Paths.get("src/test/resources/spec.json"));
+      Thread.sleep(5);
+    }
+
+    // THEN
+    assertArrayEquals(builds[0], builds[1]);
+    JSONObject object = new JSONObject(new JSONTokener(Files.newInputStream(Paths.get("src/test/resources/spec.json"))));
+    assertEquals(1640995200000L, object.getLong("created"));
+  }
+
   private String expectedPipelineSpec() {
     return "{\"scope\":\"SYSTEM\",\"name\":\"cdap-data-pipeline\",\"version\":\"[6.1.1, 7.0.0-SNAPSHOT)\"}";
   }
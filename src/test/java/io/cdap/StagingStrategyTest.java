@@ -0,0 +1,121 @@
+/*
+ * Copyright © 2022 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+
+import org.apache.commons.codec.binary.Hex;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class StagingStrategyTest {
+
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  @Test
+  public void stage_eachStrategy_targetHasSourceContent() throws Exception {
+    // GIVEN
+    Path source = temporaryFolder.newFile("artifact-1.0.0.jar").toPath();
+    Files.write(source, "jar content".getBytes(StandardCharsets.UTF_8));
+    Files.setLastModifiedTime(source, FileTime.fromMillis(1500000000000L));
+
+    for (StagingStrategy strategy : StagingStrategy.values()) {
+      // Staging replaces a previous version of the target.
+      Path target = temporaryFolder.newFolder(strategy.toString()).toPath().resolve("artifact-1.0.0.jar");
+      Files.write(target, "previous".getBytes(StandardCharsets.UTF_8));
+
+      // WHEN
+      MessageDigest digest = Checksums.newDigest();
+      StagingStrategy used = strategy.stage(source, target, digest);
+
+      // THEN
+      assertEquals(strategy, used);
+      assertEquals(strategy.toString(), DigestUtils.sha256Hex(Files.readAllBytes(source)),
+                   Hex.encodeHexString(digest.digest()));
+      assertArrayEquals(strategy.toString(), Files.readAllBytes(source), Files.readAllBytes(target));
+      assertEquals(strategy.toString(), Files.getLastModifiedTime(source).toMillis(),
+                   Files.getLastModifiedTime(target).toMillis());
+      assertEquals(strategy == StagingStrategy.HARDLINK || strategy == StagingStrategy.SYMLINK,
+                   Files.isSameFile(source, target));
+      assertEquals(strategy == StagingStrategy.SYMLINK, Files.isSymbolicLink(target));
+      assertFalse(Files.exists(OutputFiles.tempFile(target)));
+    }
+  }
+
+  @Test
+  public void isUpToDate_stagedFile_onlyChangedFilesAreRestaged() throws Exception {
+    // GIVEN
+    Path source = temporaryFolder.newFile("spec.json").toPath();
+    Files.write(source, "{}".getBytes(StandardCharsets.UTF_8));
+    Path target = temporaryFolder.newFolder("packages").toPath().resolve("spec.json");
+    Path link = target.resolveSibling("link.json");
+
+    // WHEN: nothing is staged yet
+    // THEN
+    assertFalse(StagingStrategy.COPY.isUpToDate(source, target, true));
+
+    // WHEN: the file is staged
+    StagingStrategy.COPY.stage(source, target);
+    StagingStrategy.SYMLINK.stage(source, link);
+
+    // THEN
+    assertTrue(StagingStrategy.COPY.isUpToDate(source, target, false));
+    assertTrue(StagingStrategy.SYMLINK.isUpToDate(source, link, false));
+    assertFalse(StagingStrategy.SYMLINK.isUpToDate(source, target, false));
+    assertFalse(StagingStrategy.COPY.isUpToDate(source, link, false));
+
+    // WHEN: the file is rebuilt with the same content
+    Files.setLastModifiedTime(source, FileTime.fromMillis(Files.getLastModifiedTime(target).toMillis() + 60000));
+
+    // THEN
+    assertFalse(StagingStrategy.COPY.isUpToDate(source, target, false));
+    assertTrue(StagingStrategy.COPY.isUpToDate(source, target, true));
+    assertEquals(Files.getLastModifiedTime(source).toMillis(), Files.getLastModifiedTime(target).toMillis());
+
+    // WHEN: the file is rebuilt with a different content of the same size
+    Files.write(source, "[]".getBytes(StandardCharsets.UTF_8));
+    Files.setLastModifiedTime(source, FileTime.fromMillis(Files.getLastModifiedTime(target).toMillis() + 60000));
+
+    // THEN
+    assertFalse(StagingStrategy.COPY.isUpToDate(source, target, true));
+  }
+
+  @Test
+  public void of_configuredValue_returnsStrategy() {
+    assertEquals(StagingStrategy.REFLINK_OR_COPY, StagingStrategy.of("reflink-or-copy"));
+    assertEquals(StagingStrategy.HARDLINK, StagingStrategy.of("HardLink"));
+    try {
+      StagingStrategy.of("move");
+      fail("Expected an unknown strategy to be rejected");
+    } catch (IllegalArgumentException e) {
+      assertTrue(e.getMessage().contains("copy, hardlink, reflink-or-copy, symlink"));
+    }
+  }
+}
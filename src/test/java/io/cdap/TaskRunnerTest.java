@@ -0,0 +1,128 @@
+/*
+ * Copyright © 2022 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+public class TaskRunnerTest {
+
+  @Test
+  public void runAll_parallel_resultsAreSameAsSequential() throws Exception {
+    // GIVEN
+    Map<String, Callable<String>> tasks = newTasks(32);
+
+    // WHEN
+    Map<String, String> sequential = TaskRunner.runAll(tasks, 1, "test");
+    Map<String, String> parallel = TaskRunner.runAll(tasks, 4, "test");
+
+    // THEN
+    assertEquals(32, parallel.size());
+    assertEquals(new ArrayList<>(sequential.entrySet()), new ArrayList<>(parallel.entrySet()));
+  }
+
+  @Test
+  public void forEachOrdered_parallel_resultsAreConsumedAsSequential() throws Exception {
+    // GIVEN
+    Map<String, Callable<String>> tasks = newTasks(32);
+    List<String> sequential = new ArrayList<>();
+    List<String> parallel = new ArrayList<>();
+    List<String> consumerThreads = new ArrayList<>();
+
+    // WHEN
+    TaskRunner.forEachOrdered(tasks, 1, "test", (key, value) -> sequential.add(key + "=" + value));
+    TaskRunner.forEachOrdered(tasks, 4, "test", (key, value) -> {
+      parallel.add(key + "=" + value);
+      consumerThreads.add(Thread.currentThread().getName());
+    });
+
+    // THEN
+    assertEquals(32, parallel.size());
+    assertEquals(sequential, parallel);
+    for (String thread : consumerThreads) {
+      assertEquals(Thread.currentThread().getName(), thread);
+    }
+  }
+
+  @Test
+  public void runAll_parallelTaskFails_firstFailureInKeyOrderIsThrown() throws Exception {
+    // GIVEN: the failure of task-03 completes after the one of task-05
+    Map<String, Callable<String>> tasks = newTasks(8);
+    tasks.put("task-03", () -> {
+      Thread.sleep(50);
+      throw new IOException("task-03 failed");
+    });
+    tasks.put("task-05", () -> {
+      throw new IllegalStateException("task-05 failed");
+    });
+
+    // WHEN
+    try {
+      TaskRunner.runAll(tasks, 4, "test");
+      fail("Expected the failure of task-03");
+    } catch (IOException e) {
+      // THEN
+      assertEquals("task-03 failed", e.getMessage());
+    }
+  }
+
+  @Test
+  public void forEachOrdered_parallelTaskFails_failureIsThrownAfterPreviousResults() throws Exception {
+    // GIVEN
+    Map<String, Callable<String>> tasks = newTasks(8);
+    tasks.put("task-03", () -> {
+      throw new IOException("task-03 failed");
+    });
+    List<String> consumed = new ArrayList<>();
+
+    // WHEN
+    try {
+      TaskRunner.forEachOrdered(tasks, 4, "test", (key, value) -> consumed.add(key));
+      fail("Expected the failure of task-03");
+    } catch (IOException e) {
+      // THEN
+      assertEquals("task-03 failed", e.getMessage());
+    }
+    assertEquals(3, consumed.size());
+    assertEquals("task-02", consumed.get(2));
+  }
+
+  /**
+   * Creates tasks returning their key, the earlier keys taking longer, so that tasks complete out of key order.
+   */
+  private static Map<String, Callable<String>> newTasks(int count) {
+    Map<String, Callable<String>> tasks = new TreeMap<>();
+    for (int i = 0; i < count; i++) {
+      String key = String.format("task-%02d", i);
+      long delay = (count - i) % 4;
+      tasks.put(key, () -> {
+        Thread.sleep(delay);
+        return "result of " + key;
+      });
+    }
+    return tasks;
+  }
+}
@@ -0,0 +1,93 @@
+/*
+ * Copyright © 2022 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class WidgetValidatorTest {
+
+  private static final String WIDGETS_DIRECTORY = "src/test/resources/test_plugin/widgets";
+
+  @Test
+  public void validate_testPluginWidgets_areValid() throws Exception {
+    // GIVEN
+    WidgetValidator validator = WidgetValidator.of(null);
+
+    // WHEN / THEN
+    for (File widget : new File(WIDGETS_DIRECTORY).listFiles()) {
+      assertEquals(widget.getName(), 0, validator.validate(JsonSupport.read(widget)).size());
+    }
+  }
+
+  @Test
+  public void validate_unknownWidgetTypeAndMissingGroups_areReported() throws Exception {
+    // GIVEN
+    WidgetValidator validator = WidgetValidator.of(null);
+    JsonNode unknownType = read("{\"configuration-groups\": [{\"label\": \"Basic\", \"properties\": "
+                                  + "[{\"widget-type\": \"text-box\", \"name\": \"referenceName\"}]}]}");
+    JsonNode noGroups = read("{\"display-name\": \"Test\"}");
+
+    // WHEN
+    List<String> unknownTypeErrors = validator.validate(unknownType);
+    List<String> noGroupsErrors = validator.validate(noGroups);
+
+    // THEN
+    assertEquals(1, unknownTypeErrors.size());
+    assertTrue(unknownTypeErrors.get(0), unknownTypeErrors.get(0).contains("widget-type"));
+    assertEquals(1, noGroupsErrors.size());
+    assertTrue(noGroupsErrors.get(0), noGroupsErrors.get(0).contains("configuration-groups"));
+  }
+
+  @Test
+  public void of_sameSchemaTwice_isCompiledOnce() throws Exception {
+    // GIVEN
+    WidgetValidator.of(null);
+    int compiled = WidgetValidator.compiledSchemas();
+
+    // WHEN
+    WidgetValidator.of(null);
+
+    // THEN
+    assertEquals(compiled, WidgetValidator.compiledSchemas());
+  }
+
+  @Test
+  public void mode_unknownValue_isRejected() {
+    assertEquals(WidgetValidator.Mode.FAIL, WidgetValidator.Mode.of("Fail"));
+    try {
+      WidgetValidator.Mode.of("error");
+      fail("Expected an unknown widget validation to be rejected");
+    } catch (IllegalArgumentException e) {
+      assertFalse(e.getMessage().isEmpty());
+    }
+  }
+
+  private static JsonNode read(String json) throws Exception {
+    return JsonSupport.read(new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)));
+  }
+}